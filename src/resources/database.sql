@@ -35,3 +35,13 @@ CREATE TABLE IF NOT EXISTS answers (
     -- vincoli di integrità inter-referenziale
     FOREIGN KEY(session_id) REFERENCES game_sessions(id)
 );
+
+-- question_stats - risposte aggregate per tipo di domanda e fascia di frequenza
+CREATE TABLE IF NOT EXISTS question_stats (
+    question_type TEXT NOT NULL,
+    frequency_bucket INTEGER NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    correct INTEGER NOT NULL DEFAULT 0,
+
+    PRIMARY KEY(question_type, frequency_bucket)
+);
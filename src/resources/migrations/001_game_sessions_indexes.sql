@@ -0,0 +1,8 @@
+-- indici su game_sessions: storico e riepilogo partite di un utente (WHERE user_id ORDER BY created_at)
+-- e classifica globale (JOIN su user_id con SUM(score)) leggono solo l'indice, senza accedere alla tabella
+CREATE INDEX IF NOT EXISTS idx_game_sessions_user_created
+    ON game_sessions(user_id, created_at, score, difficulty, language);
+
+-- elenco di tutte le partite, dalla più recente
+CREATE INDEX IF NOT EXISTS idx_game_sessions_created
+    ON game_sessions(created_at);
@@ -0,0 +1,8 @@
+-- risposte di una partita e conteggio delle risposte corrette nel riepilogo,
+-- l'id (rowid) è già incluso in ogni indice
+CREATE INDEX IF NOT EXISTS idx_answers_session
+    ON answers(session_id, is_correct);
+
+-- accesso per email
+CREATE INDEX IF NOT EXISTS idx_users_email
+    ON users(email);
@@ -0,0 +1,58 @@
+-- user_totals - classifica materializzata: totali per utente aggiornati dai trigger
+-- nella stessa transazione che modifica game_sessions
+CREATE TABLE IF NOT EXISTS user_totals (
+    user_id INTEGER PRIMARY KEY,
+    total_points REAL NOT NULL DEFAULT 0,
+    games_played INTEGER NOT NULL DEFAULT 0,
+    best_score REAL NOT NULL DEFAULT 0,
+
+    -- vincoli di integrità inter-referenziale
+    FOREIGN KEY(user_id) REFERENCES users(id)
+);
+
+-- primi N della classifica letti in ordine dall'indice
+CREATE INDEX IF NOT EXISTS idx_user_totals_points
+    ON user_totals(total_points DESC, user_id);
+
+-- nuova partita: aggiorno i totali dell'utente in tempo costante
+CREATE TRIGGER IF NOT EXISTS trg_game_sessions_totals_insert
+AFTER INSERT ON game_sessions
+BEGIN
+    INSERT INTO user_totals (user_id, total_points, games_played, best_score)
+    VALUES (NEW.user_id, NEW.score, 1, NEW.score)
+    ON CONFLICT(user_id) DO UPDATE SET
+        total_points = total_points + excluded.total_points,
+        games_played = games_played + 1,
+        best_score = MAX(best_score, excluded.best_score);
+END;
+
+-- punteggio o utente modificati: il miglior punteggio non si può aggiornare
+-- per differenza, ricalcolo gli utenti coinvolti (ricerca sull'indice per user_id)
+CREATE TRIGGER IF NOT EXISTS trg_game_sessions_totals_update
+AFTER UPDATE OF user_id, score ON game_sessions
+BEGIN
+    DELETE FROM user_totals WHERE user_id IN (OLD.user_id, NEW.user_id);
+    INSERT INTO user_totals (user_id, total_points, games_played, best_score)
+    SELECT user_id, SUM(score), COUNT(*), MAX(score) FROM game_sessions
+    WHERE user_id IN (OLD.user_id, NEW.user_id) GROUP BY user_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_game_sessions_totals_delete
+AFTER DELETE ON game_sessions
+BEGIN
+    DELETE FROM user_totals WHERE user_id = OLD.user_id;
+    INSERT INTO user_totals (user_id, total_points, games_played, best_score)
+    SELECT user_id, SUM(score), COUNT(*), MAX(score) FROM game_sessions
+    WHERE user_id = OLD.user_id GROUP BY user_id;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_users_totals_delete
+AFTER DELETE ON users
+BEGIN
+    DELETE FROM user_totals WHERE user_id = OLD.id;
+END;
+
+-- popolo la tabella con le partite già giocate
+DELETE FROM user_totals;
+INSERT INTO user_totals (user_id, total_points, games_played, best_score)
+SELECT user_id, SUM(score), COUNT(*), MAX(score) FROM game_sessions GROUP BY user_id;
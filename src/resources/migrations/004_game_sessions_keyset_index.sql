@@ -0,0 +1,6 @@
+-- paginazione per cursore dello storico: l'indice deve essere ordinato per (created_at, id)
+-- così le pagine si leggono in ordine senza ordinamenti temporanei anche a parità di data;
+-- score, difficulty e language restano nell'indice per non accedere alla tabella
+DROP INDEX IF EXISTS idx_game_sessions_user_created;
+CREATE INDEX IF NOT EXISTS idx_game_sessions_user_created
+    ON game_sessions(user_id, created_at, id, score, difficulty, language);
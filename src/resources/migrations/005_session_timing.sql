@@ -0,0 +1,17 @@
+-- tempi reali delle partite: inizio e fine in millisecondi epoch, misurati in GameSession
+-- con System.nanoTime; le partite salvate prima di questa versione restano a NULL
+ALTER TABLE game_sessions ADD COLUMN started_at INTEGER;
+ALTER TABLE game_sessions ADD COLUMN ended_at INTEGER;
+
+-- tempo di risposta di ogni domanda, in millisecondi
+ALTER TABLE answers ADD COLUMN response_ms INTEGER;
+
+-- l'indice dello storico deve coprire anche i tempi, letti nel riepilogo delle partite
+DROP INDEX IF EXISTS idx_game_sessions_user_created;
+CREATE INDEX IF NOT EXISTS idx_game_sessions_user_created
+    ON game_sessions(user_id, created_at, id, score, difficulty, language, started_at, ended_at);
+
+-- percentili della durata per difficoltà: le durate si leggono già ordinate dall'indice
+CREATE INDEX IF NOT EXISTS idx_game_sessions_difficulty_duration
+    ON game_sessions(difficulty, ended_at - started_at)
+    WHERE ended_at IS NOT NULL AND started_at IS NOT NULL;
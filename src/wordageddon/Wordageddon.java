@@ -5,7 +5,10 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import wordageddon.dao.DAOFactory;
+import wordageddon.dao.DatabaseExecutor;
 import wordageddon.dao.Database;
+import wordageddon.service.PersistenceWriter;
 
 /**
  * Main application class for the Wordageddon text analysis game.
@@ -47,6 +50,21 @@ public class Wordageddon extends Application {
         stage.show();
     }
 
+    /**
+     * Called when the application exits.
+     * Waits for the background writer to persist any pending game data
+     * and closes the database connections.
+     */
+    @Override
+    public void stop() {
+        // scrivo su disco eventuali salvataggi ancora in coda
+        PersistenceWriter.getInstance().shutdown();
+        // completo le scritture sul database ancora in coda prima di chiudere le connessioni
+        DatabaseExecutor.shutdown();
+        DAOFactory.getCacheStatistics().forEach(statistics -> System.out.println("DAO " + statistics));
+        Database.shutdown();
+    }
+
     /**
      * Main entry point for the application.
      * Initializes the database and launches the JavaFX application.
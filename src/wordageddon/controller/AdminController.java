@@ -17,18 +17,20 @@ import javafx.stage.FileChooser;
 
 import wordageddon.model.User;
 import wordageddon.model.GameSession;
+import wordageddon.model.WordCoOccurrence;
 import wordageddon.service.UserSession;
 import wordageddon.service.DocumentServices;
-import wordageddon.dao.UserDAO;
-import wordageddon.dao.GameSessionDAO;
-import wordageddon.dao.implementation.UserDAOSQLite;
-import wordageddon.dao.implementation.GameSessionDAOSQLite;
+import wordageddon.dao.AsyncGameSessionDAO;
+import wordageddon.dao.AsyncUserDAO;
+import wordageddon.dao.AsyncAdminStatisticsDAO;
+import wordageddon.dao.DAOFactory;
 
 import java.io.File;
 import java.net.URL;
 import java.util.ResourceBundle;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Controller class for the administrative panel of the Wordageddon application.
@@ -43,6 +45,12 @@ import java.util.Map;
  */
 public class AdminController implements Initializable {
 
+    /** Number of word pairs listed in the tooltip of the co-occurrence statistic */
+    private static final int TOP_PAIRS_SHOWN = 10;
+
+    /** Users read per page by the users table */
+    private static final int USERS_PAGE_SIZE = 50;
+
     // FXML Elements
     @FXML private Label adminTitleLabel;
     @FXML private TableView<User> usersTableView;
@@ -61,11 +69,13 @@ public class AdminController implements Initializable {
     @FXML private Label totalUsersLabel;
     @FXML private Label totalGamesLabel;
     @FXML private Label totalAdminsLabel;
+    @FXML private Button rebuildLeaderboardButton;
     
     // Document Management Elements
     @FXML private Label documentsCountLabel;
     @FXML private Label stopwordsCountLabel;
     @FXML private Label vocabularyCountLabel;
+    @FXML private Label coOccurrenceCountLabel;
     @FXML private Button loadDocumentButton;
     @FXML private Button regenerateDtmButton;
     @FXML private TextArea stopwordsTextArea;
@@ -76,12 +86,14 @@ public class AdminController implements Initializable {
     @FXML private Label documentStatusLabel;
 
     // Services and DAOs
-    private UserDAO userDAO;
-    private GameSessionDAO gameSessionDAO;
+    private AsyncGameSessionDAO asyncGameSessionDAO;
+    private AsyncUserDAO asyncUserDAO;
+    private AsyncAdminStatisticsDAO asyncStatisticsDAO;
     private DocumentServices documentServices;
     
     // Data
     private ObservableList<User> usersList;
+    private LazyTableLoader<User> usersLoader;
 
     /**
      * Initializes the admin controller.
@@ -89,8 +101,10 @@ public class AdminController implements Initializable {
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Initialize DAOs and services
-        userDAO = new UserDAOSQLite();
-        gameSessionDAO = new GameSessionDAOSQLite();
+        // dalla factory, così le modifiche passano dalle cache dei dao
+        asyncGameSessionDAO = DAOFactory.getAsyncGameSessionDAO();
+        asyncUserDAO = DAOFactory.getAsyncUserDAO();
+        asyncStatisticsDAO = DAOFactory.getAsyncAdminStatisticsDAO();
         documentServices = new DocumentServices();
         
         // Initialize user list
@@ -118,6 +132,9 @@ public class AdminController implements Initializable {
         isAdminColumn.setCellValueFactory(new PropertyValueFactory<>("isAdmin"));
         
         usersTableView.setItems(usersList);
+        
+        // gli utenti vengono letti a pagine, ordinati per username, mentre si scorre la tabella
+        usersLoader = new LazyTableLoader<>(usersTableView, USERS_PAGE_SIZE, asyncUserDAO::getUsers);
     }
     
     /**
@@ -129,13 +146,11 @@ public class AdminController implements Initializable {
     }
     
     /**
-     * Loads all users into the table.
+     * Loads the first page of users into the table; the others follow on scroll.
      */
     private void loadUsers() {
         try {
-            List<User> users = userDAO.getAllUsers();
-            usersList.clear();
-            usersList.addAll(users);
+            usersLoader.reload();
         } catch (Exception e) {
             System.err.println("Errore nel caricamento degli utenti: " + e.getMessage());
             e.printStackTrace();
@@ -144,44 +159,52 @@ public class AdminController implements Initializable {
     
     /**
      * Loads and displays statistics.
+     * All the counters come from one query, read on the database threads.
      */
     private void loadStatistics() {
-        try {
-            // conta gli utenti totali
-            List<User> allUsers = userDAO.getAllUsers();
-            totalUsersLabel.setText(String.valueOf(allUsers.size()));
-            
-            // conta gli admin presenti
-            long adminCount = allUsers.stream().filter(user -> 
-                user.getIsAdmin() != null && user.getIsAdmin()).count();
-            totalAdminsLabel.setText(String.valueOf(adminCount));
-            
-            // conta il numero totale di sessioni di gioco avvenute
-            int totalGames = countTotalGameSessions();
-            totalGamesLabel.setText(String.valueOf(totalGames));
-            
-        } catch (Exception e) {
-            System.err.println("Errore nel caricamento delle statistiche: " + e.getMessage());
-            e.printStackTrace();
-            
-            // default label values
-            totalUsersLabel.setText("N/A");
-            totalGamesLabel.setText("N/A");
-            totalAdminsLabel.setText("N/A");
-        }
+        asyncStatisticsDAO.getAdminStatistics().whenComplete((statistics, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Errore nel caricamento delle statistiche: " + error.getMessage());
+                
+                // default label values
+                totalUsersLabel.setText("N/A");
+                totalGamesLabel.setText("N/A");
+                totalAdminsLabel.setText("N/A");
+                return;
+            }
+            totalUsersLabel.setText(String.valueOf(statistics.getTotalUsers()));
+            totalAdminsLabel.setText(String.valueOf(statistics.getTotalAdmins()));
+            totalGamesLabel.setText(String.valueOf(statistics.getTotalGames()));
+        }));
     }
     
     /**
-     * Counts the total number of game sessions without creating GameSession objects.
-     * This avoids the "Questions cannot be null or empty" error.
+     * Changes the admin status of a user and updates only its row of the table
+     * and the counters, without reloading the users.
+     * 
+     * @param user the user to update
+     * @param isAdmin the new admin status
+     * @param successTitle the title of the alert shown when the change is saved
+     * @param successMessage the message of the alert shown when the change is saved
      */
-    private int countTotalGameSessions() {
-        try {
-            return ((GameSessionDAOSQLite) gameSessionDAO).countGameSessions();
-        } catch (Exception e) {
-            System.err.println("Errore nel conteggio delle sessioni di gioco: " + e.getMessage());
-            return 0;
-        }
+    private void changeAdminStatus(User user, boolean isAdmin, String successTitle, String successMessage) {
+        asyncUserDAO.updateUserAdminStatus(user.getId(), isAdmin).whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Errore nella modifica dei privilegi admin: " + error.getMessage());
+                showAlert("Errore", "Errore nella modifica dei privilegi: " + error.getMessage());
+                return;
+            }
+            
+            // aggiorno solo la riga dell'utente: la sostituzione notifica la tabella
+            user.setIsAdmin(isAdmin);
+            int index = usersList.indexOf(user);
+            if (index >= 0) {
+                usersList.set(index, user);
+            }
+            loadStatistics();
+            
+            showAlert(successTitle, successMessage);
+        }));
     }
     
     /**
@@ -209,19 +232,8 @@ public class AdminController implements Initializable {
             return;
         }
         
-        try {
-            // aggiorno lo stato dell'utente
-            userDAO.updateUserAdminStatus(selectedUser.getId(), true);
-            
-            // ricarico i dati aggiornati
-            loadData();
-            
-            showAlert("Promozione completata", "L'utente " + selectedUser.getUsername() + " è stato promosso ad amministratore.");
-            
-        } catch (Exception e) {
-            System.err.println("Errore nella promozione dell'utente: " + e.getMessage());
-            showAlert("Errore", "Errore nella promozione dell'utente: " + e.getMessage());
-        }
+        changeAdminStatus(selectedUser, true, "Promozione completata",
+            "L'utente " + selectedUser.getUsername() + " è stato promosso ad amministratore.");
     }
     
     /**
@@ -249,19 +261,8 @@ public class AdminController implements Initializable {
             return;
         }
         
-        try {
-            // aggiorno lo stato dell'utente
-            userDAO.updateUserAdminStatus(selectedUser.getId(), false);
-            
-            // aggiorno tabella
-            loadData();
-            
-            showAlert("Rimozione completata", "I privilegi di amministratore sono stati rimossi dall'utente " + selectedUser.getUsername() + ".");
-            
-        } catch (Exception e) {
-            System.err.println("Errore nella rimozione dei privilegi admin: " + e.getMessage());
-            showAlert("Errore", "Errore nella rimozione dei privilegi: " + e.getMessage());
-        }
+        changeAdminStatus(selectedUser, false, "Rimozione completata",
+            "I privilegi di amministratore sono stati rimossi dall'utente " + selectedUser.getUsername() + ".");
     }
     
     /**
@@ -329,11 +330,17 @@ public class AdminController implements Initializable {
             stopwordsCountLabel.setText(String.valueOf(stats.get("stopwords")));
             vocabularyCountLabel.setText(String.valueOf(stats.get("vocabulary")));
             
+            // le co-occorrenze sono contate in background: aggiorno l'etichetta quando sono pronte
+            coOccurrenceCountLabel.setText("...");
+            coOccurrenceCountLabel.setTooltip(new Tooltip("Conteggio delle co-occorrenze in corso"));
+            documentServices.getCoOccurrenceAsync()
+                .thenAccept(coOccurrence -> Platform.runLater(() -> showCoOccurrence(coOccurrence)));
+            
             // Update documents list
-            List<String> documents = documentServices.getDocuments();
+            // leggo un documento alla volta, il corpus compresso li decomprime su richiesta
             ObservableList<String> documentItems = FXCollections.observableArrayList();
-            for (int i = 0; i < documents.size(); i++) {
-                String doc = documents.get(i);
+            for (int i = 0; i < documentServices.getDocumentCount(); i++) {
+                String doc = documentServices.getDocument(i);
                 String preview = "Documento " + (i + 1) + ": " + 
                                (doc.length() > 100 ? doc.substring(0, 100) + "..." : doc);
                 documentItems.add(preview);
@@ -349,6 +356,25 @@ public class AdminController implements Initializable {
         }
     }
     
+    /**
+     * Shows the number of co-occurring pairs and, in the tooltip, the most frequent ones.
+     * 
+     * @param coOccurrence the co-occurrence counts, or null if the counting is disabled
+     */
+    private void showCoOccurrence(WordCoOccurrence coOccurrence) {
+        if (coOccurrence != null) {
+            coOccurrenceCountLabel.setText(String.valueOf(coOccurrence.getPairCount()));
+            // nel tooltip mostro le coppie di parole che compaiono più spesso vicine
+            String topPairs = coOccurrence.getTopPairs(TOP_PAIRS_SHOWN).stream()
+                .map(WordCoOccurrence.Pair::toString)
+                .collect(Collectors.joining("\n"));
+            coOccurrenceCountLabel.setTooltip(new Tooltip(topPairs.isEmpty() ? "Nessuna coppia" : topPairs));
+        } else {
+            coOccurrenceCountLabel.setText("0");
+            coOccurrenceCountLabel.setTooltip(new Tooltip("Conteggio delle co-occorrenze disabilitato"));
+        }
+    }
+    
     /**
      * Handles loading a new document from file.
      */
@@ -405,6 +431,25 @@ public class AdminController implements Initializable {
         }
     }
     
+    /**
+     * Handles rebuilding the leaderboard totals from the stored game sessions.
+     */
+    @FXML
+    private void handleRebuildLeaderboard(ActionEvent event) {
+        // ricalcolo user_totals da game_sessions sul thread di scrittura: il GROUP BY non blocca la UI
+        rebuildLeaderboardButton.setDisable(true);
+        asyncGameSessionDAO.rebuildLeaderboard().whenComplete((users, error) -> Platform.runLater(() -> {
+            rebuildLeaderboardButton.setDisable(false);
+            if (error != null) {
+                System.err.println("Errore nella ricostruzione della classifica: " + error.getMessage());
+                showAlert("Errore", "Errore nella ricostruzione della classifica: " + error.getMessage());
+                return;
+            }
+            loadStatistics();
+            showAlert("Classifica Ricostruita", "La classifica è stata ricalcolata per " + users + " utenti.");
+        }));
+    }
+    
     /**
      * Handles regenerating the Document Term Matrix.
      */
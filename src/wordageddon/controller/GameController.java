@@ -11,6 +11,7 @@ import javafx.stage.Stage;
 import javafx.scene.Node;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -29,7 +30,11 @@ import wordageddon.service.GameInitializationService;
 import wordageddon.service.DocumentLoadingService;
 import wordageddon.service.GameIntegrationService;
 import wordageddon.service.DocumentServices;
+import wordageddon.service.QuestionBankService;
+import wordageddon.service.QuestionDifficultyService;
 import wordageddon.service.QuestionGeneratorService;
+import wordageddon.service.QuestionPipeline;
+import wordageddon.service.SharedQuestionService;
 import wordageddon.service.UserSession;
 import wordageddon.model.User;
 
@@ -95,6 +100,8 @@ public class GameController {
     @FXML private RadioButton option4;
     /** Toggle group for multiple-choice options */
     @FXML private ToggleGroup optionsToggleGroup;
+    /** Button to confirm the selected answer */
+    @FXML private Button submitAnswerButton;
     
     // vista 4: risultati
     /** Container for the results view */
@@ -156,8 +163,8 @@ public class GameController {
     /** Set to track used most-frequent-word question documents */
     private Set<String> usedMostFrequentQuestions;
     
-    /** Service for generating diverse question types */
-    private QuestionGeneratorService questionGenerator;
+    /** Background producer of the questions of the current game, drawn from the bank or generated */
+    private QuestionPipeline questionPipeline;
 
     /**
      * Initializes the game controller by setting up services for asynchronous operations.
@@ -224,27 +231,22 @@ public class GameController {
         
         // Ottieni la DTM già generata con le stopwords corrette
         DocumentTermMatrix adminDtm = documentServices.getDocumentTermMatrix();
-        List<String> adminDocuments = documentServices.getDocuments();
         
-        if (adminDtm != null && adminDocuments != null && !adminDocuments.isEmpty()) {
+        if (adminDtm != null && documentServices.getDocumentCount() > 0) {
             // Usa direttamente la DTM e i documenti dall'admin service
             dtm = adminDtm;
             
-            // Effettua una copia profonda della lista di documenti per poter manipolarla
-            documentContents = new ArrayList<>(adminDocuments);
+            // Vista in sola lettura sui documenti: ognuno viene decompresso solo quando serve
+            documentContents = documentServices.getDocumentsView();
             
-            // Crea i nomi dei documenti generici
-            visibleDocuments = new ArrayList<>();
-            for (int i = 0; i < Math.min(adminDocuments.size(), 3); i++) {
-                visibleDocuments.add("document_" + (i + 1));
-            }
+            // Gli id della DTM sono i nomi dei file, allineati alle posizioni dei contenuti
+            visibleDocuments = new ArrayList<>(documentServices.getDocumentNames());
             
             // Inizializza il GameEngine con la DTM e i documenti visibili
             gameEngine = new GameEngine(dtm, visibleDocuments);
             
-            // Inizializza il generatore di domande
-            questionGenerator = new QuestionGeneratorService(dtm, visibleDocuments);
-            
+            // Prepara in background la banca delle domande per questa versione del corpus
+            QuestionBankService.getInstance().prepare(dtm, visibleDocuments);
             
         } else {
             // Fallback al sistema precedente se l'admin service non ha dati
@@ -272,8 +274,8 @@ public class GameController {
             // Inizializza il GameEngine con la DTM e i documenti visibili
             gameEngine = new GameEngine(dtm, visibleDocuments);
             
-            // Inizializza il generatore di domande
-            questionGenerator = new QuestionGeneratorService(dtm, visibleDocuments);
+            // Prepara in background la banca delle domande per questa versione del corpus
+            QuestionBankService.getInstance().prepare(dtm, visibleDocuments);
             
         });
         
@@ -370,8 +372,8 @@ public class GameController {
         // prepara i documenti per la difficoltà corrente
         prepareDocumentsForDifficulty(numberOfDocuments);
         
-        // genera tutte le domande in anticipo
-        generateAllQuestions(difficulty);
+        // avvia la generazione delle domande in background, in parallelo alla lettura
+        startQuestionGeneration(difficulty);
 
         // reset game state
         currentQuestionNumber = 0;
@@ -445,6 +447,11 @@ public class GameController {
     private void onSubmitAnswer(ActionEvent event) {
         RadioButton selectedOption = (RadioButton) optionsToggleGroup.getSelectedToggle();
         if (selectedOption == null) return;
+        
+        // la domanda corrente potrebbe essere ancora in preparazione
+        if (currentGameSession == null || currentQuestionNumber >= currentGameSession.getQuestions().size()) {
+            return;
+        }
 
         // determina quale opzione è stata selezionata (0-3)
         int selectedIndex = -1;
@@ -454,9 +461,7 @@ public class GameController {
         else if (selectedOption == option4) selectedIndex = 3;
 
         // sottometti la risposta alla sessione di gioco
-        if (currentGameSession != null) {
-            currentGameSession.submitAnswer(currentQuestionNumber, selectedIndex);
-        }
+        currentGameSession.submitAnswer(currentQuestionNumber, selectedIndex);
 
         currentQuestionNumber++;
 
@@ -527,18 +532,18 @@ public class GameController {
             gameEngine = new GameEngine(dtm, visibleDocuments);
         }
         
-        // reset del generatore di domande
-        if (questionGenerator != null && dtm != null && visibleDocuments != null) {
-            questionGenerator = new QuestionGeneratorService(dtm, visibleDocuments);
-            questionGenerator.resetTracking();
-        }
-        
         // pulisce tutti gli elementi UI
         clearDocumentViews();
         clearQuestionView();
         resetTimer();
         clearTableView();
         
+        // interrompe l'eventuale generazione delle domande ancora in corso
+        if (questionPipeline != null) {
+            questionPipeline.cancel();
+            questionPipeline = null;
+        }
+        
         // reset game session
         currentGameSession = null;
         
@@ -643,7 +648,6 @@ public class GameController {
         documentContents.add("Contenuto di esempio per test");
         
         gameEngine = new GameEngine(dtm, visibleDocuments);
-        questionGenerator = new QuestionGeneratorService(dtm, visibleDocuments);
     }
     
     /**
@@ -694,52 +698,43 @@ public class GameController {
         HBox.setHgrow(doc2Container, Priority.ALWAYS);
         HBox.setHgrow(doc3Container, Priority.ALWAYS);
         
-        // Creiamo una copia mescolata dei documenti disponibili per garantire selezione casuale
-        List<String> shuffledDocumentContents = new ArrayList<>(documentContents);
-        List<String> shuffledVisibleDocuments = new ArrayList<>(visibleDocuments);
+        // Mescola gli indici dei documenti disponibili per garantire selezione casuale:
+        // nomi e contenuti restano allineati e vengono letti solo i documenti scelti
+        int availableDocuments = Math.min(documentContents.size(), visibleDocuments.size());
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < availableDocuments; i++) {
+            indices.add(i);
+        }
+        Collections.shuffle(indices);
         
-        // Assicurati che gli indici corrispondano
-        if (shuffledDocumentContents.size() == shuffledVisibleDocuments.size()) {
-            // Crea una lista di indici da mescolare
-            List<Integer> indices = new ArrayList<>();
-            for (int i = 0; i < shuffledDocumentContents.size(); i++) {
-                indices.add(i);
-            }
-            Collections.shuffle(indices);
-            
-            // Usa gli indici mescolati per creare le liste randomizzate
-            List<String> randomizedContents = new ArrayList<>();
-            List<String> randomizedNames = new ArrayList<>();
-            
-            for (int index : indices) {
-                randomizedContents.add(shuffledDocumentContents.get(index));
-                randomizedNames.add(shuffledVisibleDocuments.get(index));
-            }
-            
-            shuffledDocumentContents = randomizedContents;
-            shuffledVisibleDocuments = randomizedNames;
-        } else {
-            // Se le dimensioni non corrispondono, mescola solo i contenuti
-            Collections.shuffle(shuffledDocumentContents);
+        // I documenti scelti vengono mostrati nell'ordine del corpus, lo stesso usato dalla banca delle domande
+        List<Integer> selectedIndices = new ArrayList<>(indices.subList(0, Math.min(numberOfDocuments, indices.size())));
+        Collections.sort(selectedIndices);
+        
+        List<String> selectedContents = new ArrayList<>();
+        currentGameDocuments = new ArrayList<>();
+        for (int index : selectedIndices) {
+            selectedContents.add(documentContents.get(index));
+            currentGameDocuments.add(visibleDocuments.get(index));
         }
         
         // Mostra e carica solo il numero di documenti necessari
-        for (int i = 0; i < numberOfDocuments && i < shuffledDocumentContents.size(); i++) {
+        for (int i = 0; i < selectedContents.size(); i++) {
             switch (i) {
                 case 0:
-                    doc1.setText(shuffledDocumentContents.get(0));
+                    doc1.setText(selectedContents.get(0));
                     doc1.setVisible(true);
                     doc1Container.setVisible(true);
                     doc1Container.setManaged(true);
                     break;
                 case 1:
-                    doc2.setText(shuffledDocumentContents.get(1));
+                    doc2.setText(selectedContents.get(1));
                     doc2.setVisible(true);
                     doc2Container.setVisible(true);
                     doc2Container.setManaged(true);
                     break;
                 case 2:
-                    doc3.setText(shuffledDocumentContents.get(2));
+                    doc3.setText(selectedContents.get(2));
                     doc3.setVisible(true);
                     doc3Container.setVisible(true);
                     doc3Container.setManaged(true);
@@ -747,20 +742,8 @@ public class GameController {
             }
         }
         
-        // Aggiorna i documenti per la partita corrente
-        currentGameDocuments = new ArrayList<>();
-        for (int i = 0; i < numberOfDocuments && i < shuffledVisibleDocuments.size(); i++) {
-            currentGameDocuments.add(shuffledVisibleDocuments.get(i));
-        }
-        
         // Aggiorna il GameEngine con i documenti correnti
         gameEngine = new GameEngine(dtm, currentGameDocuments);
-        
-        // Aggiorna il generatore di domande con i documenti correnti
-        if (questionGenerator != null) {
-            questionGenerator = new QuestionGeneratorService(dtm, currentGameDocuments);
-        }
-        
     }
     
     /**
@@ -816,11 +799,7 @@ public class GameController {
      */
     // Metodo per mostrare la prima domanda
     private void showFirstQuestion() {
-        if (currentGameSession != null && currentGameSession.getQuestions() != null && !currentGameSession.getQuestions().isEmpty()) {
-            Question question = currentGameSession.getQuestions().get(currentQuestionNumber);
-            showQuestionView(question.getQuestionText());
-            updateQuestionOptions();
-        }
+        showCurrentQuestion();
     }
     
     /**
@@ -829,10 +808,93 @@ public class GameController {
      */
     // Metodo per mostrare la prossima domanda
     private void showNextQuestion() {
-        if (currentGameSession != null && currentQuestionNumber < currentGameSession.getQuestions().size()) {
+        showCurrentQuestion();
+    }
+    
+    /**
+     * Shows the question at the current position, taking it from the background
+     * pipeline if needed. When the question is not ready yet a waiting message is
+     * shown and the check is repeated shortly, without blocking the JavaFX thread.
+     */
+    private void showCurrentQuestion() {
+        if (currentGameSession == null) {
+            return;
+        }
+        
+        // sposto nella sessione le domande già generate dalla pipeline
+        if (questionPipeline != null) {
+            while (currentGameSession.getQuestions().size() <= currentQuestionNumber) {
+                Question ready = questionPipeline.poll();
+                if (ready == null) {
+                    break;
+                }
+                currentGameSession.addQuestion(ready);
+            }
+        }
+        
+        if (currentQuestionNumber < currentGameSession.getQuestions().size()) {
+            setOptionsDisabled(false);
             Question question = currentGameSession.getQuestions().get(currentQuestionNumber);
             showQuestionView(question.getQuestionText());
             updateQuestionOptions();
+            // il tempo di risposta parte da quando la domanda è visibile
+            currentGameSession.markQuestionShown();
+        } else if (questionPipeline != null && questionPipeline.getFailure() != null) {
+            // la generazione si è interrotta: questa domanda non arriverà mai
+            handleQuestionGenerationError(questionPipeline.getFailure());
+        } else if (questionPipeline != null) {
+            // la domanda non è ancora pronta: mostro un messaggio di attesa e riprovo a breve
+            showQuestionView("Preparazione della domanda...");
+            option1.setText("");
+            option2.setText("");
+            option3.setText("");
+            option4.setText("");
+            setOptionsDisabled(true);
+            
+            GameSession waitingSession = currentGameSession;
+            PauseTransition retry = new PauseTransition(Duration.millis(50));
+            retry.setOnFinished(e -> {
+                if (currentGameSession == waitingSession) {
+                    showCurrentQuestion();
+                }
+            });
+            retry.play();
+        }
+    }
+    
+    /**
+     * Ends the current game when its questions cannot be generated,
+     * telling the user and going back to the difficulty selection.
+     * 
+     * @param error the failure reported by the question pipeline
+     */
+    private void handleQuestionGenerationError(Throwable error) {
+        System.err.println("Errore nella generazione delle domande: " + error.getMessage());
+        
+        resetGame();
+        showDifficultyView();
+        
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Errore");
+        alert.setHeaderText(null);
+        alert.setContentText("Non è stato possibile preparare le domande della partita. Riprova.");
+        alert.show();
+    }
+    
+    /**
+     * Enables or disables the answer options and the submit button.
+     * Disabling also clears the selected option.
+     * 
+     * @param disabled true to prevent the user from answering
+     */
+    private void setOptionsDisabled(boolean disabled) {
+        option1.setDisable(disabled);
+        option2.setDisable(disabled);
+        option3.setDisable(disabled);
+        option4.setDisable(disabled);
+        submitAnswerButton.setDisable(disabled);
+        if (disabled && optionsToggleGroup.getSelectedToggle() != null) {
+            optionsToggleGroup.getSelectedToggle().setSelected(false);
         }
     }
     
@@ -859,45 +921,44 @@ public class GameController {
     }
     
     /**
-     * Generates all questions for the current game session.
+     * Starts the generation of the questions for the current game session.
      * Creates a mix of various question types:
      * - Absolute frequency: how many times a word appears in a document
      * - Relative frequency comparison: comparing frequencies of different words
      * - Document-specific word association: which document contains a specific word
      * - Exclusion questions: which word never appears in a document
      * 
-     * The number of questions generated depends on the selected difficulty level.
+     * When the question bank is ready the questions are drawn from it; otherwise they
+     * are generated. Both happen in background while the user reads the documents,
+     * and the questions are added to the session as they become available.
      * Questions are not repeated within the same session.
      */
-    private void generateAllQuestions(String difficulty) {
-        // Aggiorna la configurazione del generatore di domande
-        if (questionGenerator == null) {
-            System.err.println("Error: QuestionGenerator non inizializzato. Creazione di emergenza.");
-            questionGenerator = new QuestionGeneratorService(dtm, currentGameDocuments != null ? 
-                currentGameDocuments : visibleDocuments);
-        } else {
-            // Aggiorna i documenti del generatore per assicurarsi siano corretti
-            questionGenerator = new QuestionGeneratorService(dtm, currentGameDocuments);
+    private void startQuestionGeneration(String difficulty) {
+        if (questionPipeline != null) {
+            questionPipeline.cancel();
+            questionPipeline = null;
         }
         
-        List<Question> questions = new ArrayList<>();
-        questionGenerator.resetTracking();
-        
-        
-        // Generazione domande di varie tipologie
-        for (int i = 0; i < totalQuestions; i++) {
-            // Genera una domanda di tipo casuale usando il service
-            Question question = questionGenerator.generateRandomQuestion(i + 1);
-            if (question != null) {
-                questions.add(question);
-            } else {
-                System.err.println("Failed to generate question " + (i + 1));
-            }
-        }
+        List<String> gameDocuments = currentGameDocuments != null ? currentGameDocuments : visibleDocuments;
+        DocumentTermMatrix gameDtm = dtm;
+        int questionCount = totalQuestions;
         
+        // Le domande vengono scelte in base alla difficoltà stimata dalle risposte precedenti;
+        // statistiche, estrazione dalla banca e generatore vengono preparati dal thread della pipeline
+        QuestionDifficultyService difficultyService = QuestionDifficultyService.getInstance();
+        double targetDifficulty = difficultyService.getTargetDifficulty(difficulty);
         
-        // Crea una nuova sessione di gioco con le domande generate
-        currentGameSession = new GameSession(difficulty, questions);
+        currentGameSession = new GameSession(difficulty, questionCount);
+        questionPipeline = new QuestionPipeline(
+            () -> QuestionBankService.getInstance().draw(
+                gameDtm, gameDocuments, questionCount, difficultyService.getStatistics(), targetDifficulty),
+            () -> {
+                QuestionGeneratorService generator = SharedQuestionService.getInstance().createGenerator(gameDtm, gameDocuments);
+                generator.setTargetDifficulty(difficultyService.getStatistics(), targetDifficulty);
+                return generator;
+            },
+            questionCount);
+        questionPipeline.start();
     }
     
     /**
@@ -946,11 +1007,15 @@ public class GameController {
                     UserSession userSession = UserSession.getInstance();
                     if (userSession.isLoggedIn()) {
                         User currentUser = userSession.getCurrentUser();
-                        int sessionId = gameIntegrationService.saveUserGameSession(currentUser.getId(), currentGameSession);
-                        if (sessionId > 0) {
-                        } else {
-                            System.err.println("Errore nel salvare la sessione di gioco");
-                        }
+                        // il salvataggio avviene sul thread di scrittura del database, senza bloccare i risultati
+                        gameIntegrationService.saveUserGameSessionAsync(currentUser.getId(), currentGameSession)
+                            .whenComplete((sessionId, error) -> {
+                                if (error != null) {
+                                    System.err.println("Errore nel salvare la sessione di gioco: " + error.getMessage());
+                                } else if (sessionId <= 0) {
+                                    System.err.println("Errore nel salvare la sessione di gioco");
+                                }
+                            });
                     }
                 } catch (Exception e) {
                     System.err.println("Errore nel salvare la sessione di gioco: " + e.getMessage());
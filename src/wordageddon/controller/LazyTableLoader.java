@@ -0,0 +1,135 @@
+package wordageddon.controller;
+
+import java.util.concurrent.CompletableFuture;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+import wordageddon.dao.Page;
+import wordageddon.dao.PageCursor;
+
+/**
+ * Fills a TableView one page at a time: the first page is loaded by {@link #reload()},
+ * the following ones when the user scrolls near the bottom of the table.
+ *
+ * The table only ever holds the rows the user has scrolled through, and every page
+ * is read with a keyset query, so opening the view costs the same for a user with
+ * ten games or ten thousand.
+ *
+ * Pages are read off the JavaFX thread: the source returns a future and the rows are
+ * appended through {@code Platform.runLater}. A page requested before a reload is
+ * discarded when it arrives.
+ *
+ * @param <T> the type of the rows
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class LazyTableLoader<T> {
+
+    /** Fraction of the scroll range after which the next page is requested */
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    /**
+     * Reads a page of rows asynchronously, typically from an async DAO facade.
+     *
+     * @param <T> the type of the rows
+     */
+    public interface PageSource<T> {
+        CompletableFuture<Page<T>> fetch(PageCursor after, int limit);
+    }
+
+    private final TableView<T> table;
+    private final int pageSize;
+    private final PageSource<T> source;
+
+    private PageCursor next;
+    private boolean hasNext;
+    private boolean loading;
+
+    /** Incremented by every reload, so that a page requested before it is ignored */
+    private int generation;
+
+    /**
+     * Attaches a loader to a table.
+     *
+     * @param table the table to fill; its current items are replaced on reload
+     * @param pageSize the rows read per page, larger than the visible rows
+     * @param source the source of the pages
+     */
+    public LazyTableLoader(TableView<T> table, int pageSize, PageSource<T> source) {
+        this.table = table;
+        this.pageSize = pageSize;
+        this.source = source;
+
+        // la scrollbar esiste solo dopo la creazione della skin della tabella
+        if (table.getSkin() != null) {
+            attachToScrollBar();
+        }
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            if (newSkin != null) {
+                attachToScrollBar();
+            }
+        });
+    }
+
+    /**
+     * Empties the table and loads the first page.
+     */
+    public void reload() {
+        table.getItems().clear();
+        next = null;
+        hasNext = true;
+        loading = false;
+        generation++;
+        loadNextPage();
+    }
+
+    /**
+     * Requests the next page, if there is one; the rows are appended when it arrives.
+     * Must be called on the JavaFX thread.
+     */
+    public void loadNextPage() {
+        if (!hasNext || loading) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        source.fetch(next, pageSize).whenComplete((page, error) -> Platform.runLater(() -> {
+            // pagina richiesta prima di un reload: la scarto
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            if (error != null) {
+                System.err.println("Errore nel caricamento della pagina: " + error.getMessage());
+                return;
+            }
+            table.getItems().addAll(page.getItems());
+            next = page.getNext();
+            hasNext = page.hasNext();
+        }));
+    }
+
+    public boolean hasMore() {
+        return hasNext;
+    }
+
+    private void attachToScrollBar() {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar bar = (ScrollBar) node;
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    double range = bar.getMax() - bar.getMin();
+                    if (range > 0 && newValue.doubleValue() >= bar.getMin() + range * LOAD_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+                return;
+            }
+        }
+    }
+}
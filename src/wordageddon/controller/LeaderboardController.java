@@ -1,5 +1,6 @@
 package wordageddon.controller;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -9,22 +10,23 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.Node;
 import javafx.stage.Stage;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.event.ActionEvent;
 
+import wordageddon.dao.Page;
 import wordageddon.model.GameSessionSummary;
+import wordageddon.model.UserGameStatistics;
 import wordageddon.model.UserLeaderboardEntry;
 import wordageddon.model.User;
 import wordageddon.service.GameIntegrationService;
 import wordageddon.service.UserSession;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import java.util.ResourceBundle;
-import java.util.List;
 import java.text.SimpleDateFormat;
 
 /**
@@ -46,6 +48,9 @@ import java.text.SimpleDateFormat;
  */
 public class LeaderboardController implements Initializable {
 
+    /** Rows read per page by the tables, loaded as the user scrolls */
+    private static final int PAGE_SIZE = 50;
+
     @FXML private VBox leaderboardPane;
     @FXML private TabPane tabPane;
     @FXML private Label userWelcomeLabel;
@@ -72,6 +77,8 @@ public class LeaderboardController implements Initializable {
     
     private GameIntegrationService gameIntegrationService;
     private SimpleDateFormat dateFormat;
+    private LazyTableLoader<UserLeaderboardEntry> leaderboardLoader;
+    private LazyTableLoader<GameSessionSummary> sessionsLoader;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -116,6 +123,10 @@ public class LeaderboardController implements Initializable {
         });
         
         globalLeaderboardTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        
+        // la classifica viene letta a pagine mentre si scorre la tabella
+        leaderboardLoader = new LazyTableLoader<>(globalLeaderboardTable, PAGE_SIZE,
+            (after, limit) -> gameIntegrationService.getGlobalLeaderboardAsync(after, limit));
     }
     
     /**
@@ -143,6 +154,15 @@ public class LeaderboardController implements Initializable {
             new SimpleStringProperty(dateFormat.format(cellData.getValue().getCreatedAt())));
         
         gameSessionsTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        
+        // lo storico viene letto a pagine, dalla partita più recente
+        sessionsLoader = new LazyTableLoader<>(gameSessionsTable, PAGE_SIZE, (after, limit) -> {
+            UserSession userSession = UserSession.getInstance();
+            if (!userSession.isLoggedIn()) {
+                return CompletableFuture.completedFuture(new Page<>(Collections.<GameSessionSummary>emptyList(), null));
+            }
+            return gameIntegrationService.getUserGameSessionSummariesAsync(userSession.getCurrentUser().getId(), after, limit);
+        });
     }
     
     /**
@@ -156,9 +176,20 @@ public class LeaderboardController implements Initializable {
                 userWelcomeLabel.setText("Benvenuto, " + currentUser.getFname() + " " + currentUser.getLname());
             }
             
-            // carica le statistiche utente usando oggetti GameSessionSummary
-            List<GameSessionSummary> summaries = gameIntegrationService.getUserGameSessionSummaries(currentUser.getId());
-            updateUserStatsFromSummaries(summaries);
+            // statistiche aggregate dal database, lette fuori dal thread dell'interfaccia
+            gameIntegrationService.getUserStatisticsAsync(currentUser.getId())
+                .whenComplete((statistics, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        System.err.println("Errore nel caricamento delle statistiche utente: " + error.getMessage());
+                        
+                        // valore di default dell'etichetta
+                        if (userStatsLabel != null) {
+                            userStatsLabel.setText("Statistiche non disponibili");
+                        }
+                        return;
+                    }
+                    updateUserStats(statistics);
+                }));
         } else {
             if (userWelcomeLabel != null) {
                 userWelcomeLabel.setText("Utente non autenticato");
@@ -167,39 +198,22 @@ public class LeaderboardController implements Initializable {
     }
     
     /**
-     * Updates user statistics based on game session summaries.
+     * Updates user statistics based on the aggregated statistics of the user.
      */
-    private void updateUserStatsFromSummaries(List<GameSessionSummary> summaries) {
-        if (userStatsLabel == null || summaries.isEmpty()) {
+    private void updateUserStats(UserGameStatistics statistics) {
+        if (userStatsLabel == null || statistics.getGamesPlayed() == 0) {
             if (userStatsLabel != null) {
                 userStatsLabel.setText("Nessuna partita giocata");
             }
             return;
         }
         
-        int totalGames = summaries.size();
-        double avgScore = summaries.stream()
-            .mapToDouble(GameSessionSummary::getScore)
-            .average()
-            .orElse(0.0);
-        
-        double avgPercentage = summaries.stream()
-            .mapToDouble(GameSessionSummary::getPercentageScore)
-            .average()
-            .orElse(0.0);
-        
-        GameSessionSummary bestGame = summaries.stream()
-            .max((s1, s2) -> Double.compare(s1.getPercentageScore(), s2.getPercentageScore()))
-            .orElse(null);
-        
         StringBuilder stats = new StringBuilder();
-        stats.append(String.format("Partite giocate: %d | ", totalGames));
-        stats.append(String.format("Punteggio medio: %.2f | ", avgScore));
-        stats.append(String.format("Percentuale media: %.1f%% | ", avgPercentage));
-        if (bestGame != null) {
-            stats.append(String.format("Miglior risultato: %.1f%% (%s)", 
-                bestGame.getPercentageScore(), bestGame.getDifficulty()));
-        }
+        stats.append(String.format("Partite giocate: %d | ", statistics.getGamesPlayed()));
+        stats.append(String.format("Punteggio medio: %.2f | ", statistics.getAverageScore()));
+        stats.append(String.format("Percentuale media: %.1f%% | ", statistics.getAveragePercentage()));
+        stats.append(String.format("Miglior risultato: %.1f%% (%s)", 
+            statistics.getBestPercentage(), statistics.getBestDifficulty()));
         
         userStatsLabel.setText(stats.toString());
     }
@@ -210,13 +224,7 @@ public class LeaderboardController implements Initializable {
     private void loadGameSessions() {
         if (gameSessionsTable == null) return;
         
-        UserSession userSession = UserSession.getInstance();
-        if (userSession.isLoggedIn()) {
-            User currentUser = userSession.getCurrentUser();
-            List<GameSessionSummary> summaries = gameIntegrationService.getUserGameSessionSummaries(currentUser.getId());
-            ObservableList<GameSessionSummary> tableData = FXCollections.observableArrayList(summaries);
-            gameSessionsTable.setItems(tableData);
-        }
+        sessionsLoader.reload();
     }
     
     /**
@@ -225,9 +233,7 @@ public class LeaderboardController implements Initializable {
     private void loadGlobalLeaderboard() {
         if (globalLeaderboardTable == null) return;
         
-        List<UserLeaderboardEntry> leaderboard = gameIntegrationService.getGlobalLeaderboard();
-        ObservableList<UserLeaderboardEntry> tableData = FXCollections.observableArrayList(leaderboard);
-        globalLeaderboardTable.setItems(tableData);
+        leaderboardLoader.reload();
     }
     
     /**
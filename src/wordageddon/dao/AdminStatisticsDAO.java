@@ -0,0 +1,18 @@
+package wordageddon.dao;
+
+import wordageddon.model.AdminStatistics;
+
+/**
+ * AdminStatisticsDAO interface for reading the aggregated counters
+ * of the admin dashboard.
+ */
+public interface AdminStatisticsDAO {
+
+    /**
+     * Counts the users, the administrators and the game sessions in a single query.
+     *
+     * @return the dashboard counters
+     */
+    AdminStatistics getAdminStatistics();
+
+}
@@ -0,0 +1,31 @@
+package wordageddon.dao;
+
+import wordageddon.model.AdminStatistics;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade of an {@link AdminStatisticsDAO}, running on the reader
+ * threads of the {@link DatabaseExecutor}.
+ *
+ * The futures complete on a database thread; JavaFX code must update the UI
+ * through {@code Platform.runLater}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AsyncAdminStatisticsDAO {
+
+    private final AdminStatisticsDAO dao;
+    private final DatabaseExecutor executor;
+
+    public AsyncAdminStatisticsDAO(AdminStatisticsDAO dao, DatabaseExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<AdminStatistics> getAdminStatistics() {
+        return executor.read(dao::getAdminStatistics);
+    }
+}
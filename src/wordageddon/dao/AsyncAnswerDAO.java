@@ -0,0 +1,41 @@
+package wordageddon.dao;
+
+import wordageddon.model.Answer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade of an {@link AnswerDAO}: every call runs on the
+ * {@link DatabaseExecutor}, reads on the reader threads and writes on the writer thread.
+ *
+ * The futures complete on a database thread; JavaFX code must update the UI
+ * through {@code Platform.runLater}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AsyncAnswerDAO {
+
+    private final AnswerDAO dao;
+    private final DatabaseExecutor executor;
+
+    public AsyncAnswerDAO(AnswerDAO dao, DatabaseExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Void> addAnswer(int sessionId, String questionText, String chosenAnswer,
+                                             String correctAnswer, boolean isCorrect) {
+        return executor.write(() -> dao.addAnswer(sessionId, questionText, chosenAnswer, correctAnswer, isCorrect));
+    }
+
+    public CompletableFuture<List<Answer>> getAnswersBySession(int sessionId) {
+        return executor.read(() -> dao.getAnswersBySession(sessionId));
+    }
+
+    public CompletableFuture<Void> deleteAnswersBySession(int sessionId) {
+        return executor.write(() -> dao.deleteAnswersBySession(sessionId));
+    }
+}
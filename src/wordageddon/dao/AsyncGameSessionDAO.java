@@ -0,0 +1,109 @@
+package wordageddon.dao;
+
+import wordageddon.model.Answer;
+import wordageddon.model.GameSession;
+import wordageddon.model.GameSessionSummary;
+import wordageddon.model.TimingPercentiles;
+import wordageddon.model.UserGameStatistics;
+import wordageddon.model.UserLeaderboardEntry;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade of a {@link GameSessionDAO}: every call runs on the
+ * {@link DatabaseExecutor}, reads on the reader threads and writes on the writer thread.
+ *
+ * The futures complete on a database thread; JavaFX code must update the UI
+ * through {@code Platform.runLater}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AsyncGameSessionDAO {
+
+    private final GameSessionDAO dao;
+    private final DatabaseExecutor executor;
+
+    public AsyncGameSessionDAO(GameSessionDAO dao, DatabaseExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Integer> addGameSession(int userId, double score, String difficulty, String language) {
+        return executor.write(() -> dao.addGameSession(userId, score, difficulty, language));
+    }
+
+    public CompletableFuture<Integer> saveSessionWithAnswers(int userId, double score, String difficulty,
+                                                             String language, Long startedAt, Long endedAt,
+                                                             List<Answer> answers) {
+        return executor.write(() -> dao.saveSessionWithAnswers(userId, score, difficulty, language,
+            startedAt, endedAt, answers));
+    }
+
+    public CompletableFuture<GameSession> getGameSession(int sessionId) {
+        return executor.read(() -> dao.getGameSession(sessionId));
+    }
+
+    public CompletableFuture<List<GameSession>> getGameSessionsByUser(int userId) {
+        return executor.read(() -> dao.getGameSessionsByUser(userId));
+    }
+
+    public CompletableFuture<Void> updateSessionScore(int sessionId, double score) {
+        return executor.write(() -> dao.updateSessionScore(sessionId, score));
+    }
+
+    public CompletableFuture<Void> deleteGameSession(int sessionId) {
+        return executor.write(() -> dao.deleteGameSession(sessionId));
+    }
+
+    public CompletableFuture<List<GameSession>> getAllGameSessions() {
+        return executor.read(dao::getAllGameSessions);
+    }
+
+    public CompletableFuture<Integer> countGameSessions() {
+        return executor.read(dao::countGameSessions);
+    }
+
+    public CompletableFuture<List<GameSessionSummary>> getGameSessionSummariesByUser(int userId) {
+        return executor.read(() -> dao.getGameSessionSummariesByUser(userId));
+    }
+
+    public CompletableFuture<Page<GameSessionSummary>> getGameSessionSummariesByUser(int userId, PageCursor after,
+                                                                                      int limit) {
+        return executor.read(() -> dao.getGameSessionSummariesByUser(userId, after, limit));
+    }
+
+    public CompletableFuture<Page<GameSessionSummary>> getAllGameSessionSummaries(PageCursor after, int limit) {
+        return executor.read(() -> dao.getAllGameSessionSummaries(after, limit));
+    }
+
+    public CompletableFuture<UserGameStatistics> getUserStatistics(int userId) {
+        return executor.read(() -> dao.getUserStatistics(userId));
+    }
+
+    public CompletableFuture<List<UserLeaderboardEntry>> getGlobalLeaderboard() {
+        return executor.read(() -> dao.getGlobalLeaderboard());
+    }
+
+    public CompletableFuture<List<UserLeaderboardEntry>> getGlobalLeaderboard(int limit) {
+        return executor.read(() -> dao.getGlobalLeaderboard(limit));
+    }
+
+    public CompletableFuture<Page<UserLeaderboardEntry>> getGlobalLeaderboard(PageCursor after, int limit) {
+        return executor.read(() -> dao.getGlobalLeaderboard(after, limit));
+    }
+
+    public CompletableFuture<Integer> rebuildLeaderboard() {
+        return executor.write(dao::rebuildLeaderboard);
+    }
+
+    public CompletableFuture<List<TimingPercentiles>> getSessionDurationPercentiles() {
+        return executor.read(dao::getSessionDurationPercentiles);
+    }
+
+    public CompletableFuture<List<TimingPercentiles>> getResponseTimePercentiles() {
+        return executor.read(dao::getResponseTimePercentiles);
+    }
+}
@@ -0,0 +1,66 @@
+package wordageddon.dao;
+
+import wordageddon.model.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous facade of a {@link UserDAO}: every call runs on the
+ * {@link DatabaseExecutor}, reads on the reader threads and writes on the writer thread.
+ *
+ * The futures complete on a database thread; JavaFX code must update the UI
+ * through {@code Platform.runLater}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AsyncUserDAO {
+
+    private final UserDAO dao;
+    private final DatabaseExecutor executor;
+
+    public AsyncUserDAO(UserDAO dao, DatabaseExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Void> addUser(String username, String fname, String lname, String password,
+                                           String email, Boolean isAdmin) {
+        return executor.write(() -> dao.addUser(username, fname, lname, password, email, isAdmin));
+    }
+
+    public CompletableFuture<Boolean> userExists(String username) {
+        return executor.read(() -> dao.userExists(username));
+    }
+
+    public CompletableFuture<User> getUser(String username) {
+        return executor.read(() -> dao.getUser(username));
+    }
+
+    public CompletableFuture<User> getUserByEmail(String email) {
+        return executor.read(() -> dao.getUserByEmail(email));
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return executor.read(dao::getAllUsers);
+    }
+
+    public CompletableFuture<Page<User>> getUsers(PageCursor after, int limit) {
+        return executor.read(() -> dao.getUsers(after, limit));
+    }
+
+    public CompletableFuture<Void> updateUser(String username, String fname, String lname, String password,
+                                              String email, Boolean isAdmin) {
+        return executor.write(() -> dao.updateUser(username, fname, lname, password, email, isAdmin));
+    }
+
+    public CompletableFuture<Void> updateUserAdminStatus(int userId, boolean isAdmin) {
+        return executor.write(() -> dao.updateUserAdminStatus(userId, isAdmin));
+    }
+
+    public CompletableFuture<Void> deleteUser(String username) {
+        return executor.write(() -> dao.deleteUser(username));
+    }
+}
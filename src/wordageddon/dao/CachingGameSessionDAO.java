@@ -0,0 +1,164 @@
+package wordageddon.dao;
+
+import wordageddon.model.Answer;
+import wordageddon.model.GameSession;
+import wordageddon.model.GameSessionSummary;
+import wordageddon.model.TimingPercentiles;
+import wordageddon.model.UserGameStatistics;
+import wordageddon.model.UserLeaderboardEntry;
+import wordageddon.util.LruCache;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GameSessionDAO decorator keeping the pages of the global leaderboard in memory.
+ *
+ * The leaderboard is read every time the leaderboard view is opened or refreshed but
+ * changes only when a session is saved, changed or deleted: those methods empty the
+ * cache after writing, as does {@link #invalidateLeaderboard()}, called when a user is
+ * deleted. All the other methods go straight to the database.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class CachingGameSessionDAO implements GameSessionDAO {
+
+    private final GameSessionDAO delegate;
+
+    /** Leaderboard lists and pages, keyed by {@link #pageKey(PageCursor, int)} */
+    private final LruCache<String, Object> leaderboard;
+
+    /**
+     * Wraps a DAO.
+     *
+     * @param delegate the DAO reading and writing the database
+     * @param maxSize the maximum number of leaderboard pages kept
+     * @param ttlMillis how long a cached page stays valid
+     */
+    public CachingGameSessionDAO(GameSessionDAO delegate, int maxSize, long ttlMillis) {
+        this.delegate = delegate;
+        this.leaderboard = new LruCache<>("classifica", maxSize, ttlMillis);
+    }
+
+    /**
+     * Empties the leaderboard cache.
+     */
+    public void invalidateLeaderboard() {
+        leaderboard.invalidateAll();
+    }
+
+    public LruCache.Statistics getLeaderboardCacheStatistics() {
+        return leaderboard.getStatistics();
+    }
+
+    @Override
+    public int addGameSession(int userId, double score, String difficulty, String language) {
+        int sessionId = delegate.addGameSession(userId, score, difficulty, language);
+        invalidateLeaderboard();
+        return sessionId;
+    }
+
+    @Override
+    public int saveSessionWithAnswers(int userId, double score, String difficulty, String language,
+                                      Long startedAt, Long endedAt, List<Answer> answers) {
+        int sessionId = delegate.saveSessionWithAnswers(userId, score, difficulty, language, startedAt, endedAt, answers);
+        invalidateLeaderboard();
+        return sessionId;
+    }
+
+    @Override
+    public GameSession getGameSession(int sessionId) {
+        return delegate.getGameSession(sessionId);
+    }
+
+    @Override
+    public List<GameSession> getGameSessionsByUser(int userId) {
+        return delegate.getGameSessionsByUser(userId);
+    }
+
+    @Override
+    public void updateSessionScore(int sessionId, double score) {
+        delegate.updateSessionScore(sessionId, score);
+        invalidateLeaderboard();
+    }
+
+    @Override
+    public void deleteGameSession(int sessionId) {
+        delegate.deleteGameSession(sessionId);
+        invalidateLeaderboard();
+    }
+
+    @Override
+    public List<GameSession> getAllGameSessions() {
+        return delegate.getAllGameSessions();
+    }
+
+    @Override
+    public int countGameSessions() {
+        return delegate.countGameSessions();
+    }
+
+    @Override
+    public List<GameSessionSummary> getGameSessionSummariesByUser(int userId) {
+        return delegate.getGameSessionSummariesByUser(userId);
+    }
+
+    @Override
+    public Page<GameSessionSummary> getGameSessionSummariesByUser(int userId, PageCursor after, int limit) {
+        return delegate.getGameSessionSummariesByUser(userId, after, limit);
+    }
+
+    @Override
+    public Page<GameSessionSummary> getAllGameSessionSummaries(PageCursor after, int limit) {
+        return delegate.getAllGameSessionSummaries(after, limit);
+    }
+
+    @Override
+    public UserGameStatistics getUserStatistics(int userId) {
+        return delegate.getUserStatistics(userId);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserLeaderboardEntry> getGlobalLeaderboard() {
+        return (List<UserLeaderboardEntry>) leaderboard.get("all",
+            key -> Collections.unmodifiableList(delegate.getGlobalLeaderboard()));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<UserLeaderboardEntry> getGlobalLeaderboard(int limit) {
+        return (List<UserLeaderboardEntry>) leaderboard.get("top " + limit,
+            key -> Collections.unmodifiableList(delegate.getGlobalLeaderboard(limit)));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<UserLeaderboardEntry> getGlobalLeaderboard(PageCursor after, int limit) {
+        return (Page<UserLeaderboardEntry>) leaderboard.get(pageKey(after, limit),
+            key -> delegate.getGlobalLeaderboard(after, limit));
+    }
+
+    @Override
+    public int rebuildLeaderboard() {
+        int users = delegate.rebuildLeaderboard();
+        invalidateLeaderboard();
+        return users;
+    }
+
+    @Override
+    public List<TimingPercentiles> getSessionDurationPercentiles() {
+        return delegate.getSessionDurationPercentiles();
+    }
+
+    @Override
+    public List<TimingPercentiles> getResponseTimePercentiles() {
+        return delegate.getResponseTimePercentiles();
+    }
+
+    private static String pageKey(PageCursor after, int limit) {
+        return after == null ? "page " + limit : "page " + after.getKey() + " " + after.getId() + " " + limit;
+    }
+}
@@ -0,0 +1,125 @@
+package wordageddon.dao;
+
+import wordageddon.model.User;
+import wordageddon.util.LruCache;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * UserDAO decorator keeping the users read by username and by email in memory.
+ *
+ * Lookups go through two {@link LruCache}s, one per key; every write method of the DAO
+ * removes the entries of the user it changes, after the write, so a lookup never returns
+ * a user older than the last change made through the application. Lists and pages of
+ * users are always read from the database. Returned users are copies, since
+ * {@link User} is mutable and callers may change the object they receive.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class CachingUserDAO implements UserDAO {
+
+    private final UserDAO delegate;
+    private final LruCache<String, User> byUsername;
+    private final LruCache<String, User> byEmail;
+    private final Runnable onUserDeleted;
+
+    /**
+     * Wraps a DAO.
+     *
+     * @param delegate the DAO reading and writing the database
+     * @param maxSize the maximum number of users kept for each key
+     * @param ttlMillis how long a cached user stays valid
+     * @param onUserDeleted called after a user is deleted, e.g. to invalidate the leaderboard
+     */
+    public CachingUserDAO(UserDAO delegate, int maxSize, long ttlMillis, Runnable onUserDeleted) {
+        this.delegate = delegate;
+        this.byUsername = new LruCache<>("utenti per username", maxSize, ttlMillis);
+        this.byEmail = new LruCache<>("utenti per email", maxSize, ttlMillis);
+        this.onUserDeleted = onUserDeleted;
+    }
+
+    public LruCache.Statistics getUsernameCacheStatistics() {
+        return byUsername.getStatistics();
+    }
+
+    public LruCache.Statistics getEmailCacheStatistics() {
+        return byEmail.getStatistics();
+    }
+
+    @Override
+    public void addUser(String username, String fname, String lname, String password, String email, Boolean isAdmin) {
+        delegate.addUser(username, fname, lname, password, email, isAdmin);
+        // i null non sono in cache, ma un altro utente potrebbe avere la stessa email
+        invalidate(username, email);
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        return byUsername.peek(username) != null || delegate.userExists(username);
+    }
+
+    @Override
+    public User getUser(String username) {
+        return copy(byUsername.get(username, delegate::getUser));
+    }
+
+    @Override
+    public User getUserByEmail(String email) {
+        return copy(byEmail.get(email, delegate::getUserByEmail));
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return delegate.getAllUsers();
+    }
+
+    @Override
+    public Page<User> getUsers(PageCursor after, int limit) {
+        return delegate.getUsers(after, limit);
+    }
+
+    @Override
+    public void updateUser(String username, String fname, String lname, String password, String email, Boolean isAdmin) {
+        delegate.updateUser(username, fname, lname, password, email, isAdmin);
+        invalidate(username, email);
+    }
+
+    @Override
+    public void updateUserAdminStatus(int userId, boolean isAdmin) {
+        delegate.updateUserAdminStatus(userId, isAdmin);
+        byUsername.invalidateIf(user -> user.getId() == userId);
+        byEmail.invalidateIf(user -> user.getId() == userId);
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        delegate.deleteUser(username);
+        invalidate(username, null);
+        if (onUserDeleted != null) {
+            onUserDeleted.run();
+        }
+    }
+
+    /**
+     * Removes a user from both caches; by email also under its previous address,
+     * found among the cached values.
+     */
+    private void invalidate(String username, String email) {
+        byUsername.invalidate(username);
+        byEmail.invalidateIf(user -> Objects.equals(user.getUsername(), username));
+        if (email != null) {
+            byEmail.invalidate(email);
+        }
+    }
+
+    private static User copy(User user) {
+        if (user == null) {
+            return null;
+        }
+        return new User(user.getId(), user.getUsername(), user.getFname(), user.getLname(),
+            user.getPassword(), user.getEmail(), user.getIsAdmin());
+    }
+}
@@ -0,0 +1,393 @@
+package wordageddon.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small bounded pool of SQLite connections.
+ *
+ * Opening a SQLite connection reopens the database file and parses its schema, so the
+ * pool keeps up to {@code maxSize} connections open and lends them to the DAOs. A
+ * borrowed connection is a proxy: closing it (e.g. at the end of a try-with-resources
+ * block) gives the physical connection back to the pool instead of closing it, after
+ * rolling back any transaction left open.
+ *
+ * Every new connection is configured with a {@link ConnectionProfile}.
+ * Connections idle for longer than the validation interval are checked with
+ * {@link Connection#isValid(int)} before being lent again, and replaced if broken.
+ * The pool records how long callers wait for a connection and how many are in use,
+ * see {@link #getStatistics()}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class ConnectionPool {
+
+    /** Idle time after which a connection is validated before being lent, in milliseconds */
+    private static final long VALIDATION_INTERVAL_MS = 30_000;
+
+    /** Seconds allowed to {@link Connection#isValid(int)} */
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final ConnectionProfile profile;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+
+    /** One permit per connection that can be lent */
+    private final Semaphore permits;
+
+    /** Idle connections, the most recently used first */
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    private volatile boolean closed;
+
+    // statistiche di utilizzo
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /**
+     * Usage counters of the pool at a given moment.
+     */
+    public static class Statistics {
+
+        private final int maxSize;
+        private final int inUse;
+        private final int peakInUse;
+        private final int idle;
+        private final long acquisitions;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long timeouts;
+        private final long opened;
+        private final long discarded;
+
+        private Statistics(ConnectionPool pool) {
+            this.maxSize = pool.maxSize;
+            this.inUse = pool.inUse.get();
+            this.peakInUse = pool.peakInUse.get();
+            this.idle = pool.idle.size();
+            this.acquisitions = pool.acquisitions.get();
+            this.totalWaitNanos = pool.totalWaitNanos.get();
+            this.maxWaitNanos = pool.maxWaitNanos.get();
+            this.timeouts = pool.timeouts.get();
+            this.opened = pool.opened.get();
+            this.discarded = pool.discarded.get();
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public int getInUse() {
+            return inUse;
+        }
+
+        public int getPeakInUse() {
+            return peakInUse;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * Gets the number of physical connections opened since the pool was created.
+         *
+         * @return the opened connections, including the ones replaced after a failed check
+         */
+        public long getOpened() {
+            return opened;
+        }
+
+        public long getDiscarded() {
+            return discarded;
+        }
+
+        /**
+         * Gets the average time spent waiting for a connection.
+         *
+         * @return the average wait in milliseconds
+         */
+        public double getAverageWaitMillis() {
+            return acquisitions == 0 ? 0 : totalWaitNanos / 1e6 / acquisitions;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos / 1e6;
+        }
+
+        /**
+         * Gets the fraction of the pool currently lent.
+         *
+         * @return the utilisation, between 0 and 1
+         */
+        public double getUtilisation() {
+            return (double) inUse / maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pool %d/%d in uso (picco %d, %d inattive), %d richieste, attesa media %.3f ms,"
+                + " massima %.3f ms, %d timeout, %d connessioni aperte, %d scartate",
+                inUse, maxSize, peakInUse, idle, acquisitions, getAverageWaitMillis(), getMaxWaitMillis(),
+                timeouts, opened, discarded);
+        }
+    }
+
+    /**
+     * Creates an empty pool; connections are opened on demand.
+     *
+     * @param url the JDBC URL of the database
+     * @param profile the settings applied to every new connection
+     * @param maxSize the maximum number of connections open at the same time
+     * @param acquireTimeoutMillis how long a caller waits for a free connection
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public ConnectionPool(String url, ConnectionProfile profile, int maxSize, long acquireTimeoutMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("La dimensione del pool deve essere positiva: " + maxSize);
+        }
+        this.url = url;
+        this.profile = profile;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection, waiting if all of them are in use.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @return a connection in auto-commit mode
+     * @throws SQLException if the pool is closed, no connection becomes free in time,
+     *         or a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Il pool di connessioni è chiuso");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Nessuna connessione disponibile entro " + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrotto in attesa di una connessione", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeHealthyConnection();
+            int current = inUse.incrementAndGet();
+            peakInUse.accumulateAndGet(current, Math::max);
+            return pooled.lend();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the usage counters of the pool.
+     *
+     * @return a snapshot of the statistics
+     */
+    public Statistics getStatistics() {
+        return new Statistics(this);
+    }
+
+    /**
+     * Closes the idle connections and refuses new requests. Connections still lent are
+     * closed when they are given back.
+     */
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            closePhysical(pooled);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public ConnectionProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Takes an idle connection, checking it if it was idle for long, or opens a new one.
+     */
+    private PooledConnection takeHealthyConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isHealthy(pooled)) {
+                return pooled;
+            }
+            // connessione non più valida: la scarto e provo con la successiva
+            discarded.incrementAndGet();
+            closePhysical(pooled);
+        }
+        Connection physical = DriverManager.getConnection(url);
+        try {
+            profile.apply(physical);
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        opened.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isHealthy(PooledConnection pooled) {
+        try {
+            if (pooled.physical.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pooled.lastReturned < VALIDATION_INTERVAL_MS) {
+                return true;
+            }
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives a connection back to the pool, restoring its default state.
+     */
+    private void giveBack(PooledConnection pooled) {
+        inUse.decrementAndGet();
+        try {
+            boolean reusable = !closed && !pooled.physical.isClosed();
+            if (reusable && !pooled.physical.getAutoCommit()) {
+                // annullo la transazione lasciata aperta dal chiamante
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                pooled.lastReturned = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            } else {
+                closePhysical(pooled);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error resetting pooled connection: " + e.getMessage());
+            discarded.incrementAndGet();
+            closePhysical(pooled);
+        } finally {
+            permits.release();
+        }
+        if (closed) {
+            // il pool è stato chiuso mentre la connessione era in uso
+            close();
+        }
+    }
+
+    private void recordWait(long nanos) {
+        acquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static void closePhysical(PooledConnection pooled) {
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A physical connection of the pool, lent through a new proxy each time so that
+     * a caller keeping a reference after close() cannot use it any more.
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+        private volatile long lastReturned = System.currentTimeMillis();
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection lend() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LentConnection(this));
+        }
+    }
+
+    /**
+     * Proxy of a lent connection: close() returns it to the pool, every other call
+     * is forwarded until then.
+     */
+    private final class LentConnection implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private LentConnection(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("La connessione è già stata restituita al pool");
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
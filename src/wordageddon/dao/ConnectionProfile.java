@@ -0,0 +1,136 @@
+package wordageddon.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * SQLite settings applied to every connection opened by the {@link ConnectionPool}.
+ *
+ * The default profile enables write-ahead logging, so readers (leaderboard, admin
+ * statistics) no longer wait for writers (game saves) and vice versa, with
+ * synchronous=NORMAL, which in WAL mode syncs only at checkpoints and still never
+ * corrupts the database. The page cache and memory mapping avoid reading the same
+ * pages from disk again, temporary tables stay in memory and busy_timeout makes a
+ * writer wait for the lock instead of failing at once.
+ *
+ * Every value can be overridden with a system property, e.g.
+ * {@code -Dwordageddon.db.journalMode=DELETE}; see {@link #fromSystemProperties()}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class ConnectionProfile {
+
+    /** Profile used by the application unless overridden by system properties */
+    public static final ConnectionProfile DEFAULT =
+        new ConnectionProfile("WAL", "NORMAL", -16_000, 64L * 1024 * 1024, "MEMORY", 5_000);
+
+    /** The defaults of SQLite itself (rollback journal, FULL sync), for comparison */
+    public static final ConnectionProfile SQLITE_DEFAULTS =
+        new ConnectionProfile("DELETE", "FULL", -2_000, 0, "DEFAULT", 3_000);
+
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+    private final int busyTimeoutMillis;
+
+    /**
+     * Creates a profile.
+     *
+     * @param journalMode the journal mode (e.g. WAL, DELETE)
+     * @param synchronous the sync level (OFF, NORMAL, FULL, EXTRA)
+     * @param cacheSize the page cache size: pages if positive, KiB if negative
+     * @param mmapSize the bytes of the database file mapped in memory, 0 to disable
+     * @param tempStore where temporary tables are kept (DEFAULT, FILE, MEMORY)
+     * @param busyTimeoutMillis how long to wait for a lock before failing
+     */
+    public ConnectionProfile(String journalMode, String synchronous, int cacheSize, long mmapSize,
+                             String tempStore, int busyTimeoutMillis) {
+        this.journalMode = requireKeyword(journalMode);
+        this.synchronous = requireKeyword(synchronous);
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = requireKeyword(tempStore);
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    /**
+     * Builds the profile from the system properties, falling back to {@link #DEFAULT}:
+     * wordageddon.db.journalMode, wordageddon.db.synchronous, wordageddon.db.cacheSize,
+     * wordageddon.db.mmapSize, wordageddon.db.tempStore and wordageddon.db.busyTimeoutMs.
+     *
+     * @return the configured profile
+     */
+    public static ConnectionProfile fromSystemProperties() {
+        return new ConnectionProfile(
+            System.getProperty("wordageddon.db.journalMode", DEFAULT.journalMode),
+            System.getProperty("wordageddon.db.synchronous", DEFAULT.synchronous),
+            Integer.getInteger("wordageddon.db.cacheSize", DEFAULT.cacheSize),
+            Long.getLong("wordageddon.db.mmapSize", DEFAULT.mmapSize),
+            System.getProperty("wordageddon.db.tempStore", DEFAULT.tempStore),
+            Integer.getInteger("wordageddon.db.busyTimeoutMs", DEFAULT.busyTimeoutMillis));
+    }
+
+    /**
+     * Applies the settings to a newly opened connection.
+     *
+     * @param conn the connection
+     * @throws SQLException if a pragma cannot be executed
+     */
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            // busy_timeout per primo: cambiare journal_mode richiede un lock sul database
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("journal_mode=%s, synchronous=%s, cache_size=%d, mmap_size=%d, temp_store=%s, busy_timeout=%d",
+            journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeoutMillis);
+    }
+
+    /**
+     * Checks that a value is a plain keyword, since pragmas cannot use bound parameters.
+     */
+    private static String requireKeyword(String value) {
+        if (value == null || !value.matches("[A-Za-z]+")) {
+            throw new IllegalArgumentException("Valore non valido per una pragma SQLite: " + value);
+        }
+        return value.toUpperCase(Locale.ROOT);
+    }
+}
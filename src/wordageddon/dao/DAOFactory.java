@@ -3,6 +3,12 @@ package wordageddon.dao;
 import wordageddon.dao.implementation.UserDAOSQLite;
 import wordageddon.dao.implementation.AnswerDAOSQLite;
 import wordageddon.dao.implementation.GameSessionDAOSQLite;
+import wordageddon.dao.implementation.QuestionStatsDAOSQLite;
+import wordageddon.dao.implementation.AdminStatisticsDAOSQLite;
+import wordageddon.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Factory class for creating and managing DAO instances.
@@ -15,16 +21,39 @@ import wordageddon.dao.implementation.GameSessionDAOSQLite;
  * The factory pattern allows for better separation of concerns, easier testing,
  * and flexibility in changing DAO implementations without affecting client code.
  * 
+ * The user and game session DAOs are wrapped in caching decorators
+ * ({@link CachingUserDAO}, {@link CachingGameSessionDAO}) unless started with
+ * {@code -Dwordageddon.cache.enabled=false}; size and time to live of the caches are
+ * set with {@code wordageddon.cache.users.size}, {@code wordageddon.cache.users.ttlMs},
+ * {@code wordageddon.cache.leaderboard.size} and {@code wordageddon.cache.leaderboard.ttlMs}.
+ * 
  * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
  * @version 1.0
  * @since 2025
  */
 public class DAOFactory {
     
+    /** Whether the user and leaderboard caches are used */
+    private static final boolean CACHE_ENABLED =
+        Boolean.parseBoolean(System.getProperty("wordageddon.cache.enabled", "true"));
+    
+    private static final int USER_CACHE_SIZE = Integer.getInteger("wordageddon.cache.users.size", 256);
+    private static final long USER_CACHE_TTL_MS = Long.getLong("wordageddon.cache.users.ttlMs", 300_000L);
+    private static final int LEADERBOARD_CACHE_SIZE = Integer.getInteger("wordageddon.cache.leaderboard.size", 64);
+    private static final long LEADERBOARD_CACHE_TTL_MS = Long.getLong("wordageddon.cache.leaderboard.ttlMs", 60_000L);
+    
     // Singleton instances - garantisce una sola istanza per ogni DAO
     private static UserDAO userDAO;
     private static AnswerDAO answerDAO;
     private static GameSessionDAO gameSessionDAO;
+    private static QuestionStatsDAO questionStatsDAO;
+    private static AdminStatisticsDAO adminStatisticsDAO;
+    
+    // facciate asincrone, eseguite dal DatabaseExecutor
+    private static AsyncUserDAO asyncUserDAO;
+    private static AsyncAnswerDAO asyncAnswerDAO;
+    private static AsyncGameSessionDAO asyncGameSessionDAO;
+    private static AsyncAdminStatisticsDAO asyncAdminStatisticsDAO;
     
     /**
      * Gets the UserDAO implementation instance.
@@ -33,9 +62,19 @@ public class DAOFactory {
      * 
      * @return the singleton UserDAO instance for user data operations
      */
-    public static UserDAO getUserDAO() {
+    public static synchronized UserDAO getUserDAO() {
         if (userDAO == null) {
-            userDAO = new UserDAOSQLite(); // crea una nuova istanza solo se necessario
+            UserDAO dao = new UserDAOSQLite(); // crea una nuova istanza solo se necessario
+            if (CACHE_ENABLED) {
+                // eliminare un utente lo toglie anche dalla classifica
+                GameSessionDAO sessions = getGameSessionDAO();
+                dao = new CachingUserDAO(dao, USER_CACHE_SIZE, USER_CACHE_TTL_MS, () -> {
+                    if (sessions instanceof CachingGameSessionDAO) {
+                        ((CachingGameSessionDAO) sessions).invalidateLeaderboard();
+                    }
+                });
+            }
+            userDAO = dao;
         }
         return userDAO;
     }
@@ -47,7 +86,7 @@ public class DAOFactory {
      * 
      * @return the singleton AnswerDAO instance for answer data operations
      */
-    public static AnswerDAO getAnswerDAO() {
+    public static synchronized AnswerDAO getAnswerDAO() {
         if (answerDAO == null) {
             answerDAO = new AnswerDAOSQLite(); // crea una nuova istanza solo se necessario
         }
@@ -61,10 +100,117 @@ public class DAOFactory {
      * 
      * @return the singleton GameSessionDAO instance for game session data operations
      */
-    public static GameSessionDAO getGameSessionDAO() {
+    public static synchronized GameSessionDAO getGameSessionDAO() {
         if (gameSessionDAO == null) {
-            gameSessionDAO = new GameSessionDAOSQLite();
+            GameSessionDAO dao = new GameSessionDAOSQLite();
+            if (CACHE_ENABLED) {
+                dao = new CachingGameSessionDAO(dao, LEADERBOARD_CACHE_SIZE, LEADERBOARD_CACHE_TTL_MS);
+            }
+            gameSessionDAO = dao;
         }
         return gameSessionDAO;
     }
+    
+    /**
+     * Gets the QuestionStatsDAO implementation instance.
+     * 
+     * // restituisce l'istanza singleton del dao per le statistiche delle domande
+     * 
+     * @return the singleton QuestionStatsDAO instance for question statistics operations
+     */
+    public static synchronized QuestionStatsDAO getQuestionStatsDAO() {
+        if (questionStatsDAO == null) {
+            questionStatsDAO = new QuestionStatsDAOSQLite();
+        }
+        return questionStatsDAO;
+    }
+    
+    /**
+     * Gets the AdminStatisticsDAO implementation instance.
+     * 
+     * // restituisce l'istanza singleton del dao per i contatori del pannello admin
+     * 
+     * @return the singleton AdminStatisticsDAO instance
+     */
+    public static synchronized AdminStatisticsDAO getAdminStatisticsDAO() {
+        if (adminStatisticsDAO == null) {
+            adminStatisticsDAO = new AdminStatisticsDAOSQLite();
+        }
+        return adminStatisticsDAO;
+    }
+    
+    /**
+     * Gets the asynchronous facade of the UserDAO, running on the {@link DatabaseExecutor}.
+     * 
+     * // restituisce la facciata asincrona del dao per gli utenti
+     * 
+     * @return the singleton AsyncUserDAO instance
+     */
+    public static synchronized AsyncUserDAO getAsyncUserDAO() {
+        if (asyncUserDAO == null) {
+            asyncUserDAO = new AsyncUserDAO(getUserDAO(), DatabaseExecutor.getInstance());
+        }
+        return asyncUserDAO;
+    }
+    
+    /**
+     * Gets the asynchronous facade of the AnswerDAO, running on the {@link DatabaseExecutor}.
+     * 
+     * // restituisce la facciata asincrona del dao per le risposte
+     * 
+     * @return the singleton AsyncAnswerDAO instance
+     */
+    public static synchronized AsyncAnswerDAO getAsyncAnswerDAO() {
+        if (asyncAnswerDAO == null) {
+            asyncAnswerDAO = new AsyncAnswerDAO(getAnswerDAO(), DatabaseExecutor.getInstance());
+        }
+        return asyncAnswerDAO;
+    }
+    
+    /**
+     * Gets the asynchronous facade of the GameSessionDAO, running on the {@link DatabaseExecutor}.
+     * 
+     * // restituisce la facciata asincrona del dao per le sessioni di gioco
+     * 
+     * @return the singleton AsyncGameSessionDAO instance
+     */
+    public static synchronized AsyncGameSessionDAO getAsyncGameSessionDAO() {
+        if (asyncGameSessionDAO == null) {
+            asyncGameSessionDAO = new AsyncGameSessionDAO(getGameSessionDAO(), DatabaseExecutor.getInstance());
+        }
+        return asyncGameSessionDAO;
+    }
+    
+    /**
+     * Gets the asynchronous facade of the AdminStatisticsDAO, running on the {@link DatabaseExecutor}.
+     * 
+     * // restituisce la facciata asincrona del dao per i contatori del pannello admin
+     * 
+     * @return the singleton AsyncAdminStatisticsDAO instance
+     */
+    public static synchronized AsyncAdminStatisticsDAO getAsyncAdminStatisticsDAO() {
+        if (asyncAdminStatisticsDAO == null) {
+            asyncAdminStatisticsDAO = new AsyncAdminStatisticsDAO(getAdminStatisticsDAO(), DatabaseExecutor.getInstance());
+        }
+        return asyncAdminStatisticsDAO;
+    }
+    
+    /**
+     * Gets the hit and miss counters of the DAO caches created so far.
+     * 
+     * // restituisce le statistiche delle cache, vuote se disabilitate
+     * 
+     * @return the statistics of each cache
+     */
+    public static synchronized List<LruCache.Statistics> getCacheStatistics() {
+        List<LruCache.Statistics> statistics = new ArrayList<>();
+        if (userDAO instanceof CachingUserDAO) {
+            statistics.add(((CachingUserDAO) userDAO).getUsernameCacheStatistics());
+            statistics.add(((CachingUserDAO) userDAO).getEmailCacheStatistics());
+        }
+        if (gameSessionDAO instanceof CachingGameSessionDAO) {
+            statistics.add(((CachingGameSessionDAO) gameSessionDAO).getLeaderboardCacheStatistics());
+        }
+        return statistics;
+    }
 }
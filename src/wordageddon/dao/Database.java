@@ -26,6 +26,15 @@ public class Database {
     /** Path to the SQL schema file containing table definitions */
     private static final String SCHEMA_FILE = "/resources/database.sql";
     
+    /** Maximum number of open connections, set with {@code -Dwordageddon.db.poolSize} */
+    private static final int POOL_SIZE = Integer.getInteger("wordageddon.db.poolSize", 4);
+    
+    /** Maximum wait for a free connection, set with {@code -Dwordageddon.db.acquireTimeoutMs} */
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("wordageddon.db.acquireTimeoutMs", 10_000L);
+    
+    /** Pool shared by all the DAOs, created on first use */
+    private static volatile ConnectionPool pool;
+    
     // carica il driver jdbc per sqlite all'avvio della classe
     static {
         try {
@@ -36,20 +45,66 @@ public class Database {
     }
     
     /**
-     * Gets a new database connection to the SQLite database.
+     * Gets a connection to the SQLite database from the shared pool.
      * 
-     * // crea una nuova connessione al database sqlite
+     * // la connessione va chiusa come sempre: close() la restituisce al pool
      * 
-     * @return a new database connection instance
-     * @throws SQLException if the connection cannot be established
+     * @return a pooled database connection
+     * @throws SQLException if no connection is available or it cannot be established
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        return getPool().getConnection();
+    }
+    
+    /**
+     * Gets the usage counters of the connection pool.
+     * 
+     * @return the statistics of the pool, e.g. average wait and utilisation
+     */
+    public static ConnectionPool.Statistics getPoolStatistics() {
+        return getPool().getStatistics();
+    }
+    
+    /**
+     * Closes the connections of the pool, logging its usage.
+     * To be called when the application exits.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null && !pool.isClosed()) {
+            System.out.println("Database connection " + pool.getStatistics());
+            pool.close();
+        }
     }
     
     /**
-     * Initializes the database by creating all required tables if they don't exist.
-     * Also inserts default users if the database is being created for the first time.
+     * Gets the maximum number of connections of the pool.
+     * 
+     * @return the pool size
+     */
+    static int getPoolSize() {
+        return POOL_SIZE;
+    }
+    
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (Database.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DB_URL, ConnectionProfile.fromSystemProperties(),
+                        POOL_SIZE, ACQUIRE_TIMEOUT_MS);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+    
+    /**
+     * Initializes the database by creating all required tables if they don't exist
+     * and applying the pending {@link SchemaMigrations}.
+     * Also inserts default users if the database is being created for the first time,
+     * and lets SQLite refresh its query planner statistics (PRAGMA optimize).
      * 
      * @throws RuntimeException if database initialization fails
      */
@@ -58,12 +113,21 @@ public class Database {
             // Check if database tables exist
             boolean tablesExist = doTablesExist(conn);
             
-            // Create tables if they don't exist
+            // Create tables if they don't exist; the schema only uses CREATE TABLE IF NOT EXISTS,
+            // so running it again adds the tables introduced after the database was created
+            createTables(conn);
             if (!tablesExist) {
-                createTables(conn);
                 // Insert default users only when creating tables for the first time
                 insertDefaultUsers(conn);
             }
+            
+            // porto lo schema all'ultima versione (indici e modifiche successive a database.sql)
+            SchemaMigrations.migrate(conn);
+            
+            // aggiorno le statistiche usate dal query planner, se ne vale la pena
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA optimize");
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to initialize database: " + e.getMessage(), e);
         }
@@ -75,13 +139,25 @@ public class Database {
      * @param conn the database connection
      * @throws SQLException if table creation fails
      */
-    private static void createTables(Connection conn) throws SQLException {
-        try (InputStream is = Database.class.getResourceAsStream(SCHEMA_FILE);
-             BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
-            
-            if (is == null) {
-                throw new SQLException("Cannot find schema file: " + SCHEMA_FILE);
-            }
+    static void createTables(Connection conn) throws SQLException {
+        executeScript(conn, SCHEMA_FILE);
+    }
+    
+    /**
+     * Executes the statements of a SQL script in the classpath, one at a time.
+     * Lines starting with "--" are comments; every statement ends with ";" at the end of a line,
+     * except triggers, whose body contains statements too and which end with "END;".
+     * 
+     * @param conn the database connection
+     * @param resource the path of the script in the classpath
+     * @throws SQLException if the script cannot be read or a statement fails
+     */
+    static void executeScript(Connection conn, String resource) throws SQLException {
+        InputStream is = Database.class.getResourceAsStream(resource);
+        if (is == null) {
+            throw new SQLException("Cannot find schema file: " + resource);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"))) {
             
             StringBuilder sql = new StringBuilder();
             String line;
@@ -90,7 +166,8 @@ public class Database {
                 line = line.trim();
                 if (!line.isEmpty() && !line.startsWith("--")) {
                     sql.append(line).append(" ");
-                    if (line.endsWith(";")) {
+                    boolean trigger = sql.toString().toUpperCase().matches("CREATE\\s+(TEMP\\s+)?TRIGGER\\b.*");
+                    if (trigger ? line.equalsIgnoreCase("END;") : line.endsWith(";")) {
                         try (Statement stmt = conn.createStatement()) {
                             stmt.execute(sql.toString());
                         }
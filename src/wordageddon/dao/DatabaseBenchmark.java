@@ -0,0 +1,229 @@
+package wordageddon.dao;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of a connection profile under a mixed read/write load
+ * similar to the application's: writers save games (a session and its answers in
+ * one transaction) while readers load the top of the global leaderboard.
+ *
+ * Each profile runs on a new temporary database, so the application database is
+ * never touched. Usage:
+ * {@code java wordageddon.dao.DatabaseBenchmark [seconds] [writers] [readers]}
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class DatabaseBenchmark {
+
+    private static final int USERS = 50;
+    private static final int ANSWERS_PER_GAME = 10;
+
+    private static final String SESSION_SQL =
+        "INSERT INTO game_sessions (user_id, score, difficulty, language) VALUES (?, ?, ?, ?)";
+    private static final String ANSWER_SQL =
+        "INSERT INTO answers (session_id, question_text, chosen_answer, correct_answer, is_correct) VALUES (?, ?, ?, ?, ?)";
+    private static final String LEADERBOARD_SQL =
+        "SELECT u.username, t.total_points FROM user_totals t CROSS JOIN users u ON u.id = t.user_id "
+        + "ORDER BY t.total_points DESC LIMIT 10";
+
+    /**
+     * Result of a run.
+     */
+    public static class Result {
+
+        private final ConnectionProfile profile;
+        private final double seconds;
+        private final long writes;
+        private final long reads;
+        private final long errors;
+
+        private Result(ConnectionProfile profile, double seconds, long writes, long reads, long errors) {
+            this.profile = profile;
+            this.seconds = seconds;
+            this.writes = writes;
+            this.reads = reads;
+            this.errors = errors;
+        }
+
+        public double getWritesPerSecond() {
+            return writes / seconds;
+        }
+
+        public double getReadsPerSecond() {
+            return reads / seconds;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-7s %-7s  scritture %8.1f/s  letture %8.1f/s  errori %d",
+                profile.getJournalMode(), profile.getSynchronous(), getWritesPerSecond(), getReadsPerSecond(), errors);
+        }
+    }
+
+    /**
+     * Runs the load on a new temporary database configured with a profile.
+     *
+     * @param profile the profile applied to the connections
+     * @param millis the duration of the run
+     * @param writers the number of threads saving games
+     * @param readers the number of threads reading the leaderboard
+     * @return the measured throughput
+     * @throws IOException if the temporary database cannot be created
+     * @throws SQLException if the schema cannot be created
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static Result run(ConnectionProfile profile, long millis, int writers, int readers)
+            throws IOException, SQLException, InterruptedException {
+        File file = File.createTempFile("wordageddon-bench", ".db");
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + file.getAbsolutePath(), profile,
+            writers + readers, 30_000);
+        try {
+            prepare(pool);
+
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong writes = new AtomicLong();
+            AtomicLong reads = new AtomicLong();
+            AtomicLong errors = new AtomicLong();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                final int seed = i;
+                threads.add(new Thread(() -> {
+                    int game = seed;
+                    while (running.get()) {
+                        try {
+                            saveGame(pool, game++);
+                            writes.incrementAndGet();
+                        } catch (SQLException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }, "bench-writer-" + i));
+            }
+            for (int i = 0; i < readers; i++) {
+                threads.add(new Thread(() -> {
+                    while (running.get()) {
+                        try {
+                            readLeaderboard(pool);
+                            reads.incrementAndGet();
+                        } catch (SQLException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }, "bench-reader-" + i));
+            }
+
+            long start = System.nanoTime();
+            threads.forEach(Thread::start);
+            Thread.sleep(millis);
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new Result(profile, seconds, writes.get(), reads.get(), errors.get());
+        } finally {
+            pool.close();
+            // con WAL restano anche i file -wal e -shm
+            for (String suffix : new String[]{"", "-wal", "-shm", "-journal"}) {
+                new File(file.getAbsolutePath() + suffix).delete();
+            }
+        }
+    }
+
+    /**
+     * Creates the schema and the users of the temporary database.
+     */
+    private static void prepare(ConnectionPool pool) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            Database.createTables(conn);
+            SchemaMigrations.migrate(conn);
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO users (username, password) VALUES (?, 'x')")) {
+                for (int i = 0; i < USERS; i++) {
+                    pstmt.setString(1, "user" + i);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA optimize");
+            }
+        }
+    }
+
+    /**
+     * Saves a game as GameSessionDAO does: the session and its answers in one transaction.
+     */
+    private static void saveGame(ConnectionPool pool, int game) throws SQLException {
+        try (Connection conn = pool.getConnection()) {
+            conn.setAutoCommit(false);
+            long sessionId;
+            try (PreparedStatement pstmt = conn.prepareStatement(SESSION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, 1 + game % USERS);
+                pstmt.setDouble(2, game % 100);
+                pstmt.setString(3, "MEDIUM");
+                pstmt.setString(4, "ITALIAN");
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    keys.next();
+                    sessionId = keys.getLong(1);
+                }
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(ANSWER_SQL)) {
+                for (int i = 0; i < ANSWERS_PER_GAME; i++) {
+                    pstmt.setLong(1, sessionId);
+                    pstmt.setString(2, "Domanda " + i);
+                    pstmt.setString(3, "a");
+                    pstmt.setString(4, i % 2 == 0 ? "a" : "b");
+                    pstmt.setInt(5, i % 2 == 0 ? 1 : 0);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+
+    private static void readLeaderboard(ConnectionPool pool) throws SQLException {
+        try (Connection conn = pool.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(LEADERBOARD_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                rs.getDouble("total_points");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int writers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int readers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        System.out.println("Carico misto: " + writers + " scrittori, " + readers + " lettori, " + seconds + " s per profilo");
+        Result baseline = run(ConnectionProfile.SQLITE_DEFAULTS, seconds * 1000L, writers, readers);
+        System.out.println(baseline);
+        Result tuned = run(ConnectionProfile.DEFAULT, seconds * 1000L, writers, readers);
+        System.out.println(tuned);
+        System.out.printf("scritture x%.2f, letture x%.2f%n",
+            tuned.getWritesPerSecond() / baseline.getWritesPerSecond(),
+            tuned.getReadsPerSecond() / baseline.getReadsPerSecond());
+    }
+}
@@ -0,0 +1,116 @@
+package wordageddon.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Threads running the database work off the JavaFX application thread.
+ *
+ * SQLite lets one connection write at a time, so all the writes go through a single
+ * writer thread: they never wait for each other's locks and are applied in the order
+ * they were submitted. Reads run on a small pool of reader threads, one less than the
+ * connection pool, so a write always finds a free connection. With WAL enabled (see
+ * {@link ConnectionProfile}) the readers are not blocked by the writer.
+ *
+ * The number of reader threads can be set with {@code -Dwordageddon.db.readerThreads}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class DatabaseExecutor {
+
+    /** How long {@link #shutdown()} waits for the pending writes */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private static DatabaseExecutor instance;
+
+    private final ExecutorService writer;
+    private final ExecutorService readers;
+
+    private DatabaseExecutor(int readerThreads) {
+        this.writer = Executors.newSingleThreadExecutor(daemonThreads("wordageddon-db-writer"));
+        this.readers = Executors.newFixedThreadPool(readerThreads, daemonThreads("wordageddon-db-reader"));
+    }
+
+    /**
+     * Gets the singleton instance of DatabaseExecutor.
+     *
+     * @return the DatabaseExecutor instance
+     */
+    public static synchronized DatabaseExecutor getInstance() {
+        if (instance == null) {
+            int readerThreads = Integer.getInteger("wordageddon.db.readerThreads",
+                Math.max(1, Database.getPoolSize() - 1));
+            instance = new DatabaseExecutor(readerThreads);
+        }
+        return instance;
+    }
+
+    /**
+     * Runs a query on a reader thread.
+     *
+     * @param query the work reading the database
+     * @param <T> the type of the result
+     * @return a future completed with the result, or exceptionally with the error thrown
+     */
+    public <T> CompletableFuture<T> read(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, readers);
+    }
+
+    /**
+     * Runs a change on the writer thread, after the changes submitted before it.
+     *
+     * @param update the work writing the database
+     * @param <T> the type of the result
+     * @return a future completed with the result, or exceptionally with the error thrown
+     */
+    public <T> CompletableFuture<T> write(Supplier<T> update) {
+        return CompletableFuture.supplyAsync(update, writer);
+    }
+
+    /**
+     * Runs a change without result on the writer thread.
+     *
+     * @param update the work writing the database
+     * @return a future completed when the change is done
+     */
+    public CompletableFuture<Void> write(Runnable update) {
+        return CompletableFuture.runAsync(update, writer);
+    }
+
+    /**
+     * Stops accepting work and waits for the pending writes, if the executor was started.
+     * To be called when the application exits, before {@link Database#shutdown()}.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        instance.readers.shutdownNow();
+        instance.writer.shutdown();
+        try {
+            // le scritture in coda (es. il salvataggio di una partita) devono arrivare al database
+            if (!instance.writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Database writes still pending after " + SHUTDOWN_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package wordageddon.dao;
 
+import wordageddon.model.Answer;
 import wordageddon.model.GameSession;
 import wordageddon.model.GameSessionSummary;
+import wordageddon.model.TimingPercentiles;
+import wordageddon.model.UserGameStatistics;
 import wordageddon.model.UserLeaderboardEntry;
 import java.util.List;
 
@@ -22,6 +25,22 @@ public interface GameSessionDAO {
      */
     int addGameSession(int userId, double score, String difficulty, String language);
 
+    /**
+     * Saves a finished game session together with its answers in a single transaction:
+     * either the session and all its answers are stored, or nothing is.
+     *
+     * @param userId the ID of the user playing
+     * @param score the final score of the session
+     * @param difficulty the difficulty level of the session
+     * @param language the language used in the session
+     * @param startedAt when the session started, in epoch milliseconds, null if not measured
+     * @param endedAt when the session ended, in epoch milliseconds, null if not measured
+     * @param answers the answers given during the session, with their response times
+     * @return the ID of the created session
+     */
+    int saveSessionWithAnswers(int userId, double score, String difficulty, String language,
+                               Long startedAt, Long endedAt, List<Answer> answers);
+
     /**
      * Retrieves a game session by its ID.
      *
@@ -76,6 +95,34 @@ public interface GameSessionDAO {
      */
     List<GameSessionSummary> getGameSessionSummariesByUser(int userId);
 
+    /**
+     * Retrieves a page of the game session summaries of a user, the most recent first.
+     *
+     * @param userId the ID of the user
+     * @param after the cursor returned with the previous page, null for the first page
+     * @param limit the maximum number of summaries in the page
+     * @return the page of summaries
+     */
+    Page<GameSessionSummary> getGameSessionSummariesByUser(int userId, PageCursor after, int limit);
+
+    /**
+     * Retrieves a page of the summaries of all the game sessions, the most recent first.
+     *
+     * @param after the cursor returned with the previous page, null for the first page
+     * @param limit the maximum number of summaries in the page
+     * @return the page of summaries
+     */
+    Page<GameSessionSummary> getAllGameSessionSummaries(PageCursor after, int limit);
+
+    /**
+     * Computes the statistics of the games of a user in the database,
+     * without loading the sessions.
+     *
+     * @param userId the ID of the user
+     * @return the statistics, with zero games if the user never played
+     */
+    UserGameStatistics getUserStatistics(int userId);
+
     /**
      * Retrieves the global leaderboard showing all users with their total points.
      * Users are ordered by total points in descending order.
@@ -84,4 +131,47 @@ public interface GameSessionDAO {
      */
     List<UserLeaderboardEntry> getGlobalLeaderboard();
 
+    /**
+     * Retrieves the first entries of the global leaderboard.
+     * The totals are kept up to date as sessions are saved, so the cost depends
+     * on the number of entries returned, not on the number of sessions played.
+     *
+     * @param limit the maximum number of entries
+     * @return the leaderboard entries ordered by total points, with games played and best score
+     */
+    List<UserLeaderboardEntry> getGlobalLeaderboard(int limit);
+
+    /**
+     * Retrieves a page of the global leaderboard, ordered by total points.
+     *
+     * @param after the cursor returned with the previous page, null for the first page
+     * @param limit the maximum number of entries in the page
+     * @return the page of leaderboard entries
+     */
+    Page<UserLeaderboardEntry> getGlobalLeaderboard(PageCursor after, int limit);
+
+    /**
+     * Recomputes the leaderboard totals of every user from the stored game sessions,
+     * e.g. to repair them after the sessions were edited outside the application.
+     *
+     * @return the number of users in the leaderboard
+     */
+    int rebuildLeaderboard();
+
+    /**
+     * Computes the percentiles of the duration of the game sessions for each difficulty.
+     * Sessions saved without start or end time are ignored.
+     *
+     * @return the percentiles, one entry per difficulty ordered by difficulty
+     */
+    List<TimingPercentiles> getSessionDurationPercentiles();
+
+    /**
+     * Computes the percentiles of the response time of the answers for each difficulty.
+     * Answers saved without response time are ignored.
+     *
+     * @return the percentiles, one entry per difficulty ordered by difficulty
+     */
+    List<TimingPercentiles> getResponseTimePercentiles();
+
 }
@@ -0,0 +1,46 @@
+package wordageddon.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of rows read with a keyset query, with the cursor to read the next one.
+ *
+ * @param <T> the type of the rows
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final PageCursor next;
+
+    /**
+     * Creates a page.
+     *
+     * @param items the rows of the page
+     * @param next the cursor after the last row, or null if there are no more rows
+     */
+    public Page(List<T> items, PageCursor next) {
+        this.items = Collections.unmodifiableList(items);
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor to pass to the DAO to read the following page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public PageCursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
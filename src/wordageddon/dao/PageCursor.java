@@ -0,0 +1,43 @@
+package wordageddon.dao;
+
+/**
+ * Position after the last row of a page, used to fetch the following page with a
+ * keyset query ({@code WHERE (key, id) < (?, ?)}) instead of an OFFSET, so that every
+ * page costs the same however far the user has scrolled.
+ *
+ * The cursor is opaque to the callers: they only pass back the one returned by
+ * {@link Page#getNext()}.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public final class PageCursor {
+
+    private final Object key;
+    private final long id;
+
+    /**
+     * Creates a cursor.
+     *
+     * @param key the value of the sort column in the last row, e.g. created_at or total_points
+     * @param id the unique id of the last row, breaking ties on the key
+     */
+    public PageCursor(Object key, long id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor[" + key + ", " + id + "]";
+    }
+}
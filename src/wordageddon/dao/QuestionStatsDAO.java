@@ -0,0 +1,38 @@
+package wordageddon.dao;
+
+import wordageddon.model.Answer;
+import wordageddon.model.QuestionStatistics;
+import wordageddon.model.QuestionType;
+import java.util.List;
+
+/**
+ * QuestionStatsDAO interface for managing the aggregated answer statistics
+ * of the question templates (question type, frequency bucket).
+ */
+public interface QuestionStatsDAO {
+
+    /**
+     * Adds an answer to the statistics of a template, creating the row if needed.
+     *
+     * @param type the question type
+     * @param frequencyBucket the frequency bucket
+     * @param isCorrect whether the answer is correct
+     */
+    void recordAnswer(QuestionType type, int frequencyBucket, boolean isCorrect);
+
+    /**
+     * Adds the answers of a game to the statistics in a single transaction.
+     * Answers to questions of unknown type are ignored.
+     *
+     * @param answers the answers given by the player
+     */
+    void recordAnswers(List<Answer> answers);
+
+    /**
+     * Loads the statistics of all the templates.
+     *
+     * @return the statistics, empty if no answer has been recorded
+     */
+    QuestionStatistics loadStatistics();
+
+}
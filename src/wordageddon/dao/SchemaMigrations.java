@@ -0,0 +1,144 @@
+package wordageddon.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Versioned changes to the database schema.
+ *
+ * {@code database.sql} describes the tables as they were first released and is run
+ * on every start. Every later change is a numbered migration script under
+ * {@code /resources/migrations}; the number of the last migration applied is kept in
+ * the {@code user_version} field of the database header, so each script runs exactly
+ * once on every {@code database.db}, whether it was just created or comes from an
+ * older version of the application.
+ *
+ * Each migration runs in its own transaction together with the update of
+ * {@code user_version}: if a statement fails, the database stays at the previous
+ * version and the migration is attempted again at the next start.
+ * New migrations are only ever appended to {@link #MIGRATIONS}, never edited.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public final class SchemaMigrations {
+
+    /** Directory of the migration scripts in the classpath */
+    private static final String MIGRATIONS_DIR = "/resources/migrations/";
+
+    /**
+     * A single schema change.
+     */
+    public static final class Migration {
+
+        private final int version;
+        private final String script;
+        private final String description;
+
+        private Migration(int version, String script, String description) {
+            this.version = version;
+            this.script = script;
+            this.description = description;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /** All the migrations, by increasing version starting from 1 */
+    private static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+        new Migration(1, "001_game_sessions_indexes.sql", "indici su game_sessions per storico e classifica"),
+        new Migration(2, "002_answers_users_indexes.sql", "indici su answers.session_id e users.email"),
+        new Migration(3, "003_user_totals.sql", "classifica materializzata in user_totals"),
+        new Migration(4, "004_game_sessions_keyset_index.sql", "indice di game_sessions per la paginazione per cursore"),
+        new Migration(5, "005_session_timing.sql", "inizio e fine delle partite e tempi di risposta")
+    ));
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Gets the schema version the application expects.
+     *
+     * @return the version of the last migration
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Gets the schema version of a database.
+     *
+     * @param conn the connection to the database
+     * @return the version of the last migration applied, 0 if none
+     * @throws SQLException if the version cannot be read
+     */
+    public static int getVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies the migrations newer than the version of the database, in order.
+     * A database written by a newer version of the application is left untouched.
+     *
+     * @param conn a connection in auto-commit mode, after the base schema has been created
+     * @return the number of migrations applied
+     * @throws SQLException if a migration fails; the earlier ones stay applied
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        int current = getVersion(conn);
+        if (current > getLatestVersion()) {
+            System.err.println("Database schema version " + current + " is newer than the supported "
+                + getLatestVersion() + ", no migration applied");
+            return 0;
+        }
+
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version > current) {
+                apply(conn, migration);
+                current = migration.version;
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            // un altro processo potrebbe averla già applicata nel frattempo
+            if (getVersion(conn) >= migration.version) {
+                conn.commit();
+                return;
+            }
+            Database.executeScript(conn, MIGRATIONS_DIR + migration.script);
+            try (Statement stmt = conn.createStatement()) {
+                // le pragma non accettano parametri, la versione è un intero
+                stmt.execute("PRAGMA user_version = " + migration.version);
+            }
+            conn.commit();
+            System.out.println("Database migrated to version " + migration.version + ": " + migration.description);
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw new SQLException("Migration " + migration.version + " (" + migration.script + ") failed: "
+                + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -70,6 +70,17 @@ public interface UserDAO {
      */
     List<User> getAllUsers();
 
+    /**
+     * Retrieves a page of the users, ordered by username.
+     * 
+     * // legge gli utenti una pagina alla volta, per cursore sullo username
+     *
+     * @param after the cursor returned with the previous page, null for the first page
+     * @param limit the maximum number of users in the page
+     * @return the page of users
+     */
+    Page<User> getUsers(PageCursor after, int limit);
+
     /**
      * Updates the details of an existing user in the database.
      *
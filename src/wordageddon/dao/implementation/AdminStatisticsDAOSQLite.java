@@ -0,0 +1,37 @@
+package wordageddon.dao.implementation;
+
+import wordageddon.dao.AdminStatisticsDAO;
+import wordageddon.dao.Database;
+import wordageddon.model.AdminStatistics;
+import java.sql.*;
+
+/**
+ * SQLite implementation of the AdminStatisticsDAO interface.
+ * 
+ * All the counters come from one statement, so the dashboard costs a single
+ * round-trip: users and administrators are counted in one scan of users, and the
+ * session count is answered by the smallest index of game_sessions.
+ * 
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AdminStatisticsDAOSQLite implements AdminStatisticsDAO {
+
+    @Override
+    public AdminStatistics getAdminStatistics() {
+        // utenti e admin contati nella stessa scansione di users
+        String sql = "SELECT COUNT(*) AS total_users, COALESCE(SUM(is_admin = 1), 0) AS total_admins, "
+            + "(SELECT COUNT(*) FROM game_sessions) AS total_games FROM users";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            rs.next();
+            return new AdminStatistics(rs.getInt("total_users"), rs.getInt("total_admins"), rs.getInt("total_games"));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading admin statistics: " + e.getMessage(), e);
+        }
+    }
+}
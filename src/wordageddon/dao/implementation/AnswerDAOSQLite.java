@@ -51,7 +51,7 @@ public class AnswerDAOSQLite implements AnswerDAO {
     @Override
     public List<Answer> getAnswersBySession(int sessionId) {
         List<Answer> answers = new ArrayList<>();
-        String sql = "SELECT question_text, chosen_answer, correct_answer, is_correct FROM answers WHERE session_id = ? ORDER BY id";
+        String sql = "SELECT question_text, chosen_answer, correct_answer, is_correct, response_ms FROM answers WHERE session_id = ? ORDER BY id";
         
         try (Connection conn = Database.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -65,6 +65,8 @@ public class AnswerDAOSQLite implements AnswerDAO {
                     String chosenAnswer = rs.getString("chosen_answer");
                     String correctAnswer = rs.getString("correct_answer");
                     boolean isCorrect = rs.getInt("is_correct") == 1;
+                    long responseMs = rs.getLong("response_ms");
+                    Long responseTime = rs.wasNull() ? null : responseMs;
                     
                     // Create a simplified Question object for Answer construction
                     // Note: This is a simplified version since Answer requires a Question object
@@ -77,7 +79,7 @@ public class AnswerDAOSQLite implements AnswerDAO {
                     
                     Question question = new Question(questionNumber++, questionText, options, 
                         options.indexOf(correctAnswer));
-                    Answer answer = new Answer(question, options.indexOf(chosenAnswer));
+                    Answer answer = new Answer(question, options.indexOf(chosenAnswer), responseTime);
                     answers.add(answer);
                 }
             }
@@ -2,8 +2,13 @@ package wordageddon.dao.implementation;
 
 import wordageddon.dao.GameSessionDAO;
 import wordageddon.dao.Database;
+import wordageddon.dao.Page;
+import wordageddon.dao.PageCursor;
+import wordageddon.model.Answer;
 import wordageddon.model.GameSession;
 import wordageddon.model.GameSessionSummary;
+import wordageddon.model.TimingPercentiles;
+import wordageddon.model.UserGameStatistics;
 import wordageddon.model.UserLeaderboardEntry;
 import wordageddon.model.Question;
 import java.sql.*;
@@ -32,6 +37,16 @@ import java.util.Date;
  */
 public class GameSessionDAOSQLite implements GameSessionDAO {
 
+    /**
+     * Columns of a session summary; the answer counts are read from the index on
+     * answers(session_id, is_correct) with one lookup per session of the page.
+     */
+    private static final String SUMMARY_COLUMNS =
+        "SELECT gs.id, gs.user_id, gs.score, gs.difficulty, gs.language, gs.created_at, gs.started_at, gs.ended_at, " +
+        "(SELECT COUNT(*) FROM answers a WHERE a.session_id = gs.id) AS total_questions, " +
+        "(SELECT COUNT(*) FROM answers a WHERE a.session_id = gs.id AND a.is_correct = 1) AS correct_answers " +
+        "FROM game_sessions gs ";
+
     @Override
     public int addGameSession(int userId, double score, String difficulty, String language) {
         String sql = "INSERT INTO game_sessions (user_id, score, difficulty, language) VALUES (?, ?, ?, ?)";
@@ -57,6 +72,61 @@ public class GameSessionDAOSQLite implements GameSessionDAO {
         return -1;
     }
 
+    @Override
+    public int saveSessionWithAnswers(int userId, double score, String difficulty, String language,
+                                      Long startedAt, Long endedAt, List<Answer> answers) {
+        String sessionSql = "INSERT INTO game_sessions (user_id, score, difficulty, language, started_at, ended_at) VALUES (?, ?, ?, ?, ?, ?)";
+        String answerSql = "INSERT INTO answers (session_id, question_text, chosen_answer, correct_answer, is_correct, response_ms) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        // una sola connessione e una sola transazione: un unico commit per sessione e risposte
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int sessionId;
+                try (PreparedStatement pstmt = conn.prepareStatement(sessionSql, Statement.RETURN_GENERATED_KEYS)) {
+                    pstmt.setInt(1, userId);
+                    pstmt.setDouble(2, score);
+                    pstmt.setString(3, difficulty);
+                    pstmt.setString(4, language);
+                    pstmt.setObject(5, startedAt);
+                    pstmt.setObject(6, endedAt);
+                    pstmt.executeUpdate();
+                    
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        if (!rs.next()) {
+                            throw new SQLException("No key generated for the game session");
+                        }
+                        sessionId = rs.getInt(1);
+                    }
+                }
+                
+                try (PreparedStatement pstmt = conn.prepareStatement(answerSql)) {
+                    for (Answer answer : answers) {
+                        pstmt.setInt(1, sessionId);
+                        pstmt.setString(2, answer.getQuestion().getQuestionText());
+                        pstmt.setString(3, answer.getSelectedAnswerText());
+                        pstmt.setString(4, answer.getQuestion().getCorrectAnswerText());
+                        pstmt.setInt(5, answer.isCorrect() ? 1 : 0);
+                        pstmt.setObject(6, answer.getResponseTimeMillis());
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+                
+                conn.commit();
+                return sessionId;
+            } catch (SQLException | RuntimeException e) {
+                // annullo tutto: non deve restare una sessione senza risposte
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving game session with answers: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public GameSession getGameSession(int sessionId) {
         String sql = "SELECT user_id, score, difficulty, language, created_at FROM game_sessions WHERE id = ?";
@@ -187,13 +257,13 @@ public class GameSessionDAOSQLite implements GameSessionDAO {
     @Override
     public List<GameSessionSummary> getGameSessionSummariesByUser(int userId) {
         List<GameSessionSummary> summaries = new ArrayList<>();
-        String sql = "SELECT gs.id, gs.score, gs.difficulty, gs.language, gs.created_at, " +
+        String sql = "SELECT gs.id, gs.score, gs.difficulty, gs.language, gs.created_at, gs.started_at, gs.ended_at, " +
                      "COUNT(a.id) as total_questions, " +
                      "SUM(CASE WHEN a.is_correct = 1 THEN 1 ELSE 0 END) as correct_answers " +
                      "FROM game_sessions gs " +
                      "LEFT JOIN answers a ON gs.id = a.session_id " +
                      "WHERE gs.user_id = ? " +
-                     "GROUP BY gs.id, gs.score, gs.difficulty, gs.language, gs.created_at " +
+                     "GROUP BY gs.id " +
                      "ORDER BY gs.created_at DESC";
         
         try (Connection conn = Database.getConnection();
@@ -213,13 +283,9 @@ public class GameSessionDAOSQLite implements GameSessionDAO {
                     int totalQuestions = rs.getInt("total_questions");
                     int correctAnswers = rs.getInt("correct_answers");
                     
-                    // per la durata, useremo un valore predefinito dato che non è memorizzato nel database
-                    // in un'implementazione completa, aggiungeresti i campi start_time e end_time
-                    long duration = totalQuestions > 0 ? totalQuestions * 30000L : 300000L; // 30 secondi per domanda
-                    
                     GameSessionSummary summary = new GameSessionSummary(
                         sessionId, userId, difficulty, score, language, 
-                        createdAt, totalQuestions, correctAnswers, duration
+                        createdAt, totalQuestions, correctAnswers, readDuration(rs)
                     );
                     summaries.add(summary);
                 }
@@ -230,27 +296,292 @@ public class GameSessionDAOSQLite implements GameSessionDAO {
         return summaries;
     }
 
+    @Override
+    public Page<GameSessionSummary> getGameSessionSummariesByUser(int userId, PageCursor after, int limit) {
+        // ordine (created_at, id) decrescente, letto dall'indice idx_game_sessions_user_created
+        String sql = SUMMARY_COLUMNS +
+                     "WHERE gs.user_id = ? " +
+                     (after != null ? "AND (gs.created_at, gs.id) < (?, ?) " : "") +
+                     "ORDER BY gs.created_at DESC, gs.id DESC LIMIT ?";
+        
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            pstmt.setInt(index++, userId);
+            index = bindCursor(pstmt, index, after);
+            return readSummaryPage(pstmt, index, limit);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving game session summaries: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Page<GameSessionSummary> getAllGameSessionSummaries(PageCursor after, int limit) {
+        // l'indice su created_at include il rowid, quindi è già ordinato per (created_at, id)
+        String sql = SUMMARY_COLUMNS +
+                     (after != null ? "WHERE (gs.created_at, gs.id) < (?, ?) " : "") +
+                     "ORDER BY gs.created_at DESC, gs.id DESC LIMIT ?";
+        
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = bindCursor(pstmt, 1, after);
+            return readSummaryPage(pstmt, index, limit);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving game session summaries: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public UserGameStatistics getUserStatistics(int userId) {
+        // con MAX() sqlite restituisce le altre colonne dalla riga del massimo: difficulty
+        // è quella della partita con la percentuale migliore
+        String sql = "SELECT COUNT(*) AS games, AVG(score) AS avg_score, AVG(percentage) AS avg_percentage, " +
+                     "MAX(percentage) AS best_percentage, difficulty " +
+                     "FROM (SELECT gs.score, gs.difficulty, " +
+                     "      (SELECT CASE WHEN COUNT(*) = 0 THEN 0.0 ELSE 100.0 * SUM(a.is_correct) / COUNT(*) END " +
+                     "       FROM answers a WHERE a.session_id = gs.id) AS percentage " +
+                     "      FROM game_sessions gs WHERE gs.user_id = ?)";
+        
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next() && rs.getInt("games") > 0) {
+                    return new UserGameStatistics(
+                        rs.getInt("games"),
+                        rs.getDouble("avg_score"),
+                        rs.getDouble("avg_percentage"),
+                        rs.getDouble("best_percentage"),
+                        rs.getString("difficulty"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error computing user statistics: " + e.getMessage(), e);
+        }
+        return new UserGameStatistics(0, 0, 0, 0, null);
+    }
+
     @Override
     public List<UserLeaderboardEntry> getGlobalLeaderboard() {
+        // in sqlite un limite negativo equivale a nessun limite
+        return getGlobalLeaderboard(-1);
+    }
+
+    @Override
+    public List<UserLeaderboardEntry> getGlobalLeaderboard(int limit) {
         List<UserLeaderboardEntry> leaderboard = new ArrayList<>();
-        String sql = "SELECT u.username, SUM(gs.score) as total_points " +
-                     "FROM users u " +
-                     "INNER JOIN game_sessions gs ON u.id = gs.user_id " +
-                     "GROUP BY u.id, u.username " +
-                     "ORDER BY total_points DESC";
+        // user_totals è mantenuta dai trigger su game_sessions e letta in ordine dal suo indice;
+        // CROSS JOIN obbliga sqlite a scorrere prima user_totals, fermandosi dopo "limit" righe
+        String sql = "SELECT u.username, t.total_points, t.games_played, t.best_score " +
+                     "FROM user_totals t " +
+                     "CROSS JOIN users u ON u.id = t.user_id " +
+                     "ORDER BY t.total_points DESC, t.user_id " +
+                     "LIMIT ?";
         
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    leaderboard.add(new UserLeaderboardEntry(
+                        rs.getString("username"),
+                        rs.getDouble("total_points"),
+                        rs.getInt("games_played"),
+                        rs.getDouble("best_score")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving global leaderboard: " + e.getMessage(), e);
+        }
+        return leaderboard;
+    }
+
+    @Override
+    public int rebuildLeaderboard() {
+        String clearSql = "DELETE FROM user_totals";
+        String rebuildSql = "INSERT INTO user_totals (user_id, total_points, games_played, best_score) " +
+                            "SELECT user_id, SUM(score), COUNT(*), MAX(score) FROM game_sessions GROUP BY user_id";
+        
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(clearSql);
+                int users = stmt.executeUpdate(rebuildSql);
+                conn.commit();
+                return users;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error rebuilding leaderboard: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<TimingPercentiles> getSessionDurationPercentiles() {
+        // stessa espressione dell'indice parziale idx_game_sessions_difficulty_duration
+        return readPercentiles(percentileQuery(
+            "SELECT difficulty, ended_at - started_at AS ms FROM game_sessions " +
+            "WHERE ended_at IS NOT NULL AND started_at IS NOT NULL"));
+    }
+
+    @Override
+    public List<TimingPercentiles> getResponseTimePercentiles() {
+        return readPercentiles(percentileQuery(
+            "SELECT gs.difficulty, a.response_ms AS ms FROM answers a " +
+            "JOIN game_sessions gs ON gs.id = a.session_id " +
+            "WHERE a.response_ms IS NOT NULL"));
+    }
+
+    @Override
+    public Page<UserLeaderboardEntry> getGlobalLeaderboard(PageCursor after, int limit) {
+        // ordine (total_points decrescente, user_id crescente) come l'indice idx_user_totals_points;
+        // la prima condizione delimita l'intervallo dell'indice, la seconda scarta gli ex aequo già letti
+        String sql = "SELECT t.user_id, u.username, t.total_points, t.games_played, t.best_score " +
+                     "FROM user_totals t " +
+                     "CROSS JOIN users u ON u.id = t.user_id " +
+                     (after != null ? "WHERE t.total_points <= ? AND (t.total_points < ? OR t.user_id > ?) " : "") +
+                     "ORDER BY t.total_points DESC, t.user_id " +
+                     "LIMIT ?";
+        
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (after != null) {
+                pstmt.setObject(index++, after.getKey());
+                pstmt.setObject(index++, after.getKey());
+                pstmt.setLong(index++, after.getId());
+            }
+            // leggo una riga in più per sapere se esiste la pagina successiva
+            pstmt.setInt(index, limit + 1);
+            
+            List<UserLeaderboardEntry> entries = new ArrayList<>();
+            PageCursor last = null;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (entries.size() == limit) {
+                        return new Page<>(entries, last);
+                    }
+                    double totalPoints = rs.getDouble("total_points");
+                    entries.add(new UserLeaderboardEntry(
+                        rs.getString("username"),
+                        totalPoints,
+                        rs.getInt("games_played"),
+                        rs.getDouble("best_score")));
+                    last = new PageCursor(totalPoints, rs.getInt("user_id"));
+                }
+            }
+            return new Page<>(entries, null);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving global leaderboard: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Binds the (created_at, id) cursor of the previous page, if any.
+     *
+     * @return the index of the next parameter
+     */
+    private static int bindCursor(PreparedStatement pstmt, int index, PageCursor after) throws SQLException {
+        if (after != null) {
+            pstmt.setObject(index++, after.getKey());
+            pstmt.setLong(index++, after.getId());
+        }
+        return index;
+    }
+
+    /**
+     * Executes a summary query, reading one row more than the page to know if another page follows.
+     */
+    private static Page<GameSessionSummary> readSummaryPage(PreparedStatement pstmt, int limitIndex, int limit)
+            throws SQLException {
+        pstmt.setInt(limitIndex, limit + 1);
+        
+        List<GameSessionSummary> summaries = new ArrayList<>();
+        PageCursor last = null;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                if (summaries.size() == limit) {
+                    return new Page<>(summaries, last);
+                }
+                summaries.add(new GameSessionSummary(
+                    rs.getInt("id"),
+                    rs.getInt("user_id"),
+                    rs.getString("difficulty"),
+                    rs.getDouble("score"),
+                    rs.getString("language"),
+                    new Date(rs.getTimestamp("created_at").getTime()),
+                    rs.getInt("total_questions"),
+                    rs.getInt("correct_answers"),
+                    readDuration(rs)));
+                // il cursore usa il testo di created_at, confrontato così com'è nel database
+                last = new PageCursor(rs.getString("created_at"), rs.getInt("id"));
+            }
+        }
+        return new Page<>(summaries, null);
+    }
+
+    /**
+     * Reads the measured duration of a session, 0 for sessions saved without start and end time.
+     */
+    private static long readDuration(ResultSet rs) throws SQLException {
+        long startedAt = rs.getLong("started_at");
+        if (rs.wasNull()) {
+            return 0;
+        }
+        long endedAt = rs.getLong("ended_at");
+        return rs.wasNull() ? 0 : endedAt - startedAt;
+    }
+
+    /**
+     * Runs a percentile query returning one row per difficulty.
+     */
+    private static List<TimingPercentiles> readPercentiles(String sql) {
+        List<TimingPercentiles> percentiles = new ArrayList<>();
         try (Connection conn = Database.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
             
             while (rs.next()) {
-                String username = rs.getString("username");
-                double totalPoints = rs.getDouble("total_points");
-                leaderboard.add(new UserLeaderboardEntry(username, totalPoints));
+                percentiles.add(new TimingPercentiles(
+                    rs.getString("difficulty"),
+                    rs.getInt("samples"),
+                    rs.getLong("p50"),
+                    rs.getLong("p90"),
+                    rs.getLong("p99"),
+                    rs.getLong("max_ms")));
             }
         } catch (SQLException e) {
-            throw new RuntimeException("Error retrieving global leaderboard: " + e.getMessage(), e);
+            throw new RuntimeException("Error computing timing percentiles: " + e.getMessage(), e);
         }
-        return leaderboard;
+        return percentiles;
+    }
+
+    /**
+     * Builds a percentile query over a set of (difficulty, ms) samples. Each sample is
+     * numbered within its difficulty in a single sorted pass, and the nearest rank of
+     * percentile p among n samples is ceil(p * n / 100), computed with integer arithmetic;
+     * only the rows at those ranks reach the final grouping.
+     */
+    private static String percentileQuery(String samples) {
+        return "SELECT difficulty, n AS samples, " +
+               "MAX(CASE WHEN rn = (50 * n + 99) / 100 THEN ms END) AS p50, " +
+               "MAX(CASE WHEN rn = (90 * n + 99) / 100 THEN ms END) AS p90, " +
+               "MAX(CASE WHEN rn = (99 * n + 99) / 100 THEN ms END) AS p99, " +
+               "MAX(ms) AS max_ms " +
+               "FROM (SELECT difficulty, ms, ROW_NUMBER() OVER w AS rn, " +
+               "      COUNT(*) OVER (w ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) AS n " +
+               "      FROM (" + samples + ") " +
+               "      WINDOW w AS (PARTITION BY difficulty ORDER BY ms)) " +
+               "WHERE rn IN ((50 * n + 99) / 100, (90 * n + 99) / 100, (99 * n + 99) / 100, n) " +
+               "GROUP BY difficulty ORDER BY difficulty";
     }
 }
@@ -0,0 +1,121 @@
+package wordageddon.dao.implementation;
+
+import wordageddon.dao.Database;
+import wordageddon.dao.QuestionStatsDAO;
+import wordageddon.model.Answer;
+import wordageddon.model.Question;
+import wordageddon.model.QuestionStatistics;
+import wordageddon.model.QuestionType;
+import java.sql.*;
+import java.util.List;
+import java.util.Map;
+import java.util.EnumMap;
+
+/**
+ * SQLite implementation of the QuestionStatsDAO interface.
+ * 
+ * Each template is a single row of the question_stats table, updated with an
+ * upsert, so recording an answer costs one indexed write whatever the number
+ * of answers already stored. The answers of a game are aggregated by template
+ * and written in one transaction.
+ * 
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionStatsDAOSQLite implements QuestionStatsDAO {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO question_stats (question_type, frequency_bucket, attempts, correct) VALUES (?, ?, ?, ?) "
+        + "ON CONFLICT(question_type, frequency_bucket) DO UPDATE SET "
+        + "attempts = attempts + excluded.attempts, correct = correct + excluded.correct";
+
+    @Override
+    public void recordAnswer(QuestionType type, int frequencyBucket, boolean isCorrect) {
+        String sql = UPSERT_SQL;
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, type.name());
+            pstmt.setInt(2, frequencyBucket);
+            pstmt.setInt(3, 1);
+            pstmt.setInt(4, isCorrect ? 1 : 0);
+
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording question statistics: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void recordAnswers(List<Answer> answers) {
+        // aggrego prima per modello, così ogni riga viene aggiornata una sola volta
+        Map<QuestionType, long[][]> byTemplate = new EnumMap<>(QuestionType.class);
+        for (Answer answer : answers) {
+            Question question = answer.getQuestion();
+            if (question.getType() == null) {
+                continue;
+            }
+            long[] counts = byTemplate.computeIfAbsent(question.getType(),
+                type -> new long[QuestionStatistics.BUCKETS][2])[question.getFrequencyBucket()];
+            counts[0]++;
+            counts[1] += answer.isCorrect() ? 1 : 0;
+        }
+        if (byTemplate.isEmpty()) {
+            return;
+        }
+
+        try (Connection conn = Database.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_SQL)) {
+                for (Map.Entry<QuestionType, long[][]> entry : byTemplate.entrySet()) {
+                    for (int bucket = 0; bucket < QuestionStatistics.BUCKETS; bucket++) {
+                        long[] counts = entry.getValue()[bucket];
+                        if (counts[0] == 0) {
+                            continue;
+                        }
+                        pstmt.setString(1, entry.getKey().name());
+                        pstmt.setInt(2, bucket);
+                        pstmt.setLong(3, counts[0]);
+                        pstmt.setLong(4, counts[1]);
+                        pstmt.addBatch();
+                    }
+                }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording question statistics: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public QuestionStatistics loadStatistics() {
+        QuestionStatistics statistics = new QuestionStatistics();
+        String sql = "SELECT question_type, frequency_bucket, attempts, correct FROM question_stats";
+
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                try {
+                    QuestionType type = QuestionType.valueOf(rs.getString("question_type"));
+                    statistics.add(type, rs.getInt("frequency_bucket"), rs.getLong("attempts"), rs.getLong("correct"));
+                } catch (IllegalArgumentException e) {
+                    // tipo di domanda non più supportato: la riga viene ignorata
+                    System.err.println("Unknown question type in statistics: " + rs.getString("question_type"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading question statistics: " + e.getMessage(), e);
+        }
+        return statistics;
+    }
+}
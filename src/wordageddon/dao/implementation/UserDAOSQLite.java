@@ -2,6 +2,8 @@ package wordageddon.dao.implementation;
 
 import wordageddon.dao.UserDAO;
 import wordageddon.dao.Database;
+import wordageddon.dao.Page;
+import wordageddon.dao.PageCursor;
 import wordageddon.model.User;
 import java.sql.*;
 import java.util.List;
@@ -181,6 +183,49 @@ public class UserDAOSQLite implements UserDAO {
         return users;
     }
 
+    @Override
+    public Page<User> getUsers(PageCursor after, int limit) {
+        List<User> users = new ArrayList<>();
+        // lo username è unico e indicizzato: basta come cursore
+        String sql = "SELECT id, username, password, first_name, last_name, email, is_admin FROM users " +
+                     (after != null ? "WHERE username > ? " : "") +
+                     "ORDER BY username LIMIT ?";
+        
+        try (Connection conn = Database.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (after != null) {
+                pstmt.setObject(index++, after.getKey());
+            }
+            // una riga in più dice se esiste la pagina successiva
+            pstmt.setInt(index, limit + 1);
+            
+            PageCursor last = null;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (users.size() == limit) {
+                        return new Page<>(users, last);
+                    }
+                    User user = new User(
+                        rs.getInt("id"),
+                        rs.getString("username"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        rs.getString("password"),
+                        rs.getString("email"),
+                        rs.getBoolean("is_admin")
+                    );
+                    users.add(user);
+                    last = new PageCursor(user.getUsername(), user.getId());
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error retrieving users: " + e.getMessage(), e);
+        }
+        return new Page<>(users, null);
+    }
+
     @Override
     public void updateUserAdminStatus(int userId, boolean isAdmin) {
         String sql = "UPDATE users SET is_admin = ? WHERE id = ?";
@@ -0,0 +1,40 @@
+package wordageddon.model;
+
+/**
+ * Data Transfer Object with the counters shown in the admin dashboard.
+ *
+ * The counters are read by the database in a single query, so the dashboard
+ * does not need to load the users or the game sessions to show them.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AdminStatistics {
+    /** Number of registered users */
+    private final int totalUsers;
+
+    /** Number of users with administrative privileges */
+    private final int totalAdmins;
+
+    /** Number of game sessions played by all the users */
+    private final int totalGames;
+
+    /**
+     * Constructs the dashboard counters.
+     *
+     * @param totalUsers the number of registered users
+     * @param totalAdmins the number of administrators
+     * @param totalGames the number of game sessions played
+     */
+    public AdminStatistics(int totalUsers, int totalAdmins, int totalGames) {
+        this.totalUsers = totalUsers;
+        this.totalAdmins = totalAdmins;
+        this.totalGames = totalGames;
+    }
+
+    // getters
+    public int getTotalUsers() { return totalUsers; }
+    public int getTotalAdmins() { return totalAdmins; }
+    public int getTotalGames() { return totalGames; }
+}
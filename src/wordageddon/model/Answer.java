@@ -25,6 +25,9 @@ public class Answer {
     /** The timestamp when this answer was submitted */
     private final long timestamp;
     
+    /** Time from when the question was shown to the answer, in milliseconds (null if not measured) */
+    private final Long responseTimeMillis;
+    
     /**
      * Constructs a new Answer with the specified parameters.
      * 
@@ -33,6 +36,18 @@ public class Answer {
      * @throws IllegalArgumentException if question is null or selectedAnswerIndex is invalid
      */
     public Answer(Question question, int selectedAnswerIndex) {
+        this(question, selectedAnswerIndex, null);
+    }
+    
+    /**
+     * Constructs a new Answer with the time the user took to give it.
+     * 
+     * @param question the question being answered
+     * @param selectedAnswerIndex the index of the selected answer option (0-based)
+     * @param responseTimeMillis the response time in milliseconds, null if not measured
+     * @throws IllegalArgumentException if question is null or selectedAnswerIndex is invalid
+     */
+    public Answer(Question question, int selectedAnswerIndex, Long responseTimeMillis) {
 
         // se la domanda è null sollevo eccezione
         if (question == null) {
@@ -49,6 +64,7 @@ public class Answer {
         this.selectedAnswerIndex = selectedAnswerIndex;
         this.isCorrect = question.isCorrectAnswer(selectedAnswerIndex);
         this.timestamp = System.currentTimeMillis();
+        this.responseTimeMillis = responseTimeMillis;
     }
     
     /**
@@ -96,6 +112,15 @@ public class Answer {
         return timestamp;
     }
     
+    /**
+     * Gets the time the user took to answer, from when the question was shown.
+     * 
+     * @return the response time in milliseconds, or null if not measured
+     */
+    public Long getResponseTimeMillis() {
+        return responseTimeMillis;
+    }
+    
     /**
      * Calculates the score contribution of this answer.
      * Correct answers contribute +1.0, incorrect answers contribute -0.33.
@@ -0,0 +1,404 @@
+package wordageddon.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import wordageddon.util.AtomicFileStore;
+
+/**
+ * Read-only list of document contents backed by a compressed segment file.
+ *
+ * Every document is compressed on its own with Deflate and stored in a single
+ * segment file preceded by an offset index, so any document can be read and
+ * decompressed on demand without touching the others. Only the index is kept
+ * in memory; the text is read from disk each time {@link #get(int)} is called.
+ *
+ * A segment file is never rewritten once opened (see {@link CompressedCorpusStore}):
+ * {@link #open(File)} keeps the file open for the lifetime of the corpus, so the
+ * offsets in memory always match the bytes read, even after a newer version has
+ * replaced the file. The store closes it once the corpus is no longer used.
+ *
+ * Segment file layout:
+ * <pre>
+ * int magic, int version, int count
+ * count x (UTF name, long offset, int compressedLength, int rawLength, long crc32)
+ * compressed blocks (offsets are relative to the end of the index)
+ * </pre>
+ *
+ * When serialized (e.g. inside {@link GameDataContainer}) only the file path and
+ * the index are written, not the document texts.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class CompressedCorpus extends AbstractList<String> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // magic number del file di segmento ("WCRP")
+    private static final int MAGIC = 0x57435250;
+    private static final int FORMAT_VERSION = 1;
+
+    /** Path of the segment file */
+    private final String segmentPath;
+
+    /** Names of the documents, in storage order */
+    private final List<String> names;
+
+    /** Absolute position of each compressed block inside the segment file */
+    private final long[] offsets;
+
+    /** Size of each compressed block */
+    private final int[] compressedLengths;
+
+    /** Size of each document once decompressed */
+    private final int[] rawLengths;
+
+    /** CRC32 of each decompressed document */
+    private final long[] checksums;
+
+    /** Segment file, kept open; reopened on the first read after deserialization */
+    private transient RandomAccessFile file;
+
+    private CompressedCorpus(String segmentPath, RandomAccessFile file, List<String> names, long[] offsets,
+                             int[] compressedLengths, int[] rawLengths, long[] checksums) {
+        this.segmentPath = segmentPath;
+        this.file = file;
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.offsets = offsets;
+        this.compressedLengths = compressedLengths;
+        this.rawLengths = rawLengths;
+        this.checksums = checksums;
+    }
+
+    /**
+     * Opens an existing segment file, reading only its index. The file stays open
+     * so that the documents can be read even if it is deleted afterwards.
+     *
+     * @param segmentFile the segment file to open
+     * @return the corpus backed by the file
+     * @throws IOException if the file cannot be read or has an invalid format
+     */
+    public static CompressedCorpus open(File segmentFile) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(segmentFile, "r");
+        try {
+            if (raf.readInt() != MAGIC) {
+                throw new IOException("Formato del corpus compresso non valido: " + segmentFile.getPath());
+            }
+            int version = raf.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Versione del corpus compresso non supportata: " + version);
+            }
+
+            int count = raf.readInt();
+            List<String> names = new ArrayList<>(count);
+            long[] offsets = new long[count];
+            int[] compressedLengths = new int[count];
+            int[] rawLengths = new int[count];
+            long[] checksums = new long[count];
+
+            for (int i = 0; i < count; i++) {
+                names.add(raf.readUTF());
+                offsets[i] = raf.readLong();
+                compressedLengths[i] = raf.readInt();
+                rawLengths[i] = raf.readInt();
+                checksums[i] = raf.readLong();
+            }
+
+            // gli offset sono relativi alla fine dell'indice, li rendo assoluti
+            long dataStart = raf.getFilePointer();
+            for (int i = 0; i < count; i++) {
+                offsets[i] += dataStart;
+            }
+
+            return new CompressedCorpus(segmentFile.getPath(), raf, names, offsets, compressedLengths, rawLengths, checksums);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads and decompresses a single document.
+     *
+     * @param index the position of the document
+     * @return the document content
+     * @throws UncheckedIOException if the segment file cannot be read or the block is corrupted
+     */
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= offsets.length) {
+            throw new IndexOutOfBoundsException("Indice documento non valido: " + index);
+        }
+
+        try {
+            byte[] raw = inflate(readBlock(index), rawLengths[index]);
+
+            if (checksum(raw) != checksums[index]) {
+                throw new IOException("Checksum non valido per il documento " + names.get(index));
+            }
+
+            return new String(raw, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Errore nella lettura del documento " + names.get(index), e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Reads the compressed block of a document, without decompressing it.
+     *
+     * @param index the position of the document
+     * @return the compressed bytes
+     * @throws IOException if the segment file cannot be read
+     */
+    synchronized byte[] readBlock(int index) throws IOException {
+        if (file == null) {
+            // corpus deserializzato: riapro il file dal percorso salvato
+            file = new RandomAccessFile(segmentPath, "r");
+        }
+        byte[] compressed = new byte[compressedLengths[index]];
+        file.seek(offsets[index]);
+        file.readFully(compressed);
+        return compressed;
+    }
+
+    /**
+     * Gets the open segment file, so that it can be closed once the corpus is no longer used.
+     *
+     * @return the segment file, or null if it has not been opened
+     */
+    synchronized RandomAccessFile getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the path of the segment file backing the corpus.
+     *
+     * @return the segment file path
+     */
+    public String getPath() {
+        return segmentPath;
+    }
+
+    /**
+     * Gets the name of the document at the given position.
+     *
+     * @param index the position of the document
+     * @return the document name (usually the original file name)
+     */
+    public String getName(int index) {
+        return names.get(index);
+    }
+
+    /**
+     * Gets the names of all documents, in storage order.
+     *
+     * @return an immutable list of document names
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Gets the CRC32 of a document, read from the index without decompressing it.
+     *
+     * @param index the position of the document
+     * @return the checksum of the UTF-8 content
+     */
+    public long getChecksum(int index) {
+        return checksums[index];
+    }
+
+    /**
+     * Gets the total size of the compressed blocks.
+     *
+     * @return the number of compressed bytes stored in the segment
+     */
+    public long getCompressedSize() {
+        long total = 0;
+        for (int length : compressedLengths) {
+            total += length;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the total size of the documents once decompressed.
+     *
+     * @return the number of raw bytes represented by the segment
+     */
+    public long getRawSize() {
+        long total = 0;
+        for (int length : rawLengths) {
+            total += length;
+        }
+        return total;
+    }
+
+    /**
+     * Computes the checksum stored in the index for a document content.
+     *
+     * @param content the document content
+     * @return the CRC32 of the UTF-8 content
+     */
+    public static long checksum(String content) {
+        return checksum(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long checksum(byte[] raw) {
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Decompresses a Deflate block of known size.
+     *
+     * @param compressed the compressed bytes
+     * @param rawLength the expected size after decompression
+     * @return the decompressed bytes
+     * @throws IOException if the block is corrupted
+     */
+    private static byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != rawLength) {
+                throw new IOException("Blocco compresso troncato");
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Blocco compresso non valido: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Builder that compresses documents one at a time and writes the segment file.
+     * Only the compressed blocks are kept in memory while building; documents
+     * of an existing corpus can be copied without decompressing them.
+     */
+    public static class Writer {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<byte[]> blocks = new ArrayList<>();
+        private final List<Integer> rawLengths = new ArrayList<>();
+        private final List<Long> checksums = new ArrayList<>();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        /**
+         * Compresses a document and appends it to the segment being built.
+         *
+         * @param name the document name
+         * @param content the document content
+         */
+        public void add(String name, String content) {
+            byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+
+            // comprimo il documento singolarmente per permetterne l'accesso casuale
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+
+            names.add(name);
+            blocks.add(out.toByteArray());
+            rawLengths.add(raw.length);
+            checksums.add(checksum(raw));
+        }
+
+        /**
+         * Appends a document of another corpus, copying its compressed block as it is.
+         *
+         * @param source the corpus holding the document
+         * @param index the position of the document in the source
+         * @throws IOException if the block cannot be read
+         */
+        public void copy(CompressedCorpus source, int index) throws IOException {
+            names.add(source.getName(index));
+            blocks.add(source.readBlock(index));
+            rawLengths.add(source.rawLengths[index]);
+            checksums.add(source.getChecksum(index));
+        }
+
+        /**
+         * Gets the number of documents added so far.
+         *
+         * @return the document count
+         */
+        public int size() {
+            return names.size();
+        }
+
+        /**
+         * Writes the segment file atomically and opens it.
+         *
+         * @param segmentFile the destination file
+         * @return the corpus backed by the written file
+         * @throws IOException if the file cannot be written
+         */
+        public CompressedCorpus writeTo(File segmentFile) throws IOException {
+            deflater.end();
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(buffer)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(names.size());
+
+                long offset = 0;
+                for (int i = 0; i < names.size(); i++) {
+                    out.writeUTF(names.get(i));
+                    out.writeLong(offset);
+                    out.writeInt(blocks.get(i).length);
+                    out.writeInt(rawLengths.get(i));
+                    out.writeLong(checksums.get(i));
+                    offset += blocks.get(i).length;
+                }
+
+                for (byte[] block : blocks) {
+                    out.write(block);
+                }
+            }
+
+            AtomicFileStore.writeBytes(segmentFile, buffer.toByteArray());
+            return open(segmentFile);
+        }
+    }
+}
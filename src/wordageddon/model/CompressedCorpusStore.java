@@ -0,0 +1,282 @@
+package wordageddon.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Versioned storage of the {@link CompressedCorpus} of a directory.
+ *
+ * Every change writes a new segment file named {@code corpus_<version>.seg}; a file
+ * is never rewritten, so a corpus obtained before a change keeps reading the data
+ * its index refers to. Unchanged documents are copied into the new version as
+ * compressed blocks, without decompressing them, and nothing is written when an
+ * update does not change any document.
+ *
+ * A superseded version is deleted only once no one uses it anymore: the store keeps
+ * a weak reference to its corpus and, after the corpus has been garbage collected,
+ * closes its file and deletes it during the next update or opening of the store.
+ * Versions left over by a previous run are removed when the store is loaded.
+ * There is a single store instance per directory, shared by all callers.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class CompressedCorpusStore {
+
+    private static final String FILE_PREFIX = "corpus_";
+    private static final String FILE_SUFFIX = ".seg";
+
+    // un solo archivio per directory, condiviso da tutti i servizi
+    private static final Map<File, CompressedCorpusStore> OPEN_STORES = new HashMap<>();
+
+    private final File directory;
+
+    /** Current version of the corpus, null if the store is empty */
+    private volatile CompressedCorpus corpus;
+
+    /** Version number of {@link #corpus}, 0 if the store is empty */
+    private long version;
+
+    /** Highest version number found on disk, readable or not */
+    private long lastVersion;
+
+    /** Superseded versions whose corpus may still be in use */
+    private final Set<RetiredVersion> retired = new HashSet<>();
+
+    /** Superseded corpora that have been garbage collected */
+    private final ReferenceQueue<CompressedCorpus> released = new ReferenceQueue<>();
+
+    /**
+     * Source of the content of a document, read only when the document is written.
+     */
+    public interface Source {
+
+        /**
+         * Reads the content of the document.
+         *
+         * @return the content, or null to skip the document
+         * @throws IOException if the content cannot be read
+         */
+        String read() throws IOException;
+    }
+
+    private CompressedCorpusStore(File directory) {
+        this.directory = directory;
+        load();
+    }
+
+    /**
+     * Opens the store of the given directory, creating it if needed.
+     *
+     * @param directory the directory holding the corpus versions
+     * @return the shared store instance for the directory
+     */
+    public static synchronized CompressedCorpusStore open(File directory) {
+        File key = directory.getAbsoluteFile();
+        CompressedCorpusStore store = OPEN_STORES.get(key);
+        if (store == null) {
+            store = new CompressedCorpusStore(key);
+            OPEN_STORES.put(key, store);
+        }
+        store.deleteReleasedVersions();
+        return store;
+    }
+
+    /**
+     * Gets the current version of the corpus.
+     *
+     * @return the corpus, or null if the store holds no document
+     */
+    public CompressedCorpus getCorpus() {
+        return corpus;
+    }
+
+    /**
+     * Writes a new version of the corpus with some documents added, replaced or removed.
+     * The documents keep the name order. A document whose content did not change is
+     * not recompressed, and no version is written if nothing changed.
+     *
+     * @param added the documents to add or replace, by name
+     * @param removed the names of the documents to remove
+     * @return true if a new version has been written
+     * @throws IOException if a document cannot be read or the new version cannot be written
+     */
+    public synchronized boolean update(SortedMap<String, Source> added, Collection<String> removed) throws IOException {
+        CompressedCorpus base = corpus;
+
+        // unisco per nome i documenti esistenti e quelli nuovi, mantenendo l'ordine alfabetico
+        TreeMap<String, Integer> existing = new TreeMap<>();
+        if (base != null) {
+            for (int i = 0; i < base.size(); i++) {
+                existing.put(base.getName(i), i);
+            }
+        }
+        TreeMap<String, Object> merged = new TreeMap<>(existing);
+        merged.putAll(added);
+
+        CompressedCorpus.Writer writer = new CompressedCorpus.Writer();
+        boolean changed = false;
+        for (Map.Entry<String, Object> entry : merged.entrySet()) {
+            String name = entry.getKey();
+            Integer index = existing.get(name);
+            if (removed.contains(name)) {
+                changed |= index != null;
+                continue;
+            }
+            if (entry.getValue() instanceof Source) {
+                String content = ((Source) entry.getValue()).read();
+                if (content == null) {
+                    if (index != null) {
+                        writer.copy(base, index);
+                    }
+                    continue;
+                }
+                if (index == null || base.getChecksum(index) != CompressedCorpus.checksum(content)) {
+                    writer.add(name, content);
+                    changed = true;
+                    continue;
+                }
+            }
+            // documento invariato: copio il blocco compresso senza decomprimerlo
+            writer.copy(base, index);
+        }
+
+        if (!changed) {
+            return false;
+        }
+
+        long next = lastVersion + 1;
+        CompressedCorpus written = writer.writeTo(versionFile(next));
+        lastVersion = next;
+        long previous = version;
+        version = next;
+        corpus = written;
+
+        if (base != null) {
+            // la versione precedente viene eliminata solo quando nessuno la usa più
+            retired.add(new RetiredVersion(base, versionFile(previous), released));
+        }
+        deleteReleasedVersions();
+        return true;
+    }
+
+    /**
+     * Removes every version of the corpus, e.g. when the documents are moved back
+     * to plain text files. Every version is closed: the corpora obtained from the
+     * store must not be read afterwards.
+     */
+    public synchronized void clear() {
+        if (corpus != null) {
+            close(corpus.getFile());
+        }
+        for (RetiredVersion retiredVersion : retired) {
+            close(retiredVersion.handle);
+        }
+        retired.clear();
+        for (File file : listVersionFiles()) {
+            file.delete();
+        }
+        corpus = null;
+        version = 0;
+    }
+
+    /**
+     * Closes and deletes the superseded versions whose corpus has been garbage collected.
+     */
+    private synchronized void deleteReleasedVersions() {
+        Reference<? extends CompressedCorpus> reference;
+        while ((reference = released.poll()) != null) {
+            RetiredVersion retiredVersion = (RetiredVersion) reference;
+            retired.remove(retiredVersion);
+            close(retiredVersion.handle);
+            if (!retiredVersion.file.delete() && retiredVersion.file.exists()) {
+                // verrà rimossa al prossimo caricamento dell'archivio
+                System.err.println("Failed to delete corpus version: " + retiredVersion.file.getName());
+            }
+        }
+    }
+
+    private static void close(RandomAccessFile handle) {
+        if (handle == null) {
+            return;
+        }
+        try {
+            handle.close();
+        } catch (IOException e) {
+            System.err.println("Error closing corpus file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the most recent readable version and removes the older ones.
+     */
+    private void load() {
+        directory.mkdirs();
+
+        TreeMap<Long, File> versions = new TreeMap<>();
+        for (File file : listVersionFiles()) {
+            try {
+                String number = file.getName().substring(FILE_PREFIX.length(),
+                    file.getName().length() - FILE_SUFFIX.length());
+                versions.put(Long.parseLong(number), file);
+            } catch (NumberFormatException e) {
+                // non è un file di versione del corpus
+            }
+        }
+        if (!versions.isEmpty()) {
+            lastVersion = versions.lastKey();
+        }
+
+        // parto dalla versione più recente; un file illeggibile viene lasciato dov'è e si passa al precedente
+        for (Map.Entry<Long, File> entry : versions.descendingMap().entrySet()) {
+            if (corpus == null) {
+                try {
+                    corpus = CompressedCorpus.open(entry.getValue());
+                    version = entry.getKey();
+                } catch (IOException e) {
+                    System.err.println("Error opening corpus version " + entry.getValue().getName() + ": " + e.getMessage());
+                }
+            } else if (entry.getKey() < version) {
+                // versione superata, rimasta da un'esecuzione precedente
+                entry.getValue().delete();
+            }
+        }
+    }
+
+    private File[] listVersionFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        return files != null ? files : new File[0];
+    }
+
+    private File versionFile(long number) {
+        return new File(directory, FILE_PREFIX + number + FILE_SUFFIX);
+    }
+
+    /**
+     * Superseded version of the corpus, cleared when its corpus is garbage collected.
+     * The file handle is kept here so that it can be closed after the corpus is gone.
+     */
+    private static final class RetiredVersion extends WeakReference<CompressedCorpus> {
+
+        private final File file;
+        private final RandomAccessFile handle;
+
+        private RetiredVersion(CompressedCorpus corpus, File file, ReferenceQueue<CompressedCorpus> queue) {
+            super(corpus, queue);
+            this.file = file;
+            this.handle = corpus.getFile();
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package wordageddon.model;
+
+import wordageddon.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Read-only indexes over a set of documents of the Document-Term Matrix, built once
+ * so that corpus-wide questions are answered in constant or logarithmic time:
+ * - document frequency: in how many documents each word appears
+ * - totals: occurrences of each word across all the documents
+ * - ranks: position of a word in the frequency ranking of a document
+ * - co-occurrence: sparse matrix of word pairs appearing together
+ *
+ * The questions are about the documents of a game, so these indexes describe a subset
+ * of the corpus. Everything that depends on a single document (term ids and counts,
+ * frequency ranking, pair scores) is kept in a {@link DocumentStatistics}, built once
+ * per matrix version and shared by all the subsets; building the indexes of a subset
+ * only sums those arrays over its documents.
+ *
+ * Words are identified by an id, their position in the sorted vocabulary of the documents.
+ * When the matrix carries the windowed counts of {@link WordCoOccurrence}, the score of a
+ * pair is the number of times the two words appear close to each other in the documents.
+ * Otherwise the scores are a heuristic, not a real co-occurrence: two words are paired
+ * in a document when both are among its {@value #TOP_WORDS_PER_DOCUMENT} most frequent
+ * words, and the score sums, over the documents, the lower of the two frequencies.
+ * Pairs scoring less than {@value #MIN_PAIR_SCORE} are pruned.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class CorpusStatistics {
+
+    /** Number of most frequent words of each document considered for co-occurrence */
+    private static final int TOP_WORDS_PER_DOCUMENT = 30;
+
+    /** Minimum score of a pair kept in the co-occurrence matrix */
+    private static final int MIN_PAIR_SCORE = 2;
+
+    private final List<String> documents;
+    private final String[] terms;
+    private final Map<String, Integer> termIds;
+    private final int[] documentFrequency;
+    private final int[] totals;
+
+    /** For each document, its distinct frequencies in descending order */
+    private final Map<String, int[]> rankings = new HashMap<>();
+
+    /** Pair scores keyed by {@link #pairKey(int, int)} */
+    private final LongIntHashMap coOccurrence;
+
+    /** Pair keys sorted by descending score */
+    private final long[] pairsByScore;
+
+    /** Whether the pair scores come from the windowed counts */
+    private final boolean windowed;
+
+    /**
+     * Builds the indexes for a subset of the documents.
+     *
+     * @param vocabulary the sorted vocabulary of the corpus, whose positions are the ids
+     *                   used by the document statistics
+     * @param documents the documents of the subset
+     * @param documentStatistics gives the statistics of a document, usually cached per matrix version
+     */
+    public CorpusStatistics(String[] vocabulary, List<String> documents,
+                            Function<String, DocumentStatistics> documentStatistics) {
+        this.documents = documents;
+
+        List<DocumentStatistics> entries = new ArrayList<>(documents.size());
+        boolean[] used = new boolean[vocabulary.length];
+        boolean allWindowed = !documents.isEmpty();
+        for (String document : documents) {
+            DocumentStatistics entry = documentStatistics.apply(document);
+            entries.add(entry);
+            for (int id : entry.termIds) {
+                used[id] = true;
+            }
+            allWindowed &= entry.windowed;
+        }
+        this.windowed = allWindowed;
+
+        // il vocabolario del sottoinsieme mantiene l'ordine alfabetico di quello del corpus
+        int[] local = new int[vocabulary.length];
+        List<String> subsetTerms = new ArrayList<>();
+        for (int id = 0; id < vocabulary.length; id++) {
+            if (used[id]) {
+                local[id] = subsetTerms.size();
+                subsetTerms.add(vocabulary[id]);
+            }
+        }
+        this.terms = subsetTerms.toArray(new String[0]);
+        this.termIds = new HashMap<>(terms.length * 2);
+        for (int id = 0; id < terms.length; id++) {
+            termIds.put(terms[id], id);
+        }
+
+        this.documentFrequency = new int[terms.length];
+        this.totals = new int[terms.length];
+        this.coOccurrence = new LongIntHashMap();
+        for (int d = 0; d < entries.size(); d++) {
+            DocumentStatistics entry = entries.get(d);
+            for (int i = 0; i < entry.termIds.length; i++) {
+                int id = local[entry.termIds[i]];
+                documentFrequency[id]++;
+                totals[id] += entry.counts[i];
+            }
+            rankings.put(documents.get(d), entry.ranking);
+            for (int p = 0; p < entry.pairKeys.length; p++) {
+                long key = entry.pairKeys[p];
+                coOccurrence.addTo(pairKey(local[(int) (key >>> 32)], local[(int) key]), entry.pairScores[p]);
+            }
+        }
+
+        coOccurrence.pruneBelow(MIN_PAIR_SCORE);
+        this.pairsByScore = sortPairs();
+    }
+
+    public List<String> getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Gets the number of distinct words in the documents.
+     *
+     * @return the vocabulary size
+     */
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    public String getTerm(int id) {
+        return terms[id];
+    }
+
+    /**
+     * Gets the id of a word.
+     *
+     * @param word the word
+     * @return the id, or -1 if the word does not appear in the documents
+     */
+    public int getTermId(String word) {
+        Integer id = termIds.get(word);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Gets the number of documents containing a word.
+     *
+     * @param id the id of the word
+     * @return the document frequency
+     */
+    public int getDocumentFrequency(int id) {
+        return documentFrequency[id];
+    }
+
+    /**
+     * Gets the occurrences of a word across all the documents.
+     *
+     * @param id the id of the word
+     * @return the total frequency
+     */
+    public int getTotal(int id) {
+        return totals[id];
+    }
+
+    /**
+     * Gets the distinct total frequencies of the words, in ascending order.
+     *
+     * @return a new array with the distinct totals
+     */
+    public int[] getDistinctTotals() {
+        int[] sorted = totals.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    /**
+     * Gets the position of a frequency in the ranking of a document: 1 for the
+     * highest frequency, words with the same frequency share the position.
+     *
+     * @param document the document
+     * @param frequency a frequency of a word in the document
+     * @return the position, or -1 if no word of the document has that frequency
+     */
+    public int getRank(String document, int frequency) {
+        int[] ranking = rankings.get(document);
+        if (ranking == null) {
+            return -1;
+        }
+        // ricerca binaria su un array ordinato in modo decrescente
+        int low = 0;
+        int high = ranking.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ranking[mid] > frequency) {
+                low = mid + 1;
+            } else if (ranking[mid] < frequency) {
+                high = mid - 1;
+            } else {
+                return mid + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the number of positions in the ranking of a document.
+     *
+     * @param document the document
+     * @return the number of distinct frequencies of the document
+     */
+    public int getRankCount(String document) {
+        int[] ranking = rankings.get(document);
+        return ranking != null ? ranking.length : 0;
+    }
+
+    /**
+     * Gets the co-occurrence score of two words.
+     *
+     * @param id1 the id of the first word
+     * @param id2 the id of the second word
+     * @return the score, 0 if the pair was never seen or has been pruned
+     */
+    public int getCoOccurrence(int id1, int id2) {
+        return id1 == id2 ? 0 : coOccurrence.get(pairKey(id1, id2));
+    }
+
+    /**
+     * Tells whether the co-occurrence scores count words appearing close to each
+     * other, instead of words frequent in the same documents.
+     *
+     * @return true if the scores come from the windowed counts of the matrix
+     */
+    public boolean isWindowed() {
+        return windowed;
+    }
+
+    /**
+     * Gets the number of pairs in the co-occurrence matrix.
+     *
+     * @return the pair count
+     */
+    public int getPairCount() {
+        return pairsByScore.length;
+    }
+
+    /**
+     * Gets a pair by position in the ranking of the scores.
+     *
+     * @param position the position, 0 for the pair with the highest score
+     * @return the ids of the two words
+     */
+    public int[] getPair(int position) {
+        long key = pairsByScore[position];
+        return new int[]{(int) (key >>> 32), (int) key};
+    }
+
+    /**
+     * Gets the score of a pair by position in the ranking of the scores.
+     *
+     * @param position the position, 0 for the pair with the highest score
+     * @return the co-occurrence score
+     */
+    public int getPairScore(int position) {
+        return coOccurrence.get(pairsByScore[position]);
+    }
+
+    /**
+     * Packs an unordered pair of term ids into a key, the smaller id first.
+     */
+    private static long pairKey(int id1, int id2) {
+        int low = Math.min(id1, id2);
+        int high = Math.max(id1, id2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Adds the pairs of the most frequent words of a document to the pair scores.
+     */
+    private static void addCoOccurrences(int[] ids, int[] counts, LongIntHashMap coOccurrence) {
+        // ordino gli indici per frequenza decrescente e tengo solo le parole più frequenti
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> counts[b] != counts[a] ? counts[b] - counts[a] : ids[a] - ids[b]);
+        int top = Math.min(order.length, TOP_WORDS_PER_DOCUMENT);
+
+        for (int i = 0; i < top; i++) {
+            for (int j = i + 1; j < top; j++) {
+                coOccurrence.addTo(pairKey(ids[order[i]], ids[order[j]]),
+                    Math.min(counts[order[i]], counts[order[j]]));
+            }
+        }
+    }
+
+    /**
+     * Adds the windowed pair counts of a document to the pair scores.
+     */
+    private static void addWindowedCoOccurrences(WordCoOccurrence windowCounts, String document,
+                                                 Map<String, Integer> termIds, LongIntHashMap coOccurrence) {
+        windowCounts.forEachPair(document, (first, second, count) -> {
+            Integer id1 = termIds.get(first);
+            Integer id2 = termIds.get(second);
+            if (id1 != null && id2 != null) {
+                coOccurrence.addTo(pairKey(id1, id2), count);
+            }
+        });
+    }
+
+    private long[] sortPairs() {
+        long[] keys = new long[coOccurrence.size()];
+        int[] n = {0};
+        coOccurrence.forEach((key, value) -> keys[n[0]++] = key);
+
+        Long[] boxed = new Long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = keys[i];
+        }
+        Arrays.sort(boxed, (a, b) -> {
+            int byScore = Integer.compare(coOccurrence.get(b), coOccurrence.get(a));
+            return byScore != 0 ? byScore : Long.compare(a, b);
+        });
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = boxed[i];
+        }
+        return keys;
+    }
+
+    private static int[] distinctDescending(int[] counts) {
+        int[] sorted = counts.clone();
+        Arrays.sort(sorted);
+        int[] descending = new int[sorted.length];
+        int distinct = 0;
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            if (distinct == 0 || sorted[i] != descending[distinct - 1]) {
+                descending[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(descending, distinct);
+    }
+
+    /**
+     * Statistics of a single document over the vocabulary of the corpus. They depend
+     * only on the document and on the matrix version, so they are built once and reused
+     * by the indexes of every subset containing the document.
+     */
+    public static final class DocumentStatistics {
+
+        /** Corpus ids of the words of the document */
+        private final int[] termIds;
+
+        /** Counts matching {@link #termIds} */
+        private final int[] counts;
+
+        /** Distinct frequencies of the document in descending order */
+        private final int[] ranking;
+
+        /** Pairs of corpus ids found in the document, keyed as in {@link CorpusStatistics#pairKey(int, int)} */
+        private final long[] pairKeys;
+
+        /** Scores matching {@link #pairKeys} */
+        private final int[] pairScores;
+
+        /** Whether the pair scores come from the windowed counts */
+        private final boolean windowed;
+
+        /**
+         * Builds the statistics of a document.
+         *
+         * @param dtm the Document-Term Matrix
+         * @param document the document
+         * @param corpusTermIds the id of each word of the corpus vocabulary
+         */
+        public DocumentStatistics(DocumentTermMatrix dtm, String document, Map<String, Integer> corpusTermIds) {
+            Map<String, Integer> frequencies = dtm.getTermsForDocument(document);
+            this.termIds = new int[frequencies.size()];
+            this.counts = new int[frequencies.size()];
+            int n = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                termIds[n] = corpusTermIds.get(entry.getKey());
+                counts[n++] = entry.getValue();
+            }
+            this.ranking = distinctDescending(counts);
+
+            LongIntHashMap pairs = new LongIntHashMap();
+            WordCoOccurrence windowCounts = dtm.getCoOccurrence();
+            this.windowed = windowCounts != null;
+            if (windowed) {
+                addWindowedCoOccurrences(windowCounts, document, corpusTermIds, pairs);
+            } else {
+                addCoOccurrences(termIds, counts, pairs);
+            }
+            this.pairKeys = new long[pairs.size()];
+            this.pairScores = new int[pairs.size()];
+            int[] p = {0};
+            pairs.forEach((key, score) -> {
+                pairKeys[p[0]] = key;
+                pairScores[p[0]++] = score;
+            });
+        }
+    }
+}
@@ -4,17 +4,21 @@ import java.io.Serializable;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashMap;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.zip.CRC32;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import wordageddon.util.AtomicFileStore;
 
 /**
  * Document-Term Matrix implementation for text analysis.
@@ -36,6 +40,15 @@ public class DocumentTermMatrix implements Serializable {
      */
     private Map<String, Map<String, Integer>> matrix;
     
+    /** 
+     * Windowed co-occurrence counts of the documents, if enabled, possibly still being
+     * computed in the background. Not serialized: it is recomputed from the documents.
+     */
+    private transient volatile CompletableFuture<WordCoOccurrence> coOccurrence;
+    
+    /** Positions of the tokens of each document, computed with the matrix if enabled */
+    private transient volatile PositionalIndex positionalIndex;
+    
     /**
      * Constructs a new empty Document-Term Matrix.
      * Initializes the internal HashMap structure.
@@ -57,7 +70,19 @@ public class DocumentTermMatrix implements Serializable {
         matrix.computeIfAbsent(documentId, k -> new HashMap<>())
               .compute(word, (k, v) -> v == null ? 1 : v + 1);
     }
-    
+
+    /**
+     * Adds several occurrences of a term to the specified document.
+     *
+     * @param documentId the unique identifier of the document
+     * @param word the term/word to add to the document
+     * @param count the number of occurrences to add
+     */
+    public void addTerm(String documentId, String word, int count) {
+        matrix.computeIfAbsent(documentId, k -> new HashMap<>())
+              .merge(word, count, Integer::sum);
+    }
+
     /**
      * Retrieves all unique terms across all documents in the matrix.
      * The terms are returned in a lexicographically ordered set.
@@ -113,17 +138,99 @@ public class DocumentTermMatrix implements Serializable {
         return getAllTerms().size();
     }
 
+    /**
+     * Gets the co-occurrence counts of the documents, waiting for them if they are
+     * still being computed: not to be called from the JavaFX thread.
+     * 
+     * @return the co-occurrence matrix, or null if it was not computed
+     */
+    public WordCoOccurrence getCoOccurrence() {
+        CompletableFuture<WordCoOccurrence> counts = coOccurrence;
+        return counts != null ? counts.join() : null;
+    }
+
+    /**
+     * Gets the co-occurrence counts of the documents without waiting for them.
+     * 
+     * @return a future completed with the co-occurrence matrix, or with null if it is not computed
+     */
+    public CompletableFuture<WordCoOccurrence> getCoOccurrenceAsync() {
+        CompletableFuture<WordCoOccurrence> counts = coOccurrence;
+        return counts != null ? counts : CompletableFuture.completedFuture(null);
+    }
+
+    public void setCoOccurrence(WordCoOccurrence coOccurrence) {
+        this.coOccurrence = coOccurrence != null ? CompletableFuture.completedFuture(coOccurrence) : null;
+    }
+
+    /**
+     * Starts computing the co-occurrence counts in the background, unless they are
+     * already available or being computed for this matrix.
+     * 
+     * @param builder the computation of the counts; it should not throw
+     * @param executor the executor running the computation
+     * @return the future completed with the counts
+     */
+    public synchronized CompletableFuture<WordCoOccurrence> computeCoOccurrenceIfAbsent(
+            Supplier<WordCoOccurrence> builder, Executor executor) {
+        if (coOccurrence == null) {
+            coOccurrence = CompletableFuture.supplyAsync(builder, executor);
+        }
+        return coOccurrence;
+    }
+
+    /**
+     * Gets the positional postings computed while building the matrix.
+     * 
+     * @return the positional index, or null if it was not computed
+     */
+    public PositionalIndex getPositionalIndex() {
+        return positionalIndex;
+    }
+
+    public void setPositionalIndex(PositionalIndex positionalIndex) {
+        this.positionalIndex = positionalIndex;
+    }
+
+    /**
+     * Computes a fingerprint of the matrix content.
+     * Data derived from the matrix (e.g. the question bank) stores it to detect
+     * when it is out of date.
+     * 
+     * @return a checksum of documents, terms and frequencies
+     */
+    public long getFingerprint() {
+        CRC32 crc = new CRC32();
+        // visito documenti e termini in ordine per ottenere lo stesso valore a parità di contenuto
+        for (String documentId : new TreeSet<>(getDocuments())) {
+            updateChecksum(crc, documentId);
+            new TreeMap<>(getTermsForDocument(documentId))
+                .forEach((word, count) -> updateChecksum(crc, word + "=" + count));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Adds a string to a running checksum, followed by a separator.
+     * 
+     * @param crc the checksum to update
+     * @param value the string to add
+     */
+    protected static void updateChecksum(CRC32 crc, String value) {
+        byte[] raw = (value + "\n").getBytes(StandardCharsets.UTF_8);
+        crc.update(raw, 0, raw.length);
+    }
+
     /**
      * Saves the Document-Term Matrix to a file using Java serialization.
+     * The file is replaced atomically and carries a checksum footer.
      * 
      * @param file the File object representing where the matrix should be saved
      * @throws IOException if an I/O error occurs during saving
      */
     public void saveToFile(File file) throws IOException {
-        // salvo la struttura su file serializzato
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
-            oos.writeObject(this);
-        }
+        // salvo la struttura su file serializzato (scrittura atomica con checksum)
+        AtomicFileStore.writeObject(file, this);
     }
 
     /**
@@ -131,14 +238,12 @@ public class DocumentTermMatrix implements Serializable {
      * 
      * @param file the File object representing the file to load from
      * @return the loaded DocumentTermMatrix instance
-     * @throws IOException if an I/O error occurs during loading
+     * @throws IOException if an I/O error occurs during loading or the checksum does not match
      * @throws ClassNotFoundException if the file doesn't contain a valid DocumentTermMatrix
      */
     public static DocumentTermMatrix loadFromFile(File file) throws IOException, ClassNotFoundException {
-        // leggo da file serializzato e restituisco il contenuto
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            return (DocumentTermMatrix) ois.readObject();
-        }
+        // leggo da file serializzato, verificando il checksum, e restituisco il contenuto
+        return (DocumentTermMatrix) AtomicFileStore.readObject(file);
     }
     
     /**
@@ -79,4 +79,17 @@ public class GameDataContainer implements Serializable {
     public void updateTimestamp() {
         this.lastUpdated = System.currentTimeMillis();
     }
+    
+    /**
+     * Creates a shallow copy of this container, keeping the original timestamp.
+     * The services always replace the matrix, documents and stopwords instead of
+     * mutating them, so the copy can be serialized by another thread.
+     * 
+     * @return a snapshot of the current container state
+     */
+    public GameDataContainer snapshot() {
+        GameDataContainer copy = new GameDataContainer(documentTermMatrix, documents, stopwords);
+        copy.lastUpdated = this.lastUpdated;
+        return copy;
+    }
 }
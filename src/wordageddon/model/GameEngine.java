@@ -51,7 +51,7 @@ public class GameEngine {
     private final Set<String> allTerms;
 
     /** Random number generator for question selection */
-    private final Random random = new Random();
+    private final Random random;
     
     // campi di stato del gioco
     /** Current difficulty level selected by the player */
@@ -73,9 +73,26 @@ public class GameEngine {
      * @param visibleDocuments list of document names that should be used in the game
      */
     public GameEngine(DocumentTermMatrix dtm, List<String> visibleDocuments) {
+        this(dtm, visibleDocuments, new Random());
+    }
+    
+    /**
+     * Constructs a GameEngine with a seeded random generator, so that the
+     * sequence of questions can be reproduced (e.g. for tournaments or benchmarks).
+     * 
+     * @param dtm the Document-Term Matrix containing processed document data
+     * @param visibleDocuments list of document names that should be used in the game
+     * @param seed the seed of the random generator
+     */
+    public GameEngine(DocumentTermMatrix dtm, List<String> visibleDocuments, long seed) {
+        this(dtm, visibleDocuments, new Random(seed));
+    }
+    
+    private GameEngine(DocumentTermMatrix dtm, List<String> visibleDocuments, Random random) {
         this.dtm = dtm;
         this.documents = new ArrayList<>(visibleDocuments);
         this.allTerms = dtm.getAllTerms();
+        this.random = random;
     }
     
     /**
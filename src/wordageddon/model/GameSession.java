@@ -23,9 +23,18 @@ public class GameSession {
     /** The timestamp when the game session started */
     private final long startTime;
     
-    /** The list of questions for this session */
+    /** The monotonic clock value when the game session started, used for all the durations */
+    private final long startNanos;
+    
+    /** The monotonic clock value when the current question was shown */
+    private long questionShownNanos;
+    
+    /** The list of questions for this session, filled progressively when streamed */
     private final List<Question> questions;
     
+    /** The number of questions the session is made of */
+    private final int totalQuestions;
+    
     /** The list of answers submitted by the user */
     private final List<Answer> answers;
     
@@ -51,12 +60,64 @@ public class GameSession {
         }
         
         this.difficulty = difficulty;
-        this.questions = Collections.unmodifiableList(new ArrayList<>(questions)); // crea una copia immutabile
+        this.questions = new ArrayList<>(questions); // crea una copia per evitare modifiche esterne
+        this.totalQuestions = questions.size();
         this.answers = new ArrayList<>();
         this.startTime = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.questionShownNanos = startNanos;
         this.isCompleted = false;
     }
     
+    /**
+     * Constructs a new GameSession whose questions are added one at a time
+     * with {@link #addQuestion(Question)} while they are generated.
+     * 
+     * @param difficulty the difficulty level ("Facile", "Medio", "Difficile")
+     * @param totalQuestions the number of questions the session will contain
+     * @throws IllegalArgumentException if difficulty is null/empty or totalQuestions is not positive
+     */
+    public GameSession(String difficulty, int totalQuestions) {
+        if (difficulty == null || difficulty.trim().isEmpty()) {
+            throw new IllegalArgumentException("Difficulty cannot be null or empty");
+        }
+        if (totalQuestions <= 0) {
+            throw new IllegalArgumentException("Total questions must be positive");
+        }
+        
+        this.difficulty = difficulty;
+        this.questions = new ArrayList<>();
+        this.totalQuestions = totalQuestions;
+        this.answers = new ArrayList<>();
+        this.startTime = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.questionShownNanos = startNanos;
+        this.isCompleted = false;
+    }
+    
+    /**
+     * Appends a question generated after the session was created.
+     * 
+     * @param question the next question of the session
+     * @throws IllegalStateException if the session already holds all its questions
+     */
+    public void addQuestion(Question question) {
+        if (questions.size() >= totalQuestions) {
+            throw new IllegalStateException("All questions have already been added");
+        }
+        questions.add(question);
+    }
+    
+    /**
+     * Gets the number of questions the session is made of,
+     * including those not generated yet.
+     * 
+     * @return the total number of questions
+     */
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+    
     /**
      * Gets the difficulty level of this session.
      * 
@@ -77,6 +138,8 @@ public class GameSession {
     
     /**
      * Gets the end time of this session.
+     * The end is the start time plus the elapsed time measured with the monotonic
+     * clock, so it is not affected by changes of the system clock during the game.
      * 
      * @return the end timestamp in milliseconds, or null if not finished
      */
@@ -90,17 +153,29 @@ public class GameSession {
      * @return the session duration, or time elapsed so far if not finished
      */
     public long getDuration() {
-        long end = endTime != null ? endTime : System.currentTimeMillis();
-        return end - startTime;
+        if (endTime != null) {
+            return endTime - startTime;
+        }
+        return elapsedMillis(startNanos, System.nanoTime());
     }
     
     /**
-     * Gets the list of questions for this session.
+     * Records that the current question has just been shown to the user, so that its
+     * response time does not include the time spent waiting for it to be generated.
+     * Without this call the time is measured from the previous answer, or from the
+     * start of the session for the first question.
+     */
+    public void markQuestionShown() {
+        this.questionShownNanos = System.nanoTime();
+    }
+    
+    /**
+     * Gets the list of questions available so far for this session.
      * 
      * @return an immutable list of questions
      */
     public List<Question> getQuestions() {
-        return questions;
+        return Collections.unmodifiableList(questions);
     }
     
     /**
@@ -133,12 +208,16 @@ public class GameSession {
         }
         
         Question question = questions.get(questionIndex);
-        Answer answer = new Answer(question, selectedAnswerIndex);
+        long now = System.nanoTime();
+        Answer answer = new Answer(question, selectedAnswerIndex, elapsedMillis(questionShownNanos, now));
         answers.add(answer);
         
+        // la prossima domanda viene mostrata subito, salvo nuova chiamata a markQuestionShown
+        questionShownNanos = now;
+        
         // controlla se questa era l'ultima domanda
-        if (answers.size() == questions.size()) {
-            completeSession();
+        if (answers.size() == totalQuestions) {
+            completeSession(now);
         }
         
         return answer;
@@ -147,9 +226,13 @@ public class GameSession {
     /**
      * Marks the session as completed and records the end time.
      */
-    private void completeSession() {
+    private void completeSession(long nowNanos) {
         this.isCompleted = true;
-        this.endTime = System.currentTimeMillis();
+        this.endTime = startTime + elapsedMillis(startNanos, nowNanos);
+    }
+    
+    private static long elapsedMillis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000L;
     }
     
     /**
@@ -218,8 +301,8 @@ public class GameSession {
      * @return the percentage (0-100) of correct answers
      */
     public double getPercentageScore() {
-        if (questions.isEmpty()) return 0.0;
-        return (double) getCorrectAnswersCount() / questions.size() * 100.0;
+        if (totalQuestions == 0) return 0.0;
+        return (double) getCorrectAnswersCount() / totalQuestions * 100.0;
     }
     
     /**
@@ -228,7 +311,7 @@ public class GameSession {
      * @return the maximum score (number of questions * 1.0)
      */
     public double getMaxPossibleScore() {
-        return questions.size() * 1.0;
+        return totalQuestions * 1.0;
     }
     
     /**
@@ -237,7 +320,7 @@ public class GameSession {
      * @return the minimum score (number of questions * -0.33)
      */
     public double getMinPossibleScore() {
-        return questions.size() * -0.33;
+        return totalQuestions * -0.33;
     }
     
     /**
@@ -249,7 +332,7 @@ public class GameSession {
         StringBuilder summary = new StringBuilder();
         summary.append(String.format("Sessione di gioco - Difficoltà: %s%n", difficulty));
         summary.append(String.format("Durata: %.1f secondi%n", getDuration() / 1000.0));
-        summary.append(String.format("Domande totali: %d%n", questions.size()));
+        summary.append(String.format("Domande totali: %d%n", totalQuestions));
         summary.append(String.format("Risposte corrette: %d%n", getCorrectAnswersCount()));
         summary.append(String.format("Risposte sbagliate: %d%n", getIncorrectAnswersCount()));
         summary.append(String.format("Percentuale: %.1f%%%n", getPercentageScore()));
@@ -260,6 +343,6 @@ public class GameSession {
     @Override
     public String toString() {
         return String.format("GameSession[difficulty=%s, questions=%d, answers=%d, completed=%s]",
-            difficulty, questions.size(), answers.size(), isCompleted);
+            difficulty, totalQuestions, answers.size(), isCompleted);
     }
 }
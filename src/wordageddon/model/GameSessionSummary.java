@@ -57,7 +57,7 @@ public class GameSessionSummary {
      * @param createdAt the timestamp when the session was created
      * @param totalQuestions the total number of questions asked
      * @param correctAnswers the number of questions answered correctly
-     * @param duration the duration of the session in milliseconds
+     * @param duration the measured duration of the session in milliseconds, 0 if not recorded
      */
     public GameSessionSummary(int sessionId, int userId, String difficulty, double score, 
                             String language, Date createdAt, int totalQuestions, 
@@ -0,0 +1,261 @@
+package wordageddon.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable segment of the corpus index.
+ *
+ * A segment stores the term counts of a group of documents ingested together:
+ * a sorted term dictionary, the postings (documents and counts) of every term and,
+ * for every document, its term ids and counts and, when positional indexing is
+ * enabled, the positions of its tokens. Segments are never modified once written;
+ * newer segments override the documents they contain in older ones.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class IndexSegment implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Unique identifier, used to name the segment file */
+    private final long id;
+
+    /** Visibility order: a segment overrides segments with a lower generation */
+    private final long generation;
+
+    /** Document identifiers, sorted */
+    private final String[] documents;
+
+    /** Signature of the content each document was built from */
+    private final long[] signatures;
+
+    /** Term dictionary, sorted */
+    private final String[] terms;
+
+    /** For each term, the ordinals of the documents containing it (ascending) */
+    private final int[][] postingDocuments;
+
+    /** For each term, the counts matching {@link #postingDocuments} */
+    private final int[][] postingCounts;
+
+    /** For each document, the ids of its terms (ascending) */
+    private final int[][] documentTerms;
+
+    /** For each document, the counts matching {@link #documentTerms} */
+    private final int[][] documentCounts;
+
+    /** For each document, the positions of its tokens; null if the segment has none */
+    private final PositionalIndex.DocumentPostings[] positions;
+
+    private IndexSegment(long id, long generation, String[] documents, long[] signatures, String[] terms,
+                         int[][] postingDocuments, int[][] postingCounts,
+                         int[][] documentTerms, int[][] documentCounts,
+                         PositionalIndex.DocumentPostings[] positions) {
+        this.id = id;
+        this.generation = generation;
+        this.documents = documents;
+        this.signatures = signatures;
+        this.terms = terms;
+        this.postingDocuments = postingDocuments;
+        this.postingCounts = postingCounts;
+        this.documentTerms = documentTerms;
+        this.documentCounts = documentCounts;
+        this.positions = positions;
+    }
+
+    /**
+     * Builds a segment from the term counts of some documents.
+     *
+     * @param id the unique identifier of the segment
+     * @param generation the visibility order of the segment
+     * @param termCounts the term counts of each document
+     * @param documentSignatures the content signature of each document
+     * @param documentPositions the positions of the tokens of each document, may be empty
+     * @return the new segment
+     */
+    public static IndexSegment build(long id, long generation, Map<String, Map<String, Integer>> termCounts,
+                                     Map<String, Long> documentSignatures,
+                                     Map<String, PositionalIndex.DocumentPostings> documentPositions) {
+        String[] documents = termCounts.keySet().toArray(new String[0]);
+        Arrays.sort(documents);
+
+        // costruisco il dizionario ordinato dei termini
+        TreeSet<String> dictionary = new TreeSet<>();
+        termCounts.values().forEach(counts -> dictionary.addAll(counts.keySet()));
+        String[] terms = dictionary.toArray(new String[0]);
+
+        long[] signatures = new long[documents.length];
+        int[][] documentTerms = new int[documents.length][];
+        int[][] documentCounts = new int[documents.length][];
+        int[] documentFrequency = new int[terms.length];
+
+        for (int d = 0; d < documents.length; d++) {
+            Map<String, Integer> counts = termCounts.get(documents[d]);
+            signatures[d] = documentSignatures.getOrDefault(documents[d], 0L);
+
+            int[] ids = new int[counts.size()];
+            int i = 0;
+            for (String term : counts.keySet()) {
+                ids[i++] = Arrays.binarySearch(terms, term);
+            }
+            Arrays.sort(ids);
+
+            int[] values = new int[ids.length];
+            for (int j = 0; j < ids.length; j++) {
+                values[j] = counts.get(terms[ids[j]]);
+                documentFrequency[ids[j]]++;
+            }
+            documentTerms[d] = ids;
+            documentCounts[d] = values;
+        }
+
+        // inverto l'indice diretto per ottenere le posting list
+        int[][] postingDocuments = new int[terms.length][];
+        int[][] postingCounts = new int[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            postingDocuments[t] = new int[documentFrequency[t]];
+            postingCounts[t] = new int[documentFrequency[t]];
+        }
+        int[] fill = new int[terms.length];
+        for (int d = 0; d < documents.length; d++) {
+            for (int j = 0; j < documentTerms[d].length; j++) {
+                int t = documentTerms[d][j];
+                postingDocuments[t][fill[t]] = d;
+                postingCounts[t][fill[t]] = documentCounts[d][j];
+                fill[t]++;
+            }
+        }
+
+        // le posizioni sono salvate solo se il segmento le ha per almeno un documento
+        PositionalIndex.DocumentPostings[] positions = null;
+        if (!documentPositions.isEmpty()) {
+            positions = new PositionalIndex.DocumentPostings[documents.length];
+            for (int d = 0; d < documents.length; d++) {
+                positions[d] = documentPositions.get(documents[d]);
+            }
+        }
+
+        return new IndexSegment(id, generation, documents, signatures, terms,
+            postingDocuments, postingCounts, documentTerms, documentCounts, positions);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the documents stored in this segment.
+     *
+     * @return an immutable, sorted list of document identifiers
+     */
+    public List<String> getDocuments() {
+        return Collections.unmodifiableList(Arrays.asList(documents));
+    }
+
+    /**
+     * Checks whether this segment contains the given document.
+     *
+     * @param documentId the document identifier
+     * @return true if the document is stored in this segment
+     */
+    public boolean containsDocument(String documentId) {
+        return Arrays.binarySearch(documents, documentId) >= 0;
+    }
+
+    /**
+     * Gets the content signature of a document.
+     *
+     * @param documentId the document identifier
+     * @return the signature, or 0 if the document is not in this segment
+     */
+    public long getSignature(String documentId) {
+        int d = Arrays.binarySearch(documents, documentId);
+        return d >= 0 ? signatures[d] : 0L;
+    }
+
+    /**
+     * Gets the positions of the tokens of a document.
+     *
+     * @param documentId the document identifier
+     * @return the postings, or null if the document is not in this segment or was indexed without positions
+     */
+    public PositionalIndex.DocumentPostings getPositions(String documentId) {
+        int d = Arrays.binarySearch(documents, documentId);
+        return d >= 0 && positions != null ? positions[d] : null;
+    }
+
+    /**
+     * Gets the term counts of a document.
+     *
+     * @param documentId the document identifier
+     * @return a new map with the counts, empty if the document is not in this segment
+     */
+    public Map<String, Integer> getTermsForDocument(String documentId) {
+        int d = Arrays.binarySearch(documents, documentId);
+        if (d < 0) {
+            return new HashMap<>();
+        }
+        Map<String, Integer> counts = new HashMap<>(documentTerms[d].length * 2);
+        for (int j = 0; j < documentTerms[d].length; j++) {
+            counts.put(terms[documentTerms[d][j]], documentCounts[d][j]);
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the count of a term in a document through the postings.
+     *
+     * @param documentId the document identifier
+     * @param term the term to look up
+     * @return the count, or 0 if not found
+     */
+    public int getFrequency(String documentId, String term) {
+        int t = Arrays.binarySearch(terms, term);
+        int d = Arrays.binarySearch(documents, documentId);
+        if (t < 0 || d < 0) {
+            return 0;
+        }
+        int p = Arrays.binarySearch(postingDocuments[t], d);
+        return p >= 0 ? postingCounts[t][p] : 0;
+    }
+
+    /**
+     * Gets the documents containing a term, according to this segment only.
+     *
+     * @param term the term to look up
+     * @return the identifiers of the documents containing the term
+     */
+    public List<String> getDocumentsContaining(String term) {
+        int t = Arrays.binarySearch(terms, term);
+        if (t < 0) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>(postingDocuments[t].length);
+        for (int d : postingDocuments[t]) {
+            result.add(documents[d]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the size of the term dictionary.
+     *
+     * @return the number of distinct terms in this segment
+     */
+    public int getTermCount() {
+        return terms.length;
+    }
+}
@@ -0,0 +1,338 @@
+package wordageddon.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Positional postings of the documents: for every word of a document, the positions
+ * of its occurrences in the token stream.
+ *
+ * Positions count every token, stopwords included, so that "the word right after X"
+ * matches the text read by the player. The positions of a word are stored as the
+ * gaps between consecutive occurrences, each written as a variable-length integer
+ * (7 bits per byte), and the postings of all the words of a document share one byte
+ * array with a 2-byte offset per word: about one byte per token plus two per distinct
+ * word, against the five or six bytes per token of the raw text.
+ *
+ * The index is filled by {@link TextAnalysisService} in the same pass that counts the
+ * terms; once the documents have been added it is read-only and can be shared between
+ * threads. The postings of a document are immutable and serializable, so they are
+ * stored in the {@link IndexSegment} of the document and an index can be put together
+ * from them without reading the text again.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class PositionalIndex implements TokenSink {
+
+    private final Map<String, DocumentPostings> documents = new HashMap<>();
+
+    // stato del documento in corso
+    private String currentDocument;
+    private Map<String, PostingsBuilder> building;
+    private int position;
+
+    @Override
+    public void beginDocument(String documentId) {
+        endDocument();
+        currentDocument = documentId;
+        building = new HashMap<>();
+        position = 0;
+    }
+
+    @Override
+    public void addToken(String token, boolean stopword) {
+        if (building == null) {
+            throw new IllegalStateException("Nessun documento in corso");
+        }
+        building.computeIfAbsent(token, t -> new PostingsBuilder()).add(position++);
+    }
+
+    @Override
+    public void endDocument() {
+        if (currentDocument == null) {
+            return;
+        }
+        documents.put(currentDocument, new DocumentPostings(building, position));
+        currentDocument = null;
+        building = null;
+    }
+
+    /**
+     * Adds the postings of a document indexed earlier.
+     *
+     * @param documentId the identifier of the document
+     * @param postings the postings of the document
+     */
+    public void addDocument(String documentId, DocumentPostings postings) {
+        documents.put(documentId, postings);
+    }
+
+    /**
+     * Gets the postings of a document.
+     *
+     * @param documentId the identifier of the document
+     * @return the postings, or null if the document has not been indexed
+     */
+    public DocumentPostings getDocument(String documentId) {
+        return documents.get(documentId);
+    }
+
+    /**
+     * Gets the number of indexed documents.
+     *
+     * @return the document count
+     */
+    public int getDocumentCount() {
+        return documents.size();
+    }
+
+    /**
+     * Gets the memory taken by the encoded postings of all the documents,
+     * excluding the words themselves.
+     *
+     * @return the size in bytes
+     */
+    public long getEncodedSize() {
+        long size = 0;
+        for (DocumentPostings postings : documents.values()) {
+            size += postings.getEncodedSize();
+        }
+        return size;
+    }
+
+    /**
+     * Postings of a single document, with its words sorted alphabetically.
+     */
+    public static class DocumentPostings implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] terms;
+
+        /**
+         * Start of the postings of each word in {@link #data}, plus the end of the last one.
+         * Stored in 2 bytes per word when the postings are shorter than 64 KB.
+         */
+        private final char[] shortOffsets;
+        private final int[] offsets;
+        private final byte[] data;
+        private final int tokenCount;
+
+        private DocumentPostings(Map<String, PostingsBuilder> building, int tokenCount) {
+            this.tokenCount = tokenCount;
+            this.terms = building.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+
+            int size = 0;
+            for (PostingsBuilder builder : building.values()) {
+                size += builder.length;
+            }
+            this.data = new byte[size];
+            int[] starts = new int[terms.length + 1];
+            for (int i = 0; i < terms.length; i++) {
+                PostingsBuilder builder = building.get(terms[i]);
+                System.arraycopy(builder.bytes, 0, data, starts[i], builder.length);
+                starts[i + 1] = starts[i] + builder.length;
+            }
+
+            if (size <= Character.MAX_VALUE) {
+                this.shortOffsets = new char[starts.length];
+                for (int i = 0; i < starts.length; i++) {
+                    shortOffsets[i] = (char) starts[i];
+                }
+                this.offsets = null;
+            } else {
+                this.shortOffsets = null;
+                this.offsets = starts;
+            }
+        }
+
+        /**
+         * Gets the number of tokens of the document, stopwords included.
+         *
+         * @return the token count
+         */
+        public int getTokenCount() {
+            return tokenCount;
+        }
+
+        public int getTermCount() {
+            return terms.length;
+        }
+
+        public String getTerm(int index) {
+            return terms[index];
+        }
+
+        /**
+         * Gets the index of a word in the postings.
+         *
+         * @param word the word
+         * @return the index, or -1 if the word is not in the document
+         */
+        public int indexOf(String word) {
+            int index = Arrays.binarySearch(terms, word);
+            return index >= 0 ? index : -1;
+        }
+
+        /**
+         * Gets the positions of a word.
+         *
+         * @param word the word
+         * @return the positions in ascending order, empty if the word is not in the document
+         */
+        public int[] getPositions(String word) {
+            int index = indexOf(word);
+            return index >= 0 ? decode(index) : new int[0];
+        }
+
+        /**
+         * Finds the occurrences of a sequence of consecutive words.
+         *
+         * @param phrase the words of the phrase, in order
+         * @return the positions where the phrase starts, in ascending order
+         */
+        public int[] findPhrase(List<String> phrase) {
+            if (phrase.isEmpty()) {
+                return new int[0];
+            }
+            int[] starts = getPositions(phrase.get(0));
+            for (int k = 1; k < phrase.size() && starts.length > 0; k++) {
+                int[] next = getPositions(phrase.get(k));
+                // fusione di due liste ordinate: tengo gli inizi seguiti dalla k-esima parola
+                int kept = 0;
+                int j = 0;
+                for (int start : starts) {
+                    while (j < next.length && next[j] < start + k) {
+                        j++;
+                    }
+                    if (j < next.length && next[j] == start + k) {
+                        starts[kept++] = start;
+                    }
+                }
+                starts = Arrays.copyOf(starts, kept);
+            }
+            return starts;
+        }
+
+        /**
+         * Counts the words appearing right after a given word, in time proportional
+         * to the length of the document.
+         *
+         * @param word the word
+         * @return how many times each word follows it, empty if the word is not in the document
+         */
+        public Map<String, Integer> getNextWords(String word) {
+            Map<String, Integer> next = new HashMap<>();
+            int[] positions = getPositions(word);
+            if (positions.length == 0) {
+                return next;
+            }
+            boolean[] targets = new boolean[tokenCount + 1];
+            for (int p : positions) {
+                targets[p + 1] = true;
+            }
+            for (int i = 0; i < terms.length; i++) {
+                int hits = 0;
+                for (int p : decode(i)) {
+                    if (targets[p]) {
+                        hits++;
+                    }
+                }
+                if (hits > 0) {
+                    next.put(terms[i], hits);
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Rebuilds the token stream of the document.
+         *
+         * @return for each position, the index of its word in the postings
+         */
+        public int[] getTokenSequence() {
+            int[] sequence = new int[tokenCount];
+            for (int i = 0; i < terms.length; i++) {
+                for (int p : decode(i)) {
+                    sequence[p] = i;
+                }
+            }
+            return sequence;
+        }
+
+        /**
+         * Gets the memory taken by the encoded postings, excluding the words themselves.
+         *
+         * @return the size in bytes
+         */
+        public int getEncodedSize() {
+            return data.length + (offsets != null ? offsets.length * Integer.BYTES : shortOffsets.length * Character.BYTES);
+        }
+
+        private int offset(int index) {
+            return offsets != null ? offsets[index] : shortOffsets[index];
+        }
+
+        private int[] decode(int index) {
+            int start = offset(index);
+            int end = offset(index + 1);
+            // il numero di posizioni è il numero di byte che chiudono un intero
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                if (data[i] >= 0) {
+                    count++;
+                }
+            }
+
+            int[] positions = new int[count];
+            int offset = start;
+            int current = -1;
+            for (int n = 0; n < positions.length; n++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[offset++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                current += delta;
+                positions[n] = current;
+            }
+            return positions;
+        }
+    }
+
+    /**
+     * Growable buffer of the encoded positions of a word, used while a document is read.
+     */
+    private static final class PostingsBuilder {
+
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int last = -1;
+
+        private void add(int position) {
+            // la differenza è sempre almeno 1, la prima posizione è relativa a -1
+            int delta = position - last;
+            last = position;
+            while (true) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+                if ((delta & ~0x7F) == 0) {
+                    bytes[length++] = (byte) delta;
+                    return;
+                }
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package wordageddon.model;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -15,7 +16,9 @@ import java.util.Collections;
  * @version 1.0
  * @since 2025
  */
-public class Question {
+public class Question implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
     
     /** The question text displayed to the user */
     private final String questionText;
@@ -29,6 +32,12 @@ public class Question {
     /** Question number in the game sequence */
     private final int questionNumber;
     
+    /** Type of the question, null if unknown (e.g. questions read back from the database) */
+    private final QuestionType type;
+    
+    /** Frequency bucket of the question (see {@link QuestionStatistics#bucketOf(int)}) */
+    private final int frequencyBucket;
+    
     /**
      * Constructs a new Question with the specified parameters.
      * 
@@ -39,6 +48,21 @@ public class Question {
      * @throws IllegalArgumentException if options is null/empty or correctAnswerIndex is invalid
      */
     public Question(int questionNumber, String questionText, List<String> options, int correctAnswerIndex) {
+        this(questionNumber, questionText, options, correctAnswerIndex, null, 0);
+    }
+    
+    /**
+     * Constructs a new Question of a known template, used to collect difficulty statistics.
+     * 
+     * @param questionNumber the sequential number of this question in the game
+     * @param questionText the text of the question to be displayed
+     * @param options the list of multiple choice options
+     * @param correctAnswerIndex the index of the correct answer in the options list
+     * @param type the type of the question
+     * @param frequencyBucket the frequency bucket of the word the question is about
+     */
+    public Question(int questionNumber, String questionText, List<String> options, int correctAnswerIndex,
+                    QuestionType type, int frequencyBucket) {
         
         // valudazione parametro option (lista delle risposte)
         if (options == null || options.isEmpty()) {
@@ -60,6 +84,8 @@ public class Question {
         this.questionText = questionText;
         this.options = Collections.unmodifiableList(new ArrayList<>(options));  // creo una copia immutabile per evitare modifiche esterne
         this.correctAnswerIndex = correctAnswerIndex;
+        this.type = type;
+        this.frequencyBucket = frequencyBucket;
     }
     
     /**
@@ -76,6 +102,34 @@ public class Question {
      * 
      * @return the text of the question
      */
+    /**
+     * Gets the question type.
+     * 
+     * @return the type of this question, or null if unknown
+     */
+    public QuestionType getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the frequency bucket of the question.
+     * 
+     * @return the bucket of the word frequency the question is about
+     */
+    public int getFrequencyBucket() {
+        return frequencyBucket;
+    }
+    
+    /**
+     * Creates a copy of this question with a different sequence number.
+     * 
+     * @param number the new question number
+     * @return the renumbered question
+     */
+    public Question withNumber(int number) {
+        return new Question(number, questionText, options, correctAnswerIndex, type, frequencyBucket);
+    }
+    
     public String getQuestionText() {
         return questionText;
     }
@@ -0,0 +1,303 @@
+package wordageddon.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-generated pools of validated questions for a given version of the corpus.
+ *
+ * Questions are grouped by document subset and, inside a subset, by template:
+ * the pair ({@link QuestionType}, frequency bucket) that {@link QuestionStatistics}
+ * uses to estimate difficulty. The subset is identified by its documents in game
+ * order, because the question texts refer to documents by position ("Documento 1",
+ * "Documento 2", ...). Both draws cost O(1) per question with respect to the size
+ * of the bank: they pick a template first and then a question inside it. The bank records
+ * the fingerprint of the Document-Term Matrix it was built from and must be
+ * discarded as soon as the matrix changes.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionBank implements Serializable {
+
+    // incrementato quando cambiano i tipi di domanda o la struttura dei pool, così le banche salvate vengono rigenerate
+    private static final long serialVersionUID = 4L;
+
+    /** Fingerprint of the DTM the questions were generated from */
+    private final long corpusVersion;
+
+    /** For each subset key, one pool of questions per template (see {@link QuestionStatistics#templateOf}) */
+    private final Map<String, Question[][]> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an empty bank for the given corpus version.
+     *
+     * @param corpusVersion the fingerprint of the DTM
+     */
+    public QuestionBank(long corpusVersion) {
+        this.corpusVersion = corpusVersion;
+    }
+
+    public long getCorpusVersion() {
+        return corpusVersion;
+    }
+
+    /**
+     * Stores the pools generated for a document subset.
+     *
+     * @param documents the documents of the subset, in game order
+     * @param poolsByType the questions of each type, indexed by {@link QuestionType#ordinal()}
+     */
+    public void putPools(List<String> documents, Question[][] poolsByType) {
+        // ridistribuisco le domande per modello, la chiave usata dal modello di difficoltà
+        int[] sizes = new int[QuestionStatistics.TEMPLATES];
+        for (Question[] pool : poolsByType) {
+            for (Question question : pool) {
+                sizes[templateOf(question)]++;
+            }
+        }
+        Question[][] poolsByTemplate = new Question[QuestionStatistics.TEMPLATES][];
+        for (int template = 0; template < poolsByTemplate.length; template++) {
+            poolsByTemplate[template] = new Question[sizes[template]];
+            sizes[template] = 0;
+        }
+        for (Question[] pool : poolsByType) {
+            for (Question question : pool) {
+                int template = templateOf(question);
+                poolsByTemplate[template][sizes[template]++] = question;
+            }
+        }
+        pools.put(subsetKey(documents), poolsByTemplate);
+    }
+
+    /**
+     * Checks whether the bank has questions for a document subset.
+     *
+     * @param documents the documents of the subset, in game order
+     * @return true if the pools for the subset have been generated
+     */
+    public boolean containsSubset(List<String> documents) {
+        return pools.containsKey(subsetKey(documents));
+    }
+
+    /**
+     * Gets the number of document subsets stored in the bank.
+     *
+     * @return the subset count
+     */
+    public int getSubsetCount() {
+        return pools.size();
+    }
+
+    /**
+     * Draws distinct questions for a game, choosing the type of each question at random.
+     * Every draw costs O(1): the pools are sampled without replacement through a
+     * per-call permutation of the indices.
+     *
+     * @param documents the documents of the game, in game order
+     * @param count the number of questions to draw
+     * @param random the random source
+     * @return the questions numbered from 1, or null if the subset is missing or has too few questions
+     */
+    public List<Question> draw(List<String> documents, int count, Random random) {
+        Question[][] subsetPools = pools.get(subsetKey(documents));
+        if (subsetPools == null) {
+            return null;
+        }
+        Sampler sampler = new Sampler(subsetPools);
+        if (sampler.total < count) {
+            return null;
+        }
+
+        // domande ancora disponibili per ciascun tipo, somma dei suoi modelli
+        int typeCount = QuestionType.values().length;
+        int[] remainingByType = new int[typeCount];
+        for (int template = 0; template < subsetPools.length; template++) {
+            remainingByType[template / QuestionStatistics.BUCKETS] += subsetPools[template].length;
+        }
+
+        List<Question> questions = new ArrayList<>(count);
+        int[] types = new int[typeCount];
+        while (questions.size() < count) {
+            // scelgo un tipo a caso tra quelli non ancora esauriti
+            int available = 0;
+            for (int t = 0; t < typeCount; t++) {
+                if (remainingByType[t] > 0) {
+                    types[available++] = t;
+                }
+            }
+            int type = types[random.nextInt(available)];
+
+            // poi una domanda a caso del tipo, cercando il modello che la contiene
+            int pick = random.nextInt(remainingByType[type]);
+            int template = type * QuestionStatistics.BUCKETS;
+            while (pick >= sampler.remaining[template]) {
+                pick -= sampler.remaining[template];
+                template++;
+            }
+            remainingByType[type]--;
+
+            questions.add(sampler.take(template, random).withNumber(questions.size() + 1));
+        }
+        return questions;
+    }
+
+    /**
+     * Draws distinct questions for a game, choosing each one among those whose
+     * estimated difficulty is closest to the target.
+     *
+     * The templates are visited in order of distance from the target through the
+     * sorted {@link QuestionStatistics.DifficultyIndex}, so a draw never scores the
+     * single questions. Templates with the same difficulty are chosen with a weight
+     * proportional to the questions they still hold.
+     *
+     * @param documents the documents of the game, in game order
+     * @param count the number of questions to draw
+     * @param random the random source
+     * @param statistics the difficulty model
+     * @param targetDifficulty the expected error rate the questions should have
+     * @return the questions numbered from 1, or null if the subset is missing or has too few questions
+     */
+    public List<Question> draw(List<String> documents, int count, Random random,
+                               QuestionStatistics statistics, double targetDifficulty) {
+        Question[][] subsetPools = pools.get(subsetKey(documents));
+        if (subsetPools == null) {
+            return null;
+        }
+        Sampler sampler = new Sampler(subsetPools);
+        if (sampler.total < count) {
+            return null;
+        }
+
+        QuestionStatistics.DifficultyIndex index = statistics.getIndex();
+        List<Question> questions = new ArrayList<>(count);
+        while (questions.size() < count) {
+            double target = targetDifficulty + random.nextGaussian() * QuestionStatistics.TARGET_JITTER;
+            int template = nearestTemplate(index, sampler, target, random);
+            questions.add(sampler.take(template, random).withNumber(questions.size() + 1));
+        }
+        return questions;
+    }
+
+    /**
+     * Finds the template closest to the target difficulty that still has questions.
+     *
+     * @param index the templates sorted by difficulty
+     * @param sampler the questions still available
+     * @param target the target difficulty
+     * @param random the random source, used among templates with the same difficulty
+     * @return the chosen template
+     */
+    private static int nearestTemplate(QuestionStatistics.DifficultyIndex index, Sampler sampler,
+                                       double target, Random random) {
+        // visito le posizioni allontanandomi dal target, alternando i due lati
+        int low = index.nearest(target);
+        int high = low + 1;
+        while (low >= 0 || high < index.size()) {
+            int position;
+            if (high >= index.size()
+                    || (low >= 0 && Math.abs(target - index.getDifficulty(low)) <= Math.abs(index.getDifficulty(high) - target))) {
+                position = low--;
+            } else {
+                position = high++;
+            }
+            if (sampler.remaining[index.getTemplate(position)] == 0) {
+                continue;
+            }
+
+            // tra i modelli con la stessa difficoltà scelgo in proporzione alle domande rimaste
+            double difficulty = index.getDifficulty(position);
+            int start = position;
+            int end = position;
+            while (start > 0 && index.getDifficulty(start - 1) == difficulty) {
+                start--;
+            }
+            while (end + 1 < index.size() && index.getDifficulty(end + 1) == difficulty) {
+                end++;
+            }
+            int chosen = -1;
+            int weight = 0;
+            for (int p = start; p <= end; p++) {
+                int template = index.getTemplate(p);
+                int remaining = sampler.remaining[template];
+                weight += remaining;
+                if (remaining > 0 && random.nextInt(weight) < remaining) {
+                    chosen = template;
+                }
+            }
+            return chosen;
+        }
+        throw new IllegalStateException("Nessuna domanda disponibile nella banca");
+    }
+
+    /**
+     * Gets the template a question belongs to.
+     *
+     * @param question the question
+     * @return the template index
+     */
+    private static int templateOf(Question question) {
+        QuestionType type = question.getType() != null ? question.getType() : QuestionType.values()[0];
+        return QuestionStatistics.templateOf(type, question.getFrequencyBucket());
+    }
+
+    /**
+     * Builds the key identifying a document subset.
+     *
+     * @param documents the documents of the subset, in game order
+     * @return the subset key
+     */
+    private static String subsetKey(List<String> documents) {
+        return String.join("\n", documents);
+    }
+
+    /**
+     * Questions of a subset still available during one draw.
+     * Every template is sampled without replacement through a partial
+     * Fisher-Yates permutation of its indices, created on first use.
+     */
+    private static final class Sampler {
+
+        private final Question[][] pools;
+        private final int[][] available;
+        private final int[] remaining;
+        private final int total;
+
+        private Sampler(Question[][] pools) {
+            this.pools = pools;
+            this.available = new int[pools.length][];
+            this.remaining = new int[pools.length];
+            int sum = 0;
+            for (int template = 0; template < pools.length; template++) {
+                remaining[template] = pools[template].length;
+                sum += remaining[template];
+            }
+            this.total = sum;
+        }
+
+        /**
+         * Takes a random question of a template that has not been taken yet.
+         *
+         * @param template the template, which must still have questions
+         * @param random the random source
+         * @return the question
+         */
+        private Question take(int template, Random random) {
+            if (available[template] == null) {
+                available[template] = new int[pools[template].length];
+                for (int i = 0; i < available[template].length; i++) {
+                    available[template][i] = i;
+                }
+            }
+            int pick = random.nextInt(remaining[template]);
+            int index = available[template][pick];
+            available[template][pick] = available[template][--remaining[template]];
+            return pools[template][index];
+        }
+    }
+}
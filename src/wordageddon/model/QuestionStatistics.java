@@ -0,0 +1,242 @@
+package wordageddon.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Difficulty model of the question templates, fed by the answers of the players.
+ *
+ * A template is a pair (question type, frequency bucket), where the bucket groups
+ * the frequency of the word the question is about on a logarithmic scale
+ * (see {@link #bucketOf(int)}). For every template the number of attempts and of
+ * correct answers is kept in memory and updated in O(1) per answer.
+ *
+ * The estimated difficulty of a template is its error rate, smoothed with a prior
+ * so that templates with few answers stay close to a reasonable default.
+ * {@link #getIndex()} gives the templates sorted by difficulty, rebuilt only when
+ * new answers have been recorded.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionStatistics {
+
+    /** Number of frequency buckets: 0, 1, 2-3, 4-7, 8-15, 16+ */
+    public static final int BUCKETS = 6;
+
+    /** Standard deviation of the noise added to a target difficulty, so that close templates alternate */
+    public static final double TARGET_JITTER = 0.1;
+
+    /** Weight of the prior, in answers */
+    private static final double PRIOR_ATTEMPTS = 5.0;
+
+    /** Number of templates, one per (question type, frequency bucket) */
+    static final int TEMPLATES = QuestionType.values().length * BUCKETS;
+
+    private final AtomicLongArray attempts = new AtomicLongArray(TEMPLATES);
+    private final AtomicLongArray correct = new AtomicLongArray(TEMPLATES);
+
+    /** Incremented at every recorded answer, used to invalidate the index */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile DifficultyIndex index;
+
+    /**
+     * Maps a word frequency to its bucket.
+     *
+     * @param frequency the frequency of the word in the document
+     * @return the bucket, between 0 and {@link #BUCKETS} - 1
+     */
+    public static int bucketOf(int frequency) {
+        if (frequency <= 0) {
+            return 0;
+        }
+        // 1 -> 1, 2-3 -> 2, 4-7 -> 3, ...
+        return Math.min(BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(frequency));
+    }
+
+    /**
+     * Records an answer to a question of the given template.
+     *
+     * @param type the question type
+     * @param bucket the frequency bucket
+     * @param isCorrect whether the answer was correct
+     */
+    public void record(QuestionType type, int bucket, boolean isCorrect) {
+        add(type, bucket, 1, isCorrect ? 1 : 0);
+    }
+
+    /**
+     * Adds aggregated counts to a template, e.g. when loading them from the database.
+     *
+     * @param type the question type
+     * @param bucket the frequency bucket
+     * @param attemptCount the number of answers
+     * @param correctCount the number of correct answers
+     */
+    public void add(QuestionType type, int bucket, long attemptCount, long correctCount) {
+        int template = templateOf(type, bucket);
+        attempts.addAndGet(template, attemptCount);
+        correct.addAndGet(template, correctCount);
+        version.incrementAndGet();
+    }
+
+    public long getAttempts(QuestionType type, int bucket) {
+        return attempts.get(templateOf(type, bucket));
+    }
+
+    public long getCorrect(QuestionType type, int bucket) {
+        return correct.get(templateOf(type, bucket));
+    }
+
+    /**
+     * Estimates the difficulty of a template.
+     *
+     * @param type the question type
+     * @param bucket the frequency bucket
+     * @return the expected error rate, between 0 (trivial) and 1 (never answered correctly)
+     */
+    public double getDifficulty(QuestionType type, int bucket) {
+        int template = templateOf(type, bucket);
+        double prior = priorDifficulty(type, bucket);
+        double errors = attempts.get(template) - correct.get(template);
+        return (errors + prior * PRIOR_ATTEMPTS) / (attempts.get(template) + PRIOR_ATTEMPTS);
+    }
+
+    /**
+     * Estimates the difficulty of a question.
+     *
+     * @param question the question
+     * @return the difficulty of its template, or 0.5 if the template is unknown
+     */
+    public double getDifficulty(Question question) {
+        if (question.getType() == null) {
+            return 0.5;
+        }
+        return getDifficulty(question.getType(), question.getFrequencyBucket());
+    }
+
+    /**
+     * Gets the templates sorted by estimated difficulty.
+     *
+     * @return the current index
+     */
+    public DifficultyIndex getIndex() {
+        DifficultyIndex current = index;
+        long currentVersion = version.get();
+        if (current == null || current.version != currentVersion) {
+            current = new DifficultyIndex(currentVersion);
+            index = current;
+        }
+        return current;
+    }
+
+    /**
+     * Default difficulty of a template before any answer: exact counts are harder
+     * than comparisons, and questions about frequent words are harder.
+     */
+    private static double priorDifficulty(QuestionType type, int bucket) {
+        double base;
+        switch (type) {
+            case DOCUMENT_SPECIFIC:
+                base = 0.3;
+                break;
+            case EXCLUSION:
+                base = 0.35;
+                break;
+            case RELATIVE_FREQUENCY:
+            case COMMON_WORD:
+                base = 0.4;
+                break;
+            case WORD_RANK:
+            case CO_OCCURRENCE:
+            case NEXT_WORD:
+                base = 0.6;
+                break;
+            default:
+                base = 0.5;
+        }
+        return Math.min(0.9, base + 0.05 * bucket);
+    }
+
+    /**
+     * Gets the index of a template, between 0 and {@link #TEMPLATES} - 1.
+     *
+     * @param type the question type
+     * @param bucket the frequency bucket, clamped to the valid range
+     * @return the template index
+     */
+    static int templateOf(QuestionType type, int bucket) {
+        return type.ordinal() * BUCKETS + Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+
+    /**
+     * Templates sorted by difficulty, with lookup of the template closest to a target.
+     */
+    public class DifficultyIndex {
+
+        private final long version;
+        private final int[] templates = new int[TEMPLATES];
+        private final double[] difficulties = new double[TEMPLATES];
+
+        private DifficultyIndex(long version) {
+            this.version = version;
+            QuestionType[] types = QuestionType.values();
+            Integer[] order = new Integer[TEMPLATES];
+            double[] byTemplate = new double[TEMPLATES];
+            for (int t = 0; t < TEMPLATES; t++) {
+                order[t] = t;
+                byTemplate[t] = QuestionStatistics.this.getDifficulty(types[t / BUCKETS], t % BUCKETS);
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(byTemplate[a], byTemplate[b]));
+            for (int i = 0; i < TEMPLATES; i++) {
+                templates[i] = order[i];
+                difficulties[i] = byTemplate[order[i]];
+            }
+        }
+
+        public int size() {
+            return TEMPLATES;
+        }
+
+        public QuestionType getType(int position) {
+            return QuestionType.values()[templates[position] / BUCKETS];
+        }
+
+        public int getBucket(int position) {
+            return templates[position] % BUCKETS;
+        }
+
+        int getTemplate(int position) {
+            return templates[position];
+        }
+
+        public double getDifficulty(int position) {
+            return difficulties[position];
+        }
+
+        /**
+         * Finds the position of the template whose difficulty is closest to the target.
+         *
+         * @param target the target difficulty
+         * @return the position in the index
+         */
+        public int nearest(double target) {
+            int position = Arrays.binarySearch(difficulties, target);
+            if (position >= 0) {
+                return position;
+            }
+            int insertion = -position - 1;
+            if (insertion == 0) {
+                return 0;
+            }
+            if (insertion == TEMPLATES) {
+                return TEMPLATES - 1;
+            }
+            return target - difficulties[insertion - 1] <= difficulties[insertion] - target
+                ? insertion - 1 : insertion;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package wordageddon.model;
+
+/**
+ * Families of questions that can be generated from the Document-Term Matrix.
+ * 
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public enum QuestionType {
+    /** How many times a word appears in a document */
+    ABSOLUTE_FREQUENCY,
+    /** Which of some words appears more often in a document */
+    RELATIVE_FREQUENCY,
+    /** Which document contains a word */
+    DOCUMENT_SPECIFIC,
+    /** Which word never appears in a document */
+    EXCLUSION,
+    /** Which word appears in all the documents */
+    COMMON_WORD,
+    /** Position of a word in the frequency ranking of a document */
+    WORD_RANK,
+    /** How many times a word appears across all the documents */
+    TOTAL_OCCURRENCES,
+    /** Which pair of words appears together most often */
+    CO_OCCURRENCE,
+    /** Which word most often comes right after another one in a document */
+    NEXT_WORD
+}
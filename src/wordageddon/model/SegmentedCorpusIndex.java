@@ -0,0 +1,445 @@
+package wordageddon.model;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import wordageddon.util.AtomicFileStore;
+
+/**
+ * Append-only corpus index made of immutable segments.
+ *
+ * New or changed documents are written to a new {@link IndexSegment}; a document
+ * stored in a newer segment overrides its older copies. Deleted documents are
+ * recorded as tombstones, which hide the copies stored in segments older than
+ * the tombstone. When too many segments pile up a background thread merges them
+ * into a single segment containing only the live documents.
+ *
+ * The list of live segments and the tombstones are kept in a manifest file,
+ * rewritten atomically after every change; segment files are written once and
+ * deleted only after a merge has been recorded in the manifest.
+ *
+ * Readers work on an immutable {@link Snapshot}, so queries never block ingestion
+ * or merging. There is a single index instance per directory, shared by all callers.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class SegmentedCorpusIndex {
+
+    private static final String MANIFEST_FILE = "manifest.ser";
+    private static final String SEGMENT_PREFIX = "segment_";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /** Number of segments above which a background merge is scheduled */
+    private static final int MERGE_THRESHOLD = 4;
+
+    // un solo indice per directory, condiviso da tutti i servizi
+    private static final Map<File, SegmentedCorpusIndex> OPEN_INDEXES = new HashMap<>();
+
+    private final File directory;
+
+    /** Single thread running the merges */
+    private final ExecutorService merger;
+
+    /** Current state of the index, replaced on every change */
+    private volatile Snapshot snapshot;
+
+    /** Next id to assign to segments and tombstones */
+    private long nextGeneration;
+
+    private boolean mergeScheduled;
+
+    private SegmentedCorpusIndex(File directory) throws IOException {
+        this.directory = directory;
+        this.merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wordageddon-index-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+    }
+
+    /**
+     * Opens the index stored in the given directory, creating it if needed.
+     *
+     * @param directory the index directory
+     * @return the shared index instance for the directory
+     * @throws IOException if the manifest or a segment cannot be read
+     */
+    public static synchronized SegmentedCorpusIndex open(File directory) throws IOException {
+        File key = directory.getAbsoluteFile();
+        SegmentedCorpusIndex index = OPEN_INDEXES.get(key);
+        if (index == null) {
+            index = new SegmentedCorpusIndex(key);
+            OPEN_INDEXES.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the current state of the index.
+     *
+     * @return an immutable snapshot
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Gets a Document-Term Matrix reading the current state of the index.
+     * The matrix does not change when documents are added or removed afterwards.
+     * Every caller gets the same instance until the index changes, so the caches
+     * built on the matrix are shared.
+     *
+     * @return a read-only matrix over the current snapshot
+     */
+    public SegmentedDocumentTermMatrix getMatrix() {
+        return snapshot.getMatrix();
+    }
+
+    /**
+     * Adds new or changed documents as a new segment.
+     *
+     * @param termCounts the term counts of each document
+     * @param signatures the content signature of each document
+     * @param positions the positions of the tokens of each document, may be empty
+     * @throws IOException if the segment or the manifest cannot be written
+     */
+    public synchronized void addDocuments(Map<String, Map<String, Integer>> termCounts,
+                                          Map<String, Long> signatures,
+                                          Map<String, PositionalIndex.DocumentPostings> positions) throws IOException {
+        if (termCounts.isEmpty()) {
+            return;
+        }
+
+        long generation = nextGeneration++;
+        IndexSegment segment = IndexSegment.build(generation, generation, termCounts, signatures, positions);
+        writeSegment(segment);
+
+        List<IndexSegment> segments = new ArrayList<>(snapshot.segments);
+        segments.add(segment);
+        commit(new Snapshot(segments, snapshot.tombstones));
+
+        scheduleMergeIfNeeded();
+    }
+
+    /**
+     * Marks documents as deleted by writing tombstones.
+     *
+     * @param documentIds the identifiers of the documents to delete
+     * @throws IOException if the manifest cannot be written
+     */
+    public synchronized void deleteDocuments(Collection<String> documentIds) throws IOException {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+
+        long generation = nextGeneration++;
+        Map<String, Long> tombstones = new HashMap<>(snapshot.tombstones);
+        documentIds.forEach(id -> tombstones.put(id, generation));
+        commit(new Snapshot(snapshot.segments, tombstones));
+    }
+
+    /**
+     * Replaces the whole content of the index with a single segment.
+     * Used when every document has to be re-analyzed (e.g. the stopwords changed).
+     *
+     * @param termCounts the term counts of each document
+     * @param signatures the content signature of each document
+     * @param positions the positions of the tokens of each document, may be empty
+     * @throws IOException if the segment or the manifest cannot be written
+     */
+    public synchronized void replaceAll(Map<String, Map<String, Integer>> termCounts,
+                                        Map<String, Long> signatures,
+                                        Map<String, PositionalIndex.DocumentPostings> positions) throws IOException {
+        long generation = nextGeneration++;
+        IndexSegment segment = IndexSegment.build(generation, generation, termCounts, signatures, positions);
+        writeSegment(segment);
+
+        List<IndexSegment> obsolete = snapshot.segments;
+        commit(new Snapshot(Collections.singletonList(segment), Collections.<String, Long>emptyMap()));
+        deleteSegmentFiles(obsolete);
+    }
+
+    /**
+     * Merges all the segments synchronously, waiting for any running merge.
+     */
+    public void mergeNow() {
+        try {
+            merger.submit(this::merge).get();
+        } catch (Exception e) {
+            System.err.println("Error merging index segments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Schedules a background merge if there are too many segments.
+     * Must be called while holding the index lock.
+     */
+    private void scheduleMergeIfNeeded() {
+        if (!mergeScheduled && snapshot.segments.size() > MERGE_THRESHOLD) {
+            mergeScheduled = true;
+            merger.submit(this::merge);
+        }
+    }
+
+    /**
+     * Compacts the current segments into a single one containing only the live documents.
+     * The new segment is built outside the lock; segments added meanwhile are kept
+     * on top of it, and tombstones written meanwhile still apply to it.
+     */
+    private void merge() {
+        Snapshot base;
+        long id;
+        synchronized (this) {
+            mergeScheduled = false;
+            base = snapshot;
+            if (base.segments.size() < 2 && base.tombstones.isEmpty()) {
+                return;
+            }
+            id = nextGeneration++;
+        }
+
+        // raccolgo solo le versioni vive dei documenti, scartando quelle sovrascritte o cancellate
+        Map<String, Map<String, Integer>> termCounts = new HashMap<>();
+        Map<String, Long> signatures = new HashMap<>();
+        Map<String, PositionalIndex.DocumentPostings> positions = new HashMap<>();
+        for (String documentId : base.getDocuments()) {
+            IndexSegment owner = base.findSegment(documentId);
+            termCounts.put(documentId, owner.getTermsForDocument(documentId));
+            signatures.put(documentId, owner.getSignature(documentId));
+            PositionalIndex.DocumentPostings postings = owner.getPositions(documentId);
+            if (postings != null) {
+                positions.put(documentId, postings);
+            }
+        }
+
+        // il segmento unito eredita la generazione più recente tra quelli uniti
+        long generation = base.segments.isEmpty() ? 0 : base.segments.get(base.segments.size() - 1).getGeneration();
+        IndexSegment merged = IndexSegment.build(id, generation, termCounts, signatures, positions);
+
+        try {
+            writeSegment(merged);
+
+            synchronized (this) {
+                Snapshot current = snapshot;
+                if (!current.segments.containsAll(base.segments)) {
+                    // l'indice è stato sostituito durante l'unione, scarto il risultato
+                    deleteSegmentFiles(Collections.singletonList(merged));
+                    return;
+                }
+
+                List<IndexSegment> segments = new ArrayList<>();
+                segments.add(merged);
+                current.segments.stream()
+                    .filter(segment -> !base.segments.contains(segment))
+                    .forEach(segments::add);
+
+                // tengo solo i tombstone che nascondono ancora qualche copia del documento
+                Map<String, Long> tombstones = new HashMap<>();
+                current.tombstones.forEach((documentId, tombstone) -> {
+                    boolean hidesCopies = segments.stream().anyMatch(segment ->
+                        segment.getGeneration() < tombstone && segment.containsDocument(documentId));
+                    if (hidesCopies) {
+                        tombstones.put(documentId, tombstone);
+                    }
+                });
+
+                commit(new Snapshot(segments, tombstones));
+                deleteSegmentFiles(base.segments);
+                scheduleMergeIfNeeded();
+            }
+        } catch (IOException e) {
+            System.err.println("Error merging index segments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the manifest and the segments it lists, removing leftover segment files
+     * of interrupted merges.
+     *
+     * @throws IOException if the manifest or a segment cannot be read
+     */
+    private void load() throws IOException {
+        directory.mkdirs();
+
+        Manifest manifest;
+        try {
+            // con il manifest mancante o danneggiato riparto dalla generazione precedente, non da un indice vuoto
+            manifest = (Manifest) AtomicFileStore.readObjectOrBackup(new File(directory, MANIFEST_FILE));
+        } catch (FileNotFoundException e) {
+            manifest = new Manifest(new ArrayList<>(), new HashMap<>(), 0);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Manifest dell'indice non valido", e);
+        }
+
+        List<IndexSegment> segments = new ArrayList<>();
+        try {
+            for (long segmentId : manifest.segmentIds) {
+                segments.add((IndexSegment) AtomicFileStore.readObject(segmentFile(segmentId)));
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Segmento dell'indice non valido", e);
+        }
+
+        this.nextGeneration = manifest.nextGeneration;
+        this.snapshot = new Snapshot(segments, manifest.tombstones);
+
+        // elimino i segmenti non referenziati (es. unione interrotta)
+        Set<String> live = new HashSet<>();
+        manifest.segmentIds.forEach(segmentId -> live.add(segmentFile(segmentId).getName()));
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX));
+        if (files != null) {
+            for (File file : files) {
+                if (!live.contains(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes a new snapshot and records it in the manifest.
+     * Must be called while holding the index lock.
+     *
+     * @param next the new state of the index
+     * @throws IOException if the manifest cannot be written
+     */
+    private void commit(Snapshot next) throws IOException {
+        List<Long> segmentIds = new ArrayList<>();
+        next.segments.forEach(segment -> segmentIds.add(segment.getId()));
+        AtomicFileStore.writeObject(new File(directory, MANIFEST_FILE),
+            new Manifest(segmentIds, new HashMap<>(next.tombstones), nextGeneration));
+        this.snapshot = next;
+    }
+
+    private void writeSegment(IndexSegment segment) throws IOException {
+        AtomicFileStore.writeObject(segmentFile(segment.getId()), segment);
+    }
+
+    private void deleteSegmentFiles(List<IndexSegment> segments) {
+        segments.forEach(segment -> segmentFile(segment.getId()).delete());
+    }
+
+    private File segmentFile(long segmentId) {
+        return new File(directory, SEGMENT_PREFIX + segmentId + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Immutable view of the index: the live segments, oldest first, and the tombstones.
+     */
+    public static class Snapshot {
+
+        private final List<IndexSegment> segments;
+        private final Map<String, Long> tombstones;
+
+        /** Live documents, each mapped to the segment holding its current version */
+        private final Map<String, IndexSegment> owners;
+
+        /** Matrix over this snapshot, created on first request */
+        private SegmentedDocumentTermMatrix matrix;
+
+        private Snapshot(List<IndexSegment> segments, Map<String, Long> tombstones) {
+            this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+            this.tombstones = Collections.unmodifiableMap(new HashMap<>(tombstones));
+
+            // risolvo i documenti dal segmento più recente al più vecchio
+            Map<String, IndexSegment> resolved = new LinkedHashMap<>();
+            Set<String> seen = new HashSet<>();
+            for (int i = this.segments.size() - 1; i >= 0; i--) {
+                IndexSegment segment = this.segments.get(i);
+                for (String documentId : segment.getDocuments()) {
+                    if (seen.add(documentId)) {
+                        Long tombstone = this.tombstones.get(documentId);
+                        if (tombstone == null || tombstone < segment.getGeneration()) {
+                            resolved.put(documentId, segment);
+                        }
+                    }
+                }
+            }
+            this.owners = Collections.unmodifiableMap(resolved);
+        }
+
+        /**
+         * Gets the matrix reading this snapshot, the same instance on every call.
+         *
+         * @return the read-only matrix over the snapshot
+         */
+        synchronized SegmentedDocumentTermMatrix getMatrix() {
+            if (matrix == null) {
+                matrix = new SegmentedDocumentTermMatrix(this);
+            }
+            return matrix;
+        }
+
+        /**
+         * Gets the identifiers of the live documents.
+         *
+         * @return an immutable set of document identifiers
+         */
+        public Set<String> getDocuments() {
+            return owners.keySet();
+        }
+
+        /**
+         * Gets the segment holding the current version of a document.
+         *
+         * @param documentId the document identifier
+         * @return the segment, or null if the document is missing or deleted
+         */
+        public IndexSegment findSegment(String documentId) {
+            return owners.get(documentId);
+        }
+
+        /**
+         * Gets the content signature of every live document.
+         *
+         * @return a new map from document identifier to signature
+         */
+        public Map<String, Long> getSignatures() {
+            Map<String, Long> signatures = new HashMap<>();
+            owners.forEach((documentId, segment) -> signatures.put(documentId, segment.getSignature(documentId)));
+            return signatures;
+        }
+
+        public int getSegmentCount() {
+            return segments.size();
+        }
+
+        public int getTombstoneCount() {
+            return tombstones.size();
+        }
+    }
+
+    /**
+     * Persistent description of the index, rewritten atomically on every change.
+     */
+    private static class Manifest implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Long> segmentIds;
+        private final Map<String, Long> tombstones;
+        private final long nextGeneration;
+
+        private Manifest(List<Long> segmentIds, Map<String, Long> tombstones, long nextGeneration) {
+            this.segmentIds = segmentIds;
+            this.tombstones = tombstones;
+            this.nextGeneration = nextGeneration;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package wordageddon.model;
+
+import java.io.ObjectStreamException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only Document-Term Matrix backed by a {@link SegmentedCorpusIndex} snapshot.
+ *
+ * Every query is answered by the segment holding the current version of the
+ * document, so callers keep using the {@link DocumentTermMatrix} API without
+ * knowing how many segments the index is made of. The term maps of the documents
+ * are built on first access and then cached, and so is the positional index,
+ * put together from the token positions stored in the segments.
+ *
+ * When serialized (e.g. exported from the admin panel) the matrix is written as
+ * a plain {@link DocumentTermMatrix} with the same content.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class SegmentedDocumentTermMatrix extends DocumentTermMatrix {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient SegmentedCorpusIndex.Snapshot snapshot;
+
+    /** Term maps already built, for each document */
+    private final transient Map<String, Map<String, Integer>> termsCache = new ConcurrentHashMap<>();
+
+    /** Vocabulary, computed on first access */
+    private transient volatile Set<String> allTerms;
+
+    /** Fingerprint of the snapshot, computed on first access */
+    private transient volatile Long fingerprint;
+
+    /** Positional index of the live documents, assembled on first access */
+    private transient volatile PositionalIndex positions;
+
+    SegmentedDocumentTermMatrix(SegmentedCorpusIndex.Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Not supported: the matrix is a view over immutable segments.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addTerm(String documentId, String word) {
+        throw new UnsupportedOperationException("La DTM dell'indice è in sola lettura");
+    }
+
+    /**
+     * Not supported: the matrix is a view over immutable segments.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addTerm(String documentId, String word, int count) {
+        throw new UnsupportedOperationException("La DTM dell'indice è in sola lettura");
+    }
+
+    @Override
+    public Set<String> getAllTerms() {
+        Set<String> terms = allTerms;
+        if (terms == null) {
+            // unisco i vocabolari dei soli documenti vivi
+            TreeSet<String> union = new TreeSet<>();
+            for (String documentId : snapshot.getDocuments()) {
+                union.addAll(getTermsForDocument(documentId).keySet());
+            }
+            terms = Collections.unmodifiableSet(union);
+            allTerms = terms;
+        }
+        return terms;
+    }
+
+    @Override
+    public Map<String, Integer> getTermsForDocument(String documentId) {
+        IndexSegment segment = snapshot.findSegment(documentId);
+        if (segment == null) {
+            return Collections.emptyMap();
+        }
+        return termsCache.computeIfAbsent(documentId,
+            id -> Collections.unmodifiableMap(segment.getTermsForDocument(id)));
+    }
+
+    @Override
+    public int getFrequency(String documentId, String word) {
+        IndexSegment segment = snapshot.findSegment(documentId);
+        return segment != null ? segment.getFrequency(documentId, word) : 0;
+    }
+
+    @Override
+    public Set<String> getDocuments() {
+        return snapshot.getDocuments();
+    }
+
+    /**
+     * Gets the positional index of the live documents, reading the postings stored
+     * in their segments: no document text is read.
+     *
+     * @return the positional index, or null if no document was indexed with positions
+     */
+    @Override
+    public PositionalIndex getPositionalIndex() {
+        PositionalIndex index = positions;
+        if (index == null) {
+            index = new PositionalIndex();
+            for (String documentId : snapshot.getDocuments()) {
+                PositionalIndex.DocumentPostings postings = snapshot.findSegment(documentId).getPositions(documentId);
+                if (postings != null) {
+                    index.addDocument(documentId, postings);
+                }
+            }
+            positions = index;
+        }
+        return index.getDocumentCount() > 0 ? index : null;
+    }
+
+    /**
+     * Computes the fingerprint from the content signatures stored in the index,
+     * without reading the term counts. The snapshot is immutable, so the value
+     * is computed once.
+     * 
+     * @return a checksum of the live documents and their signatures
+     */
+    @Override
+    public long getFingerprint() {
+        Long value = fingerprint;
+        if (value == null) {
+            CRC32 crc = new CRC32();
+            new TreeMap<>(snapshot.getSignatures())
+                .forEach((documentId, signature) -> updateChecksum(crc, documentId + "=" + signature));
+            value = crc.getValue();
+            fingerprint = value;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the number of segments the matrix is read from.
+     *
+     * @return the segment count of the underlying snapshot
+     */
+    public int getSegmentCount() {
+        return snapshot.getSegmentCount();
+    }
+
+    /**
+     * Copies the content into a plain, self-contained matrix.
+     *
+     * @return a new DocumentTermMatrix with the same frequencies
+     */
+    public DocumentTermMatrix toDocumentTermMatrix() {
+        DocumentTermMatrix copy = new DocumentTermMatrix();
+        for (String documentId : getDocuments()) {
+            getTermsForDocument(documentId).forEach((word, count) -> copy.addTerm(documentId, word, count));
+        }
+        // non aspetto le co-occorrenze ancora in calcolo: la copia le riceve quando sono pronte
+        getCoOccurrenceAsync().thenAccept(copy::setCoOccurrence);
+        copy.setPositionalIndex(getPositionalIndex());
+        return copy;
+    }
+
+    /**
+     * Serializes the matrix as a plain DocumentTermMatrix.
+     *
+     * @return the object to serialize in place of this view
+     * @throws ObjectStreamException never thrown, required by the serialization contract
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return toDocumentTermMatrix();
+    }
+}
@@ -2,7 +2,9 @@ package wordageddon.model;
 
 import java.util.Set;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -156,6 +158,61 @@ public class TextAnalysisService {
         return dtm;
     }
     
+    /**
+     * Counts the terms of a single document, skipping the stopwords.
+     * Uses the same normalization as {@link #createDocumentTermMatrix(List, Set)}.
+     * 
+     * @param content the document content
+     * @param currentStopwords set of stopwords to filter out
+     * @return a map from each term to its number of occurrences
+     */
+    public Map<String, Integer> countTerms(String content, Set<String> currentStopwords) {
+        return countTerms(null, content, currentStopwords);
+    }
+    
+    /**
+     * Counts the terms of a single document and, in the same pass over its tokens,
+     * feeds them to other indexes (e.g. co-occurrences or positions).
+     * The sinks receive every token in order, stopwords included and flagged.
+     * 
+     * @param documentId the identifier of the document in the sinks
+     * @param content the document content
+     * @param currentStopwords set of stopwords to filter out
+     * @param sinks the indexes receiving the tokens; null elements are skipped
+     * @return a map from each term to its number of occurrences
+     */
+    public Map<String, Integer> countTerms(String documentId, String content, Set<String> currentStopwords,
+                                           TokenSink... sinks) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (content == null) {
+            return counts;
+        }
+        Set<String> finalStopwords = currentStopwords != null ? currentStopwords : new HashSet<>();
+        List<TokenSink> activeSinks = new ArrayList<>();
+        for (TokenSink sink : sinks) {
+            if (sink != null) {
+                activeSinks.add(sink);
+                sink.beginDocument(documentId);
+            }
+        }
+        
+        // normalizzo il contenuto e conto le occorrenze delle parole non filtrate
+        Arrays.stream(content.toLowerCase().replaceAll("[^a-zàèéìòù]", " ").split("\\s+"))
+            .filter(word -> !word.isEmpty())
+            .forEachOrdered(word -> {
+                boolean stopword = finalStopwords.contains(word);
+                if (!stopword) {
+                    counts.merge(word, 1, Integer::sum);
+                }
+                for (TokenSink sink : activeSinks) {
+                    sink.addToken(word, stopword);
+                }
+            });
+        
+        activeSinks.forEach(TokenSink::endDocument);
+        return counts;
+    }
+    
     /**
      * Logs processing information for the first document.
      * 
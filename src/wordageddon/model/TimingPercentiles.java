@@ -0,0 +1,65 @@
+package wordageddon.model;
+
+/**
+ * Data Transfer Object with the distribution of a measured time for one difficulty level,
+ * e.g. the duration of the game sessions or the response time of the answers.
+ *
+ * The percentiles use the nearest-rank method and are computed by the database,
+ * so only one row per difficulty is transferred whatever the number of samples.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class TimingPercentiles {
+    /** The difficulty level the samples belong to */
+    private final String difficulty;
+
+    /** Number of measured samples */
+    private final int count;
+
+    /** Median, in milliseconds */
+    private final long p50;
+
+    /** 90th percentile, in milliseconds */
+    private final long p90;
+
+    /** 99th percentile, in milliseconds */
+    private final long p99;
+
+    /** Longest sample, in milliseconds */
+    private final long max;
+
+    /**
+     * Constructs the percentiles of a difficulty level.
+     *
+     * @param difficulty the difficulty level
+     * @param count the number of samples
+     * @param p50 the median in milliseconds
+     * @param p90 the 90th percentile in milliseconds
+     * @param p99 the 99th percentile in milliseconds
+     * @param max the longest sample in milliseconds
+     */
+    public TimingPercentiles(String difficulty, int count, long p50, long p90, long p99, long max) {
+        this.difficulty = difficulty;
+        this.count = count;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    // getters
+    public String getDifficulty() { return difficulty; }
+    public int getCount() { return count; }
+    public long getP50() { return p50; }
+    public long getP90() { return p90; }
+    public long getP99() { return p99; }
+    public long getMax() { return max; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d campioni, p50 %d ms, p90 %d ms, p99 %d ms, max %d ms",
+            difficulty, count, p50, p90, p99, max);
+    }
+}
@@ -0,0 +1,32 @@
+package wordageddon.model;
+
+/**
+ * Receives the tokens of the documents, in order, while {@link TextAnalysisService}
+ * counts their terms, so that several indexes are built in a single pass.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public interface TokenSink {
+
+    /**
+     * Starts a new document.
+     *
+     * @param documentId the identifier of the document, as used in the DTM
+     */
+    void beginDocument(String documentId);
+
+    /**
+     * Receives the next token of the current document.
+     *
+     * @param token the normalized token
+     * @param stopword whether the token is a stopword, i.e. it is not counted in the DTM
+     */
+    void addToken(String token, boolean stopword);
+
+    /**
+     * Ends the current document.
+     */
+    void endDocument();
+}
@@ -0,0 +1,53 @@
+package wordageddon.model;
+
+/**
+ * Data Transfer Object with the aggregated statistics of the games of a user.
+ *
+ * The values are computed by the database in a single query, so showing them does
+ * not require loading the whole game history of the user.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class UserGameStatistics {
+    /** Number of game sessions played */
+    private final int gamesPlayed;
+
+    /** Average score of the sessions */
+    private final double averageScore;
+
+    /** Average percentage of correct answers of the sessions */
+    private final double averagePercentage;
+
+    /** Highest percentage of correct answers in a single session */
+    private final double bestPercentage;
+
+    /** Difficulty of the session with the highest percentage, null if no games */
+    private final String bestDifficulty;
+
+    /**
+     * Constructs the statistics of a user.
+     *
+     * @param gamesPlayed the number of game sessions played
+     * @param averageScore the average score of the sessions
+     * @param averagePercentage the average percentage of correct answers
+     * @param bestPercentage the highest percentage of correct answers in a session
+     * @param bestDifficulty the difficulty of the best session
+     */
+    public UserGameStatistics(int gamesPlayed, double averageScore, double averagePercentage,
+                              double bestPercentage, String bestDifficulty) {
+        this.gamesPlayed = gamesPlayed;
+        this.averageScore = averageScore;
+        this.averagePercentage = averagePercentage;
+        this.bestPercentage = bestPercentage;
+        this.bestDifficulty = bestDifficulty;
+    }
+
+    // getters
+    public int getGamesPlayed() { return gamesPlayed; }
+    public double getAverageScore() { return averageScore; }
+    public double getAveragePercentage() { return averagePercentage; }
+    public double getBestPercentage() { return bestPercentage; }
+    public String getBestDifficulty() { return bestDifficulty; }
+}
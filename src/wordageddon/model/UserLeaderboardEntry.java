@@ -19,6 +19,12 @@ public class UserLeaderboardEntry {
     /** Total accumulated points across all game sessions */
     private double totalPoints;
     
+    /** Number of game sessions played */
+    private int gamesPlayed;
+    
+    /** Highest score of a single game session */
+    private double bestScore;
+    
     /**
      * Default constructor for UserLeaderboardEntry.
      * 
@@ -39,6 +45,22 @@ public class UserLeaderboardEntry {
         this.totalPoints = totalPoints;
     }
     
+    /**
+     * Constructs a new UserLeaderboardEntry with the totals of the user.
+     * 
+     * // crea una voce della classifica con tutti i totali materializzati
+     * 
+     * @param username the username to display in the leaderboard
+     * @param totalPoints the total accumulated points for this user
+     * @param gamesPlayed the number of game sessions played
+     * @param bestScore the highest score of a single game session
+     */
+    public UserLeaderboardEntry(String username, double totalPoints, int gamesPlayed, double bestScore) {
+        this(username, totalPoints);
+        this.gamesPlayed = gamesPlayed;
+        this.bestScore = bestScore;
+    }
+    
     /**
      * Gets the username for this leaderboard entry.
      * 
@@ -82,4 +104,48 @@ public class UserLeaderboardEntry {
     public void setTotalPoints(double totalPoints) {
         this.totalPoints = totalPoints;
     }
+    
+    /**
+     * Gets the number of game sessions played by this user.
+     * 
+     * // restituisce il numero di partite giocate dall'utente
+     * 
+     * @return the number of game sessions
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+    
+    /**
+     * Sets the number of game sessions played by this user.
+     * 
+     * // imposta il numero di partite giocate dall'utente
+     * 
+     * @param gamesPlayed the number of game sessions
+     */
+    public void setGamesPlayed(int gamesPlayed) {
+        this.gamesPlayed = gamesPlayed;
+    }
+    
+    /**
+     * Gets the highest score of a single game session of this user.
+     * 
+     * // restituisce il miglior punteggio ottenuto in una partita
+     * 
+     * @return the best score
+     */
+    public double getBestScore() {
+        return bestScore;
+    }
+    
+    /**
+     * Sets the highest score of a single game session of this user.
+     * 
+     * // imposta il miglior punteggio ottenuto in una partita
+     * 
+     * @param bestScore the best score
+     */
+    public void setBestScore(double bestScore) {
+        this.bestScore = bestScore;
+    }
 }
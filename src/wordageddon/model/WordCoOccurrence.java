@@ -0,0 +1,279 @@
+package wordageddon.model;
+
+import wordageddon.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse word co-occurrence matrix counted with a sliding window over the token stream.
+ *
+ * Two words co-occur when they are at most {@code windowSize - 1} positions apart in a
+ * document, once the stopwords have been removed. Words are mapped to integer ids the
+ * first time they are seen and every unordered pair of ids is packed into a long key,
+ * so counting a pair never allocates objects. Counts are kept both for the whole corpus
+ * and for each document, so that questions on a subset of documents can sum only the
+ * documents they show.
+ *
+ * The matrix is filled by {@link TextAnalysisService} while it counts the terms of each
+ * document, in the same pass: as a {@link TokenSink} it skips the stopwords, and
+ * {@link #addWord(String)} can be called directly with already filtered tokens.
+ * After {@link #prune(int)} the matrix is read-only and can be shared between threads.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class WordCoOccurrence implements TokenSink {
+
+    /** Default size of the window, in tokens */
+    public static final int DEFAULT_WINDOW_SIZE = 5;
+
+    /** Default minimum corpus count of a pair kept after pruning */
+    public static final int DEFAULT_MIN_COUNT = 2;
+
+    private final int windowSize;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+
+    /** Corpus-wide counts keyed by {@link #pairKey(int, int)} */
+    private final LongIntHashMap totals = new LongIntHashMap();
+
+    /** Counts of each document, with the same keys */
+    private final Map<String, LongIntHashMap> documents = new HashMap<>();
+
+    // stato della finestra del documento in corso: buffer circolare degli ultimi id
+    private LongIntHashMap current;
+    private final int[] window;
+    private int windowFill;
+    private int windowHead;
+
+    /**
+     * A pair of words with its count.
+     */
+    public static class Pair {
+
+        private final String first;
+        private final String second;
+        private final int count;
+
+        private Pair(String first, String second, int count) {
+            this.first = first;
+            this.second = second;
+            this.count = count;
+        }
+
+        public String getFirst() {
+            return first;
+        }
+
+        public String getSecond() {
+            return second;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return first + " - " + second + " (" + count + ")";
+        }
+    }
+
+    /**
+     * Callback receiving the pairs of a document.
+     */
+    public interface PairConsumer {
+        void accept(String first, String second, int count);
+    }
+
+    /**
+     * Constructs an empty matrix.
+     *
+     * @param windowSize the number of consecutive tokens considered together, at least 2
+     * @throws IllegalArgumentException if the window is smaller than 2
+     */
+    public WordCoOccurrence(int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("La finestra deve contenere almeno 2 parole: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.window = new int[windowSize - 1];
+    }
+
+    /**
+     * Starts counting a new document, emptying the window.
+     *
+     * @param documentId the identifier of the document, as used in the DTM
+     */
+    @Override
+    public void beginDocument(String documentId) {
+        current = documents.computeIfAbsent(documentId, id -> new LongIntHashMap());
+        windowFill = 0;
+        windowHead = 0;
+    }
+
+    /**
+     * Adds the next token of the current document, pairing it with the previous
+     * tokens of the window.
+     *
+     * @param word the token, already normalized and filtered
+     * @throws IllegalStateException if no document has been started
+     */
+    public void addWord(String word) {
+        if (current == null) {
+            throw new IllegalStateException("Nessun documento in corso");
+        }
+        int id = termIds.computeIfAbsent(word, w -> {
+            terms.add(w);
+            return terms.size() - 1;
+        });
+
+        for (int i = 0; i < windowFill; i++) {
+            int other = window[i];
+            if (other != id) {
+                long key = pairKey(id, other);
+                current.addTo(key, 1);
+                totals.addTo(key, 1);
+            }
+        }
+
+        // sostituisco il token più vecchio con quello corrente
+        window[windowHead] = id;
+        windowHead = (windowHead + 1) % window.length;
+        if (windowFill < window.length) {
+            windowFill++;
+        }
+    }
+
+    /**
+     * Adds the next token of the current document; stopwords are not counted and
+     * do not take a place in the window.
+     *
+     * @param token the normalized token
+     * @param stopword whether the token is a stopword
+     */
+    @Override
+    public void addToken(String token, boolean stopword) {
+        if (!stopword) {
+            addWord(token);
+        }
+    }
+
+    @Override
+    public void endDocument() {
+        current = null;
+    }
+
+    /**
+     * Removes the pairs appearing less than a given number of times in the whole
+     * corpus, both from the totals and from the documents, and ends the counting.
+     *
+     * @param minCount the minimum corpus count to keep
+     */
+    public void prune(int minCount) {
+        current = null;
+        totals.pruneBelow(minCount);
+        for (LongIntHashMap counts : documents.values()) {
+            counts.retainKeys(key -> totals.get(key) > 0);
+        }
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Gets the number of distinct pairs in the matrix.
+     *
+     * @return the pair count
+     */
+    public int getPairCount() {
+        return totals.size();
+    }
+
+    /**
+     * Gets how many times two words appear in the same window, in the whole corpus.
+     *
+     * @param first the first word
+     * @param second the second word
+     * @return the count, 0 if the pair was never seen or has been pruned
+     */
+    public int getCount(String first, String second) {
+        Integer id1 = termIds.get(first);
+        Integer id2 = termIds.get(second);
+        if (id1 == null || id2 == null || id1.equals(id2)) {
+            return 0;
+        }
+        return totals.get(pairKey(id1, id2));
+    }
+
+    /**
+     * Visits the pairs of a document.
+     *
+     * @param documentId the identifier of the document
+     * @param consumer the callback receiving each pair with its count in the document
+     */
+    public void forEachPair(String documentId, PairConsumer consumer) {
+        LongIntHashMap counts = documents.get(documentId);
+        if (counts == null) {
+            return;
+        }
+        counts.forEach((key, count) -> consumer.accept(terms.get((int) (key >>> 32)), terms.get((int) key), count));
+    }
+
+    /**
+     * Gets the pairs with the highest corpus count.
+     *
+     * @param limit the maximum number of pairs
+     * @return the pairs, by descending count
+     */
+    public List<Pair> getTopPairs(int limit) {
+        List<Pair> pairs = new ArrayList<>(totals.size());
+        totals.forEach((key, count) -> pairs.add(new Pair(terms.get((int) (key >>> 32)), terms.get((int) key), count)));
+        return top(pairs, limit);
+    }
+
+    /**
+     * Gets the words appearing most often near a given word.
+     *
+     * @param word the word
+     * @param limit the maximum number of words
+     * @return the pairs made of the word and one of its neighbours, by descending count
+     */
+    public List<Pair> getTopNeighbours(String word, int limit) {
+        Integer id = termIds.get(word);
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        List<Pair> pairs = new ArrayList<>();
+        totals.forEach((key, count) -> {
+            int low = (int) (key >>> 32);
+            int high = (int) key;
+            if (low == id || high == id) {
+                pairs.add(new Pair(word, terms.get(low == id ? high : low), count));
+            }
+        });
+        return top(pairs, limit);
+    }
+
+    private static List<Pair> top(List<Pair> pairs, int limit) {
+        pairs.sort((a, b) -> a.count != b.count ? Integer.compare(b.count, a.count)
+            : (a.first + " " + a.second).compareTo(b.first + " " + b.second));
+        return pairs.size() > limit ? new ArrayList<>(pairs.subList(0, limit)) : pairs;
+    }
+
+    /**
+     * Packs an unordered pair of term ids into a key, the smaller id first.
+     */
+    private static long pairKey(int id1, int id2) {
+        int low = Math.min(id1, id2);
+        int high = Math.max(id1, id2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+}
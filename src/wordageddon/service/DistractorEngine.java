@@ -0,0 +1,128 @@
+package wordageddon.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the wrong options of the questions from the frequency distribution of the documents.
+ *
+ * Distractors are taken from the histogram of each document (see
+ * {@link QuestionCandidatePools.DocumentWords}), which is computed once and shared
+ * by all the questions on the document:
+ * - numeric distractors are frequencies that really occur in the document, close
+ *   to the correct one, so they cannot be ruled out at a glance
+ * - word distractors come from the frequency bands next to the answer
+ *
+ * Every method does a bounded amount of work, independent of the random draws.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class DistractorEngine {
+
+    /** Number of distinct frequencies considered on each side of the correct one */
+    private static final int FREQUENCY_WINDOW = 3;
+
+    /** Number of words considered next to the answer when choosing word distractors */
+    private static final int WORD_WINDOW = 8;
+
+    /**
+     * Chooses wrong frequencies for a question about how many times a word appears.
+     * Frequencies of the document close to the correct one are preferred; when the
+     * document has too few of them, the closest unused positive values are added.
+     *
+     * @param words the words of the document
+     * @param correct the correct frequency
+     * @param count the number of distractors
+     * @param random the random source
+     * @return distinct frequencies different from the correct one
+     */
+    public static List<Integer> frequencyDistractors(QuestionCandidatePools.DocumentWords words,
+                                                     int correct, int count, Random random) {
+        return nearbyValues(words.getDistinctFrequencies(), correct, count, random);
+    }
+
+    /**
+     * Chooses wrong numeric answers among the values that really occur, close to the
+     * correct one; when there are too few of them the closest unused positive values are added.
+     *
+     * @param histogram the distinct values that occur, in ascending order
+     * @param correct the correct value
+     * @param count the number of distractors
+     * @param random the random source
+     * @return distinct values different from the correct one
+     */
+    public static List<Integer> nearbyValues(int[] histogram, int correct, int count, Random random) {
+        int position = Arrays.binarySearch(histogram, correct);
+        int insertion = position >= 0 ? position : -position - 1;
+        int from = Math.max(0, insertion - FREQUENCY_WINDOW);
+        int to = Math.min(histogram.length, (position >= 0 ? position + 1 : insertion) + FREQUENCY_WINDOW);
+
+        // valori reali vicini a quello corretto
+        List<Integer> window = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (histogram[i] != correct) {
+                window.add(histogram[i]);
+            }
+        }
+
+        List<Integer> distractors = new ArrayList<>(count);
+        for (int index : QuestionCandidatePools.sampleDistinct(window.size(), new int[0], count, random)) {
+            distractors.add(window.get(index));
+        }
+
+        // pochi valori distinti: completo con quelli più vicini
+        for (int delta = 1; distractors.size() < count; delta++) {
+            if (!distractors.contains(correct + delta)) {
+                distractors.add(correct + delta);
+            }
+            if (distractors.size() < count && correct - delta >= 1 && !distractors.contains(correct - delta)) {
+                distractors.add(correct - delta);
+            }
+        }
+        return distractors;
+    }
+
+    /**
+     * Chooses words appearing less often than the answer of a "which word is more
+     * frequent" question, taken from the bands just below the answer, so that the
+     * answer stays the only correct option.
+     *
+     * @param words the words of the document
+     * @param answerIndex the position of the correct word
+     * @param excludedIndex the position of a word already among the options
+     * @param count the number of distractors
+     * @param random the random source
+     * @return the positions of the chosen words (fewer than count if the document has too few)
+     */
+    public static int[] lessFrequentWords(QuestionCandidatePools.DocumentWords words, int answerIndex,
+                                          int excludedIndex, int count, Random random) {
+        int end = words.bandStart(answerIndex);
+        int start = Math.max(0, end - WORD_WINDOW);
+        int[] excluded = excludedIndex >= start && excludedIndex < end
+            ? new int[]{excludedIndex - start} : new int[0];
+        int[] picks = QuestionCandidatePools.sampleDistinct(end - start, excluded, count, random);
+        for (int i = 0; i < picks.length; i++) {
+            picks[i] += start;
+        }
+        return picks;
+    }
+
+    /**
+     * Chooses words that appear in the document, for a question asking which word
+     * never appears. The rarest words are preferred, because a word seen once is
+     * the easiest to mistake for a missing one.
+     *
+     * @param words the words of the document
+     * @param count the number of distractors
+     * @param random the random source
+     * @return the positions of the chosen words (fewer than count if the document has too few)
+     */
+    public static int[] rareWords(QuestionCandidatePools.DocumentWords words, int count, Random random) {
+        int window = Math.min(words.size(), Math.max(count, WORD_WINDOW));
+        return QuestionCandidatePools.sampleDistinct(window, new int[0], count, random);
+    }
+}
@@ -2,16 +2,28 @@ package wordageddon.service;
 
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
+import wordageddon.model.CompressedCorpus;
+import wordageddon.model.CompressedCorpusStore;
 import wordageddon.model.DocumentTermMatrix;
+import wordageddon.model.SegmentedCorpusIndex;
+import wordageddon.model.SegmentedDocumentTermMatrix;
 import wordageddon.model.TextAnalysisService;
 import wordageddon.model.GameDataContainer;
+import wordageddon.model.PositionalIndex;
+import wordageddon.model.WordCoOccurrence;
+import wordageddon.util.AtomicFileStore;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * Unified service for document management, processing and persistence.
@@ -24,16 +36,73 @@ public class DocumentServices {
     
     private static final String GAME_DATA_FILE = "game_data.ser";
     private static final String DOCUMENTS_DIR = "data/documents";
+    private static final String CORPUS_DIR = "data/corpus";
+    // file unico del corpus compresso usato dalle versioni precedenti, riscritto ad ogni avvio
+    private static final String LEGACY_CORPUS_FILE = "data/corpus.seg";
+    private static final String INDEX_DIR = "data/index";
+    
+    /**
+     * Whether document texts are kept in the compressed segment file instead of in memory
+     * and inside game_data.ser. Disabled by default, enabled with
+     * {@code -Dwordageddon.corpus.compressed=true}.
+     * 
+     * In compressed mode the documents directory works as an inbox: the .txt files
+     * found there are added to the corpus and then removed, so every document is
+     * stored once. It is opt-in because the bundled documents would be removed from
+     * the working copy; when the mode is disabled again the documents are written back
+     * as .txt files.
+     */
+    private static final boolean COMPRESSED_CORPUS =
+        Boolean.parseBoolean(System.getProperty("wordageddon.corpus.compressed", "false"));
+    
+    /**
+     * Size of the sliding window used to count word co-occurrences while the documents
+     * are analyzed; 0 disables the counting. Set with {@code -Dwordageddon.cooccurrence.window}.
+     */
+    private static final int CO_OCCURRENCE_WINDOW =
+        Integer.getInteger("wordageddon.cooccurrence.window", WordCoOccurrence.DEFAULT_WINDOW_SIZE);
+    
+    /**
+     * Minimum number of times a pair must appear in the corpus to be kept, set with
+     * {@code -Dwordageddon.cooccurrence.minCount}.
+     */
+    private static final int CO_OCCURRENCE_MIN_COUNT =
+        Integer.getInteger("wordageddon.cooccurrence.minCount", WordCoOccurrence.DEFAULT_MIN_COUNT);
+    
+    /**
+     * Whether the positions of the tokens are indexed while the documents are analyzed,
+     * for the questions on the word order. Disabled with {@code -Dwordageddon.positions=false}.
+     */
+    private static final boolean POSITIONAL_INDEX =
+        Boolean.parseBoolean(System.getProperty("wordageddon.positions", "true"));
+    
+    // un solo thread in background per il conteggio delle co-occorrenze, condiviso da tutti i servizi
+    private static final ExecutorService CO_OCCURRENCE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wordageddon-cooccurrence");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     private GameDataContainer gameData;
     private TextAnalysisService textAnalysisService;
     
+    /** File names of the documents, aligned with the document list; used as DTM ids */
+    private List<String> documentNames = new ArrayList<>();
+    
+    /** Segment-based index holding the DTM, null if it could not be opened */
+    private SegmentedCorpusIndex corpusIndex;
+    
+    /** Versioned store of the compressed documents, null in uncompressed mode */
+    private CompressedCorpusStore corpusStore;
+    
     /**
      * Constructs a new DocumentServices with initialized components.
      */
     public DocumentServices() {
         this.textAnalysisService = new TextAnalysisService();
         createDocumentsDirectory();
+        openCorpusStore();
+        openCorpusIndex();
         loadGameData();
         loadDocumentsFromDirectory();
     }
@@ -98,8 +167,8 @@ public class DocumentServices {
             // rigenero la DTM con le nuove stopwords
             regenerateDocumentTermMatrix();
             
-            // salvo i dati aggiornati
-            saveGameData();
+            // segno i dati come modificati, verranno salvati in background
+            markDirty();
             
             return true;
             
@@ -136,8 +205,8 @@ public class DocumentServices {
             // rigenero la DTM con le nuove stopwords
             regenerateDocumentTermMatrix();
             
-            // salvo i dati aggiornati
-            saveGameData();
+            // segno i dati come modificati, verranno salvati in background
+            markDirty();
             
             return true;
             
@@ -154,21 +223,27 @@ public class DocumentServices {
      * @return true if successful, false otherwise
      */
     public boolean removeDocument(int index) {
-        File dir = new File(DOCUMENTS_DIR);
-        if (!dir.exists() || !dir.isDirectory()) {
+        if (index < 0 || index >= documentNames.size()) {
             return false;
         }
         
-        File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".txt"));
-        if (files == null || index < 0 || index >= files.length) {
-            return false;
-        }
-        
-        // rimuovo il file fisico
-        boolean deleted = files[index].delete();
-        if (!deleted) {
-            System.err.println("Failed to delete file: " + files[index].getName());
-            return false;
+        String name = documentNames.get(index);
+        if (corpusStore != null) {
+            // il documento è solo nel corpus compresso: scrivo una nuova versione senza di lui
+            try {
+                corpusStore.update(new TreeMap<>(), Collections.singleton(name));
+            } catch (IOException e) {
+                System.err.println("Failed to remove document " + name + ": " + e.getMessage());
+                return false;
+            }
+        } else {
+            // rimuovo il file fisico
+            File target = new File(DOCUMENTS_DIR, name);
+            boolean deleted = target.delete();
+            if (!deleted) {
+                System.err.println("Failed to delete file: " + target.getName());
+                return false;
+            }
         }
         
         // ricarico tutti i documenti dalla directory
@@ -178,7 +253,9 @@ public class DocumentServices {
     }
     
     /**
-     * Gets the current list of documents.
+     * Gets a copy of the current list of documents.
+     * With the compressed corpus this decompresses every document: prefer
+     * {@link #getDocument(int)} or {@link #getDocumentsView()} when only some are needed.
      * 
      * @return list of document contents
      */
@@ -189,6 +266,52 @@ public class DocumentServices {
         return new ArrayList<>(gameData.getDocuments());
     }
     
+    /**
+     * Gets a read-only view of the current documents.
+     * With the compressed corpus each document is decompressed only when accessed.
+     * 
+     * @return read-only list of document contents
+     */
+    public List<String> getDocumentsView() {
+        if (gameData == null || gameData.getDocuments() == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(gameData.getDocuments());
+    }
+    
+    /**
+     * Gets the number of available documents.
+     * 
+     * @return the document count
+     */
+    public int getDocumentCount() {
+        if (gameData == null || gameData.getDocuments() == null) {
+            return 0;
+        }
+        return gameData.getDocuments().size();
+    }
+    
+    /**
+     * Gets the content of a single document, decompressing it on demand.
+     * 
+     * @param index position of the document
+     * @return the document content
+     * @throws IndexOutOfBoundsException if the index is not valid
+     */
+    public String getDocument(int index) {
+        return getDocumentsView().get(index);
+    }
+    
+    /**
+     * Gets the file names of the documents, aligned with {@link #getDocumentsView()}.
+     * They are also the document identifiers used in the DTM.
+     * 
+     * @return read-only list of document names
+     */
+    public List<String> getDocumentNames() {
+        return Collections.unmodifiableList(documentNames);
+    }
+    
     /**
      * Gets the current set of stopwords.
      * 
@@ -213,8 +336,42 @@ public class DocumentServices {
         return gameData.getDocumentTermMatrix();
     }
     
+    /**
+     * Gets the word co-occurrence counts of the current documents, counted with a
+     * sliding window. The counts are computed in the background after the DTM is
+     * built: this method waits for them and must not be called from the JavaFX thread.
+     * 
+     * @return the co-occurrence matrix, or null if the counting is disabled
+     */
+    public WordCoOccurrence getCoOccurrence() {
+        DocumentTermMatrix dtm = getDocumentTermMatrix();
+        return dtm != null ? dtm.getCoOccurrence() : null;
+    }
+    
+    /**
+     * Gets the word co-occurrence counts of the current documents without waiting for them.
+     * 
+     * @return a future completed with the co-occurrence matrix, or with null if the counting is disabled
+     */
+    public CompletableFuture<WordCoOccurrence> getCoOccurrenceAsync() {
+        DocumentTermMatrix dtm = getDocumentTermMatrix();
+        return dtm != null ? dtm.getCoOccurrenceAsync() : CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * Gets the positions of the tokens of the current documents, indexed while the
+     * DTM was built, for phrase lookups and questions on the word order.
+     * 
+     * @return the positional index, or null if the indexing is disabled
+     */
+    public PositionalIndex getPositionalIndex() {
+        DocumentTermMatrix dtm = getDocumentTermMatrix();
+        return dtm != null ? dtm.getPositionalIndex() : null;
+    }
+    
     /**
      * Gets basic statistics about the current data.
+     * The number of co-occurring pairs is included only once the counts are ready.
      * 
      * @return map with statistics
      */
@@ -231,17 +388,37 @@ public class DocumentServices {
             
             DocumentTermMatrix dtm = gameData.getDocumentTermMatrix();
             stats.put("vocabulary", dtm != null ? dtm.getVocabularySize() : 0);
+            // non aspetto il calcolo delle co-occorrenze se è ancora in corso
+            CompletableFuture<WordCoOccurrence> coOccurrence = dtm != null ? dtm.getCoOccurrenceAsync() : null;
+            if (coOccurrence != null && coOccurrence.isDone()) {
+                WordCoOccurrence counts = coOccurrence.join();
+                stats.put("cooccurrence_pairs", counts != null ? counts.getPairCount() : 0);
+            }
         }
         
         return stats;
     }
     
     /**
-     * Regenerates the Document Term Matrix from current documents and stopwords.
+     * Brings the Document Term Matrix up to date with the current documents and stopwords.
+     * Only new or changed documents are analyzed and written to a new index segment;
+     * removed documents are recorded as tombstones.
+     * 
+     * @return true if the matrix has changed
      */
-    private void regenerateDocumentTermMatrix() {
-        if (gameData == null || gameData.getDocuments() == null || gameData.getDocuments().isEmpty()) {
-            return;
+    private boolean regenerateDocumentTermMatrix() {
+        return regenerateDocumentTermMatrix(false);
+    }
+    
+    /**
+     * Brings the Document Term Matrix up to date with the current documents and stopwords.
+     * 
+     * @param force true to re-analyze every document instead of only the changed ones
+     * @return true if the matrix has changed
+     */
+    private boolean regenerateDocumentTermMatrix(boolean force) {
+        if (gameData == null || gameData.getDocuments() == null) {
+            return false;
         }
         
         Set<String> stopwords = gameData.getStopwords();
@@ -253,37 +430,177 @@ public class DocumentServices {
         if (this.textAnalysisService == null) {
             this.textAnalysisService = new TextAnalysisService();
         }
-
-        // creo la DTM usando il servizio di analisi del testo
-        DocumentTermMatrix dtm = textAnalysisService.createDocumentTermMatrix(
-            gameData.getDocuments(), stopwords);
         
+        List<String> documents = gameData.getDocuments();
+        // le posizioni sono calcolate nella stessa passata che conta i termini
+        PositionalIndex positions = POSITIONAL_INDEX ? new PositionalIndex() : null;
+        
+        if (corpusIndex == null) {
+            // indice non disponibile: costruisco la DTM in memoria, co-occorrenze comprese
+            WordCoOccurrence coOccurrence = CO_OCCURRENCE_WINDOW >= 2 ? new WordCoOccurrence(CO_OCCURRENCE_WINDOW) : null;
+            DocumentTermMatrix dtm = new DocumentTermMatrix();
+            for (int i = 0; i < documents.size(); i++) {
+                String documentId = documentNames.get(i);
+                textAnalysisService.countTerms(documentId, documents.get(i), stopwords, coOccurrence, positions)
+                    .forEach((word, count) -> dtm.addTerm(documentId, word, count));
+            }
+            attachTokenIndexes(dtm, coOccurrence, positions);
+            gameData.setDocumentTermMatrix(dtm);
+            gameData.updateTimestamp();
+            return true;
+        }
+        
+        // la firma cambia se cambia il contenuto del documento o l'insieme delle stopwords
+        long stopwordsFingerprint = stopwordsFingerprint(stopwords);
+        SegmentedCorpusIndex.Snapshot snapshot = corpusIndex.getSnapshot();
+        Map<String, Long> indexed = snapshot.getSignatures();
+        Map<String, Map<String, Integer>> changed = new HashMap<>();
+        Map<String, Long> signatures = new HashMap<>();
+        
+        for (int i = 0; i < documents.size(); i++) {
+            String documentId = documentNames.get(i);
+            long signature = contentChecksum(i) * 31 + stopwordsFingerprint;
+            // un documento indicizzato senza posizioni viene rianalizzato una volta per salvarle nel segmento
+            boolean missingPositions = positions != null && indexed.containsKey(documentId)
+                && snapshot.findSegment(documentId).getPositions(documentId) == null;
+            if (force || missingPositions || !Long.valueOf(signature).equals(indexed.get(documentId))) {
+                // analizzo solo i documenti nuovi o modificati
+                changed.put(documentId, textAnalysisService.countTerms(documentId, documents.get(i), stopwords,
+                    positions));
+                signatures.put(documentId, signature);
+            }
+        }
+        
+        Set<String> removed = new HashSet<>(indexed.keySet());
+        removed.removeAll(documentNames);
+        
+        // le posizioni dei documenti analizzati vengono salvate nel loro segmento
+        Map<String, PositionalIndex.DocumentPostings> changedPositions = new HashMap<>();
+        if (positions != null) {
+            changed.keySet().forEach(documentId -> changedPositions.put(documentId, positions.getDocument(documentId)));
+        }
+        
+        try {
+            if (!documents.isEmpty() && changed.size() == documents.size()) {
+                // tutti i documenti sono cambiati, sostituisco l'intero indice
+                corpusIndex.replaceAll(changed, signatures, changedPositions);
+            } else {
+                corpusIndex.deleteDocuments(removed);
+                corpusIndex.addDocuments(changed, signatures, changedPositions);
+            }
+        } catch (IOException e) {
+            System.err.println("Error updating corpus index: " + e.getMessage());
+        }
+        
+        // la DTM dell'indice ricompone l'indice posizionale dai segmenti quando serve,
+        // le co-occorrenze vengono contate in background una sola volta per DTM
+        DocumentTermMatrix dtm = corpusIndex.getMatrix();
+        if (CO_OCCURRENCE_WINDOW >= 2) {
+            List<String> documentIds = new ArrayList<>(documentNames);
+            Set<String> currentStopwords = new HashSet<>(stopwords);
+            dtm.computeCoOccurrenceIfAbsent(
+                () -> countCoOccurrence(dtm, documentIds, documents, currentStopwords), CO_OCCURRENCE_EXECUTOR);
+        }
         gameData.setDocumentTermMatrix(dtm);
-        gameData.updateTimestamp();
+        
+        boolean modified = !changed.isEmpty() || !removed.isEmpty();
+        if (modified) {
+            gameData.updateTimestamp();
+        }
+        return modified;
+    }
+    
+    /**
+     * Completes the indexes built while reading the tokens and attaches them to the DTM.
+     * 
+     * @param dtm the new Document Term Matrix
+     * @param coOccurrence the co-occurrence counts, or null if disabled
+     * @param positions the positional index, or null if disabled
+     */
+    private void attachTokenIndexes(DocumentTermMatrix dtm, WordCoOccurrence coOccurrence, PositionalIndex positions) {
+        if (coOccurrence != null) {
+            coOccurrence.prune(CO_OCCURRENCE_MIN_COUNT);
+            dtm.setCoOccurrence(coOccurrence);
+        }
+        dtm.setPositionalIndex(positions);
+    }
+    
+    /**
+     * Counts the co-occurrences of the documents of a DTM, in the background.
+     * The tokens are read from the positions stored in the index when available,
+     * so the text is decompressed and tokenized only for the documents without them.
+     * 
+     * @param dtm the Document Term Matrix of the documents
+     * @param documentIds the identifiers of the documents, in corpus order
+     * @param documents the contents of the documents, matching the identifiers
+     * @param stopwords the stopwords, which do not take a place in the window
+     * @return the pruned co-occurrence counts, or null if they cannot be computed
+     */
+    private WordCoOccurrence countCoOccurrence(DocumentTermMatrix dtm, List<String> documentIds,
+                                               List<String> documents, Set<String> stopwords) {
+        try {
+            WordCoOccurrence coOccurrence = new WordCoOccurrence(CO_OCCURRENCE_WINDOW);
+            PositionalIndex positions = dtm.getPositionalIndex();
+            TextAnalysisService analyzer = new TextAnalysisService();
+            
+            for (int i = 0; i < documentIds.size(); i++) {
+                String documentId = documentIds.get(i);
+                PositionalIndex.DocumentPostings postings = positions != null ? positions.getDocument(documentId) : null;
+                if (postings == null) {
+                    analyzer.countTerms(documentId, documents.get(i), stopwords, coOccurrence);
+                    continue;
+                }
+                // ricostruisco la sequenza dei token dalle posizioni, senza rileggere il testo
+                coOccurrence.beginDocument(documentId);
+                for (int term : postings.getTokenSequence()) {
+                    String token = postings.getTerm(term);
+                    coOccurrence.addToken(token, stopwords.contains(token));
+                }
+                coOccurrence.endDocument();
+            }
+            
+            coOccurrence.prune(CO_OCCURRENCE_MIN_COUNT);
+            return coOccurrence;
+        } catch (RuntimeException e) {
+            // chi attende le co-occorrenze riceve null invece di un errore
+            System.err.println("Error counting co-occurrences: " + e.getMessage());
+            return null;
+        }
     }
 
     /**
-     * Forces regeneration of the Document Term Matrix and saves the game data.
+     * Forces regeneration of the Document Term Matrix and schedules the save of the game data.
      * To be called from the admin panel.
      */
     public void regenerateAndSaveDtm() {
-        regenerateDocumentTermMatrix();
-        saveGameData();
+        regenerateDocumentTermMatrix(true);
+        markDirty();
+    }
+    
+    /**
+     * Writes any pending change of the game data to disk and waits for completion.
+     * Mainly useful before exiting or in tests that inspect the saved file.
+     */
+    public void flushNow() {
+        PersistenceWriter.getInstance().flushNow();
     }
     
     /**
-     * Loads game data from serialized file.
+     * Loads game data from serialized file, verifying its checksum.
+     * A damaged file is moved aside and the previous generation is loaded instead;
+     * empty data is used only when no valid generation exists.
      */
     private void loadGameData() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(GAME_DATA_FILE))) {
-            gameData = (GameDataContainer) ois.readObject();
+        try {
+            gameData = (GameDataContainer) AtomicFileStore.readObjectOrBackup(new File(GAME_DATA_FILE));
         } catch (FileNotFoundException e) {
             // il file non esiste ancora, inizio con dati vuoti
             gameData = new GameDataContainer();
             gameData.setDocuments(new ArrayList<>());
             gameData.setStopwords(new HashSet<>());
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading game data: " + e.getMessage());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // il file danneggiato è già stato messo da parte, il prossimo salvataggio non lo sovrascrive
+            System.err.println("Error loading game data, no valid backup available: " + e.getMessage());
             gameData = new GameDataContainer();
             gameData.setDocuments(new ArrayList<>());
             gameData.setStopwords(new HashSet<>());
@@ -291,14 +608,107 @@ public class DocumentServices {
     }
     
     /**
-     * Saves game data to serialized file.
+     * Marks the game data as modified.
+     * The write-behind scheduler saves the latest snapshot at most once per flush
+     * interval, so a burst of admin edits costs a single write.
      */
-    private void saveGameData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(GAME_DATA_FILE))) {
-            oos.writeObject(gameData);
+    private void markDirty() {
+        if (gameData == null) {
+            return;
+        }
+        GameDataContainer snapshot = gameData.snapshot();
+        if (snapshot.getDocumentTermMatrix() instanceof SegmentedDocumentTermMatrix) {
+            // la DTM è già salvata nell'indice a segmenti, non la riscrivo in game_data.ser
+            snapshot.setDocumentTermMatrix(null);
+        }
+        PersistenceWriter.getInstance().submit(new File(GAME_DATA_FILE), snapshot);
+    }
+    
+    /**
+     * Opens the versioned store of the compressed documents.
+     * In uncompressed mode the documents it holds are written back as .txt files.
+     */
+    private void openCorpusStore() {
+        // il vecchio file unico del corpus non serve più: i documenti erano ancora nella directory
+        new File(LEGACY_CORPUS_FILE).delete();
+        AtomicFileStore.backupFile(new File(LEGACY_CORPUS_FILE)).delete();
+        
+        File directory = new File(CORPUS_DIR);
+        if (COMPRESSED_CORPUS) {
+            corpusStore = CompressedCorpusStore.open(directory);
+        } else if (directory.isDirectory()) {
+            restoreDocumentFiles(CompressedCorpusStore.open(directory));
+        }
+    }
+    
+    /**
+     * Writes the documents of the compressed corpus back to the documents directory
+     * and empties the store, so that they are not lost when compression is disabled.
+     * 
+     * @param store the store holding the documents
+     */
+    private void restoreDocumentFiles(CompressedCorpusStore store) {
+        CompressedCorpus corpus = store.getCorpus();
+        if (corpus == null) {
+            return;
+        }
+        try {
+            for (int i = 0; i < corpus.size(); i++) {
+                File file = new File(DOCUMENTS_DIR, corpus.getName(i));
+                if (!file.exists()) {
+                    saveDocumentToFile(file.getName(), corpus.get(i));
+                }
+            }
+            store.clear();
+        } catch (IOException | UncheckedIOException e) {
+            // lascio il corpus intatto, verrà ripristinato al prossimo avvio
+            System.err.println("Error restoring documents from compressed corpus: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Opens the segment-based corpus index. On failure the DTM is kept in memory only.
+     */
+    private void openCorpusIndex() {
+        try {
+            corpusIndex = SegmentedCorpusIndex.open(new File(INDEX_DIR));
         } catch (IOException e) {
-            System.err.println("Error saving game data: " + e.getMessage());
+            System.err.println("Error opening corpus index: " + e.getMessage());
+            corpusIndex = null;
+        }
+    }
+    
+    /**
+     * Computes the CRC32 of a document content, reading it from the compressed
+     * corpus index when available instead of decompressing the document.
+     * 
+     * @param index position of the document
+     * @return the checksum of the UTF-8 content
+     */
+    private long contentChecksum(int index) {
+        List<String> documents = gameData.getDocuments();
+        if (documents instanceof CompressedCorpus) {
+            return ((CompressedCorpus) documents).getChecksum(index);
         }
+        byte[] raw = documents.get(index).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, raw.length);
+        return crc.getValue();
+    }
+    
+    /**
+     * Computes an order-independent fingerprint of the stopwords.
+     * 
+     * @param stopwords the stopwords in use
+     * @return the fingerprint
+     */
+    private long stopwordsFingerprint(Set<String> stopwords) {
+        CRC32 crc = new CRC32();
+        new TreeSet<>(stopwords).forEach(word -> {
+            byte[] raw = (word + "\n").getBytes(StandardCharsets.UTF_8);
+            crc.update(raw, 0, raw.length);
+        });
+        return crc.getValue();
     }
     
     /**
@@ -313,6 +723,10 @@ public class DocumentServices {
     
     /**
      * Loads all documents from the documents directory.
+     * In compressed mode only the .txt files waiting in the directory are read, one at
+     * a time, and added to a new version of the compressed corpus; when the directory
+     * is empty the current version is used as it is. The game data is saved only if
+     * the documents or the DTM have changed.
      */
     private void loadDocumentsFromDirectory() {
         File dir = new File(DOCUMENTS_DIR);
@@ -320,39 +734,133 @@ public class DocumentServices {
             return;
         }
         
-        File[] files = dir.listFiles((d, name) -> name.toLowerCase().endsWith(".txt"));
-        if (files == null) {
+        List<String> documents;
+        if (corpusStore != null) {
+            try {
+                ingestDocumentFiles();
+            } catch (IOException e) {
+                // i file restano nella directory e verranno aggiunti al prossimo caricamento
+                System.err.println("Error building compressed corpus: " + e.getMessage());
+            }
+            CompressedCorpus corpus = corpusStore.getCorpus();
+            documents = corpus != null ? corpus : new ArrayList<>();
+            documentNames = corpus != null ? corpus.getNames() : new ArrayList<>();
+        } else {
+            documents = readDocumentFiles();
+        }
+        
+        if (gameData == null) {
+            gameData = new GameDataContainer();
+            gameData.setStopwords(new HashSet<>());
+        }
+        
+        boolean documentsChanged = !sameDocuments(gameData.getDocuments(), documents);
+        gameData.setDocuments(documents);
+        
+        // aggiorno la DTM: vengono indicizzati solo i documenti nuovi o modificati
+        boolean matrixChanged = regenerateDocumentTermMatrix();
+        if (documentsChanged || matrixChanged) {
+            markDirty();
+        }
+    }
+    
+    /**
+     * Checks whether the saved documents are the same as the loaded ones.
+     * Compressed corpora are compared by file: every version has its own file.
+     * 
+     * @param saved the documents read from the game data
+     * @param loaded the documents just loaded
+     * @return true if nothing changed
+     */
+    private boolean sameDocuments(List<String> saved, List<String> loaded) {
+        if (saved instanceof CompressedCorpus && loaded instanceof CompressedCorpus) {
+            return ((CompressedCorpus) saved).getPath().equals(((CompressedCorpus) loaded).getPath());
+        }
+        if (saved instanceof CompressedCorpus || loaded instanceof CompressedCorpus) {
+            return false;
+        }
+        return saved != null && saved.equals(loaded);
+    }
+    
+    /**
+     * Reads all documents in memory (uncompressed mode).
+     * 
+     * @return list of document contents
+     */
+    private List<String> readDocumentFiles() {
+        List<String> names = new ArrayList<>();
+        List<String> documents = new ArrayList<>();
+        for (File file : listDocumentFiles()) {
+            try {
+                String content = readFileContent(file.toPath());
+                if (!content.trim().isEmpty()) {
+                    names.add(file.getName());
+                    documents.add(content);
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading document " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        documentNames = names;
+        return documents;
+    }
+    
+    /**
+     * Moves the .txt files of the documents directory into the compressed corpus.
+     * Files are read one at a time while the new version is written, and removed
+     * only once it is in place; empty or unreadable files are left where they are.
+     * 
+     * @throws IOException if the new version of the corpus cannot be written
+     */
+    private void ingestDocumentFiles() throws IOException {
+        List<File> files = listDocumentFiles();
+        if (files.isEmpty()) {
             return;
         }
         
-        // uso uno stream per processare i file di documenti
-        List<String> documents = Arrays.stream(files)
-            .map(file -> {
+        SortedMap<String, CompressedCorpusStore.Source> added = new TreeMap<>();
+        List<File> ingested = new ArrayList<>();
+        for (File file : files) {
+            added.put(file.getName(), () -> {
                 try {
-                    String content = readFileContent(file.toPath());
-                    return content.trim().isEmpty() ? null : content;
+                    // leggo il file così com'è, per poterlo ripristinare identico
+                    String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                    if (content.trim().isEmpty()) {
+                        return null;
+                    }
+                    ingested.add(file);
+                    return content;
                 } catch (IOException e) {
                     System.err.println("Error reading document " + file.getName() + ": " + e.getMessage());
                     return null;
                 }
-            })
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
-        
-        if (gameData == null) {
-            gameData = new GameDataContainer();
-            gameData.setStopwords(new HashSet<>());
+            });
         }
+        corpusStore.update(added, Collections.<String>emptySet());
         
-        gameData.setDocuments(documents);
-        
-        // rigenero la DTM se abbiamo documenti
-        if (!documents.isEmpty()) {
-            regenerateDocumentTermMatrix();
-            saveGameData();
+        // il testo è ora solo nel corpus compresso
+        for (File file : ingested) {
+            if (!file.delete()) {
+                System.err.println("Failed to delete ingested document: " + file.getName());
+            }
         }
     }
     
+    /**
+     * Lists the .txt files of the documents directory, sorted by name
+     * so that document positions are stable across runs.
+     * 
+     * @return the sorted list of document files
+     */
+    private List<File> listDocumentFiles() {
+        File[] files = new File(DOCUMENTS_DIR).listFiles((d, name) -> name.toLowerCase().endsWith(".txt"));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        return Arrays.asList(files);
+    }
+    
     /**
      * Saves a document to the documents directory.
      * 
@@ -362,9 +870,8 @@ public class DocumentServices {
      */
     private void saveDocumentToFile(String fileName, String content) throws IOException {
         File file = new File(DOCUMENTS_DIR, fileName);
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write(content);
-        }
+        // scrivo in UTF-8, la stessa codifica usata per leggere i documenti
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
     }
     
     /**
@@ -458,26 +965,25 @@ public class DocumentServices {
                         updateMessage("Salvataggio DTM...");
                         updateProgress(0, 100);
 
-                        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(path))) {
-                            updateProgress(30, 100);
-                            
-                            // serializza la DTM
-                            oos.writeObject(dtmToSave);
-                            
-                            updateProgress(80, 100);
-                            updateMessage("Verifica integrità file...");
-                            
-                            // verifica dell'integrità del file salvato
-                            File savedFile = new File(path);
-                            if (!savedFile.exists() || savedFile.length() == 0) {
-                                throw new IOException("Il file non è stato salvato correttamente");
-                            }
-                            
-                            updateProgress(100, 100);
-                            updateMessage("Document-Term Matrix salvata con successo!");
-                            
-                            return true;
+                        updateProgress(30, 100);
+                        
+                        // serializza la DTM sul thread di scrittura (file temporaneo + rename atomico)
+                        PersistenceWriter.getInstance().writeAndWait(new File(path), dtmToSave);
+                        
+                        updateProgress(80, 100);
+                        updateMessage("Verifica integrità file...");
+                        
+                        // verifica dell'integrità del file salvato tramite il checksum
+                        File savedFile = new File(path);
+                        if (!savedFile.exists() || savedFile.length() == 0) {
+                            throw new IOException("Il file non è stato salvato correttamente");
                         }
+                        AtomicFileStore.readBytes(savedFile);
+                        
+                        updateProgress(100, 100);
+                        updateMessage("Document-Term Matrix salvata con successo!");
+                        
+                        return true;
                     }
                     
                     /**
@@ -500,31 +1006,29 @@ public class DocumentServices {
 
                         updateProgress(20, 100);
 
-                        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(path))) {
-                            updateProgress(50, 100);
-                            updateMessage("Deserializzazione dati...");
-                            
-                            // carica e verifica il tipo dell'oggetto
-                            Object loaded = ois.readObject();
-                            if (!(loaded instanceof DocumentTermMatrix)) {
-                                throw new IOException("Il file non contiene una Document-Term Matrix valida");
-                            }
-                            
-                            loadedDtm = (DocumentTermMatrix) loaded;
-                            
-                            updateProgress(90, 100);
-                            updateMessage("Validazione dati caricati...");
-                            
-                            // validazione di base della DTM caricata
-                            if (loadedDtm == null) {
-                                throw new IOException("Document-Term Matrix caricata è null");
-                            }
-                            
-                            updateProgress(100, 100);
-                            updateMessage("Document-Term Matrix caricata con successo!");
-                            
-                            return true;
+                        updateProgress(50, 100);
+                        updateMessage("Deserializzazione dati...");
+                        
+                        // carica verificando il checksum e controlla il tipo dell'oggetto
+                        Object loaded = AtomicFileStore.readObject(file);
+                        if (!(loaded instanceof DocumentTermMatrix)) {
+                            throw new IOException("Il file non contiene una Document-Term Matrix valida");
+                        }
+                        
+                        loadedDtm = (DocumentTermMatrix) loaded;
+                        
+                        updateProgress(90, 100);
+                        updateMessage("Validazione dati caricati...");
+                        
+                        // validazione di base della DTM caricata
+                        if (loadedDtm == null) {
+                            throw new IOException("Document-Term Matrix caricata è null");
                         }
+                        
+                        updateProgress(100, 100);
+                        updateMessage("Document-Term Matrix caricata con successo!");
+                        
+                        return true;
                     }
                 };
             }
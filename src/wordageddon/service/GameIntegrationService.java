@@ -1,15 +1,20 @@
 package wordageddon.service;
 
+import wordageddon.dao.AsyncGameSessionDAO;
 import wordageddon.dao.DAOFactory;
+import wordageddon.dao.DatabaseExecutor;
 import wordageddon.dao.UserDAO;
 import wordageddon.dao.GameSessionDAO;
-import wordageddon.dao.AnswerDAO;
+import wordageddon.dao.Page;
+import wordageddon.dao.PageCursor;
 import wordageddon.model.GameSession;
 import wordageddon.model.GameSessionSummary;
+import wordageddon.model.UserGameStatistics;
 import wordageddon.model.UserLeaderboardEntry;
 import wordageddon.model.Answer;
 import java.util.List;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for integrating game data with database operations.
@@ -17,14 +22,17 @@ import java.util.Collections;
  */
 public class GameIntegrationService {
     
+    /** Entries shown in the global leaderboard, set with {@code -Dwordageddon.leaderboard.size} */
+    private static final int LEADERBOARD_SIZE = Integer.getInteger("wordageddon.leaderboard.size", 100);
+    
     private final UserDAO userDAO;
     private final GameSessionDAO gameSessionDAO;
-    private final AnswerDAO answerDAO;
+    private final AsyncGameSessionDAO asyncGameSessionDAO;
     
     public GameIntegrationService() {
         this.userDAO = DAOFactory.getUserDAO();
         this.gameSessionDAO = DAOFactory.getGameSessionDAO();
-        this.answerDAO = DAOFactory.getAnswerDAO();
+        this.asyncGameSessionDAO = DAOFactory.getAsyncGameSessionDAO();
     }
     
     /**
@@ -39,25 +47,20 @@ public class GameIntegrationService {
             // calcola il punteggio finale mantenendo i decimali
             double finalScore = gameSession.getTotalScore();
             
-            // salva la sessione di gioco
-            int sessionId = gameSessionDAO.addGameSession(
+            // salva la sessione e tutte le risposte in un'unica transazione
+            int sessionId = gameSessionDAO.saveSessionWithAnswers(
                 userId, 
                 finalScore, 
                 gameSession.getDifficulty(), 
-                "italian" // lingua predefinita
+                "italian", // lingua predefinita
+                gameSession.getStartTime(),
+                gameSession.getEndTime(),
+                gameSession.getAnswers()
             );
             
             if (sessionId > 0) {
-                // salva tutte le risposte
-                for (Answer answer : gameSession.getAnswers()) {
-                    answerDAO.addAnswer(
-                        sessionId,
-                        answer.getQuestion().getQuestionText(),
-                        answer.getSelectedAnswerText(),
-                        answer.getQuestion().getCorrectAnswerText(),
-                        answer.isCorrect()
-                    );
-                }
+                // aggiorna le statistiche di difficoltà delle domande
+                QuestionDifficultyService.getInstance().recordAnswers(gameSession.getAnswers());
             }
             
             return sessionId;
@@ -98,6 +101,18 @@ public class GameIntegrationService {
         return saveGameSession(userId, gameSession);
     }
     
+    /**
+     * Saves a completed game session on the database writer thread, without blocking the caller.
+     * 
+     * @param userId the user ID
+     * @param gameSession the completed game session
+     * @return a future completed with the session ID, -1 if the save failed
+     */
+    public CompletableFuture<Integer> saveUserGameSessionAsync(int userId, GameSession gameSession) {
+        // anche l'aggiornamento delle statistiche delle domande avviene sul thread di scrittura
+        return DatabaseExecutor.getInstance().write(() -> saveGameSession(userId, gameSession));
+    }
+    
     /**
      * Gets all game sessions for a specific user.
      * 
@@ -130,15 +145,120 @@ public class GameIntegrationService {
     }
 
     /**
-     * Gets the global leaderboard showing all users with their total points.
+     * Gets a page of the game session summaries of a user, the most recent first.
+     * 
+     * @param userId the user ID
+     * @param after the cursor of the previous page, null for the first page
+     * @param limit the maximum number of summaries
+     * @return the page of summaries, an empty last page if an error occurs
+     */
+    public Page<GameSessionSummary> getUserGameSessionSummaries(int userId, PageCursor after, int limit) {
+        try {
+            return gameSessionDAO.getGameSessionSummariesByUser(userId, after, limit);
+        } catch (Exception e) {
+            System.err.println("Error retrieving user game session summaries: " + e.getMessage());
+            return new Page<>(Collections.<GameSessionSummary>emptyList(), null);
+        }
+    }
+    
+    /**
+     * Gets a page of the game session summaries of a user without blocking the caller.
+     * 
+     * @param userId the user ID
+     * @param after the cursor of the previous page, null for the first page
+     * @param limit the maximum number of summaries
+     * @return a future completed with the page, an empty last page if an error occurs
+     */
+    public CompletableFuture<Page<GameSessionSummary>> getUserGameSessionSummariesAsync(int userId, PageCursor after, int limit) {
+        return asyncGameSessionDAO.getGameSessionSummariesByUser(userId, after, limit).exceptionally(e -> {
+            System.err.println("Error retrieving user game session summaries: " + e.getMessage());
+            return new Page<>(Collections.<GameSessionSummary>emptyList(), null);
+        });
+    }
+    
+    /**
+     * Gets the aggregated statistics of the games of a user.
+     * 
+     * @param userId the user ID
+     * @return the statistics, with zero games if none found or an error occurs
+     */
+    public UserGameStatistics getUserStatistics(int userId) {
+        try {
+            return gameSessionDAO.getUserStatistics(userId);
+        } catch (Exception e) {
+            System.err.println("Error retrieving user statistics: " + e.getMessage());
+            return new UserGameStatistics(0, 0, 0, 0, null);
+        }
+    }
+    
+    /**
+     * Gets the aggregated statistics of the games of a user without blocking the caller.
+     * 
+     * @param userId the user ID
+     * @return a future completed with the statistics, with zero games if an error occurs
+     */
+    public CompletableFuture<UserGameStatistics> getUserStatisticsAsync(int userId) {
+        return asyncGameSessionDAO.getUserStatistics(userId).exceptionally(e -> {
+            System.err.println("Error retrieving user statistics: " + e.getMessage());
+            return new UserGameStatistics(0, 0, 0, 0, null);
+        });
+    }
+    
+    /**
+     * Gets the top of the global leaderboard with the users' total points.
      * 
      * @return list of user leaderboard entries ordered by total points
-     */    public List<UserLeaderboardEntry> getGlobalLeaderboard() {
+     */
+    public List<UserLeaderboardEntry> getGlobalLeaderboard() {
         try {
-            return gameSessionDAO.getGlobalLeaderboard();
+            return gameSessionDAO.getGlobalLeaderboard(LEADERBOARD_SIZE);
         } catch (Exception e) {
             System.err.println("Error retrieving global leaderboard: " + e.getMessage());
             return Collections.emptyList();
         }
     }
+    
+    /**
+     * Gets a page of the global leaderboard, ordered by total points.
+     * 
+     * @param after the cursor of the previous page, null for the first page
+     * @param limit the maximum number of entries
+     * @return the page of entries, an empty last page if an error occurs
+     */
+    public Page<UserLeaderboardEntry> getGlobalLeaderboard(PageCursor after, int limit) {
+        try {
+            return gameSessionDAO.getGlobalLeaderboard(after, limit);
+        } catch (Exception e) {
+            System.err.println("Error retrieving global leaderboard: " + e.getMessage());
+            return new Page<>(Collections.<UserLeaderboardEntry>emptyList(), null);
+        }
+    }
+    
+    /**
+     * Gets a page of the global leaderboard without blocking the caller.
+     * 
+     * @param after the cursor of the previous page, null for the first page
+     * @param limit the maximum number of entries
+     * @return a future completed with the page, an empty last page if an error occurs
+     */
+    public CompletableFuture<Page<UserLeaderboardEntry>> getGlobalLeaderboardAsync(PageCursor after, int limit) {
+        return asyncGameSessionDAO.getGlobalLeaderboard(after, limit).exceptionally(e -> {
+            System.err.println("Error retrieving global leaderboard: " + e.getMessage());
+            return new Page<>(Collections.<UserLeaderboardEntry>emptyList(), null);
+        });
+    }
+    
+    /**
+     * Recomputes the leaderboard totals from the stored game sessions.
+     * 
+     * @return the number of users in the leaderboard, -1 if the rebuild failed
+     */
+    public int rebuildLeaderboard() {
+        try {
+            return gameSessionDAO.rebuildLeaderboard();
+        } catch (Exception e) {
+            System.err.println("Error rebuilding leaderboard: " + e.getMessage());
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,336 @@
+package wordageddon.service;
+
+import wordageddon.util.AtomicFileStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Singleton write-behind scheduler for the serialized game data files.
+ *
+ * Callers mark a file as dirty by submitting a snapshot and return immediately.
+ * The first dirty mark schedules a flush after the configured interval; snapshots
+ * submitted in the meantime replace each other, so a burst of changes results in
+ * a single write of the latest state. Pending data is also written on
+ * {@link #flushNow()} and on {@link #shutdown()}.
+ *
+ * All writes run on a single daemon thread through {@link AtomicFileStore}.
+ * Once {@link #shutdown()} has started, snapshots are no longer queued: they are
+ * written synchronously on the caller's thread after the final flush, so a save
+ * issued while the application exits is never lost.
+ * The interval defaults to {@value #DEFAULT_FLUSH_INTERVAL_MS} ms and can be changed
+ * with the {@code wordageddon.persistence.flushIntervalMs} system property.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class PersistenceWriter {
+
+    /** Default delay between the first dirty mark and the flush */
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 2000;
+
+    private static PersistenceWriter instance;
+
+    /** Single thread performing all the writes */
+    private final ScheduledExecutorService executor;
+
+    /** Latest snapshot waiting to be written, for each target file */
+    private final Map<File, Serializable> pending = new LinkedHashMap<>();
+
+    /** Flush scheduled for the current burst, null if nothing is dirty */
+    private ScheduledFuture<?> scheduledFlush;
+
+    /** Set under the pending lock when the shutdown starts; no task is submitted afterwards */
+    private boolean closed;
+
+    /** Serializes the writes done on the callers' threads after the shutdown */
+    private final Object directWriteLock = new Object();
+
+    /** Delay between the first dirty mark and the flush, in milliseconds */
+    private volatile long flushIntervalMillis;
+
+    private PersistenceWriter() {
+        this.flushIntervalMillis = Long.getLong("wordageddon.persistence.flushIntervalMs", DEFAULT_FLUSH_INTERVAL_MS);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wordageddon-persistence");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // salvo i dati in sospeso anche se la JVM termina senza passare da Application.stop()
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "wordageddon-persistence-shutdown"));
+    }
+
+    /**
+     * Gets the singleton instance of PersistenceWriter.
+     *
+     * @return the PersistenceWriter instance
+     */
+    public static synchronized PersistenceWriter getInstance() {
+        if (instance == null) {
+            instance = new PersistenceWriter();
+        }
+        return instance;
+    }
+
+    /**
+     * Marks the target file as dirty with the given snapshot.
+     * Returns immediately; the write happens at the end of the current flush interval.
+     * After the shutdown has started the snapshot is written before returning.
+     *
+     * @param target the file to write
+     * @param snapshot the object to serialize, must not be modified afterwards
+     */
+    public void submit(File target, Serializable snapshot) {
+        File absoluteTarget = target.getAbsoluteFile();
+        synchronized (pending) {
+            if (!closed) {
+                // sovrascrivo l'eventuale snapshot non ancora scritto per lo stesso file
+                pending.put(absoluteTarget, snapshot);
+                if (scheduledFlush == null) {
+                    scheduledFlush = executor.schedule(this::drainPending, flushIntervalMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+
+        // il thread di scrittura è fermo: scrivo subito, altrimenti lo snapshot andrebbe perso
+        try {
+            writeDirectly(absoluteTarget, snapshot);
+        } catch (IOException e) {
+            System.err.println("Error saving " + absoluteTarget.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the object on the writer thread and waits for completion.
+     * Any pending snapshot for the same file is superseded by this write.
+     *
+     * @param target the file to write
+     * @param object the object to serialize
+     * @throws IOException if the write fails or the calling thread is interrupted
+     */
+    public void writeAndWait(File target, Serializable object) throws IOException {
+        File absoluteTarget = target.getAbsoluteFile();
+        Future<?> result;
+        synchronized (pending) {
+            if (closed) {
+                result = null;
+            } else {
+                pending.remove(absoluteTarget);
+                result = executor.submit(() -> {
+                    AtomicFileStore.writeObject(absoluteTarget, object);
+                    return null;
+                });
+            }
+        }
+
+        if (result == null) {
+            writeDirectly(absoluteTarget, object);
+        } else {
+            await(result);
+        }
+    }
+
+    /**
+     * Writes every pending snapshot immediately and waits for completion,
+     * without waiting for the end of the flush interval.
+     */
+    public void flushNow() {
+        Future<?> flush;
+        synchronized (pending) {
+            if (closed) {
+                flush = null;
+            } else {
+                // accodo il flush sotto lo stesso lock di shutdown(), così non può essere rifiutato
+                cancelScheduledFlush();
+                flush = executor.submit(this::drainPending);
+            }
+        }
+
+        if (flush == null) {
+            // lo shutdown svuota già i dati in sospeso, attendo che abbia finito
+            awaitTermination();
+            return;
+        }
+        try {
+            await(flush);
+        } catch (IOException e) {
+            System.err.println("Error flushing pending writes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks whether some snapshot is still waiting to be written.
+     *
+     * @return true if at least one file is dirty
+     */
+    public boolean hasPendingWrites() {
+        synchronized (pending) {
+            return !pending.isEmpty();
+        }
+    }
+
+    /**
+     * Gets the delay between the first dirty mark and the flush.
+     *
+     * @return the flush interval in milliseconds
+     */
+    public long getFlushInterval() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Sets the delay between the first dirty mark and the flush.
+     * Applies to the bursts started after the call.
+     *
+     * @param flushIntervalMillis the flush interval in milliseconds
+     * @throws IllegalArgumentException if the interval is negative
+     */
+    public void setFlushInterval(long flushIntervalMillis) {
+        if (flushIntervalMillis < 0) {
+            throw new IllegalArgumentException("L'intervallo di flush non può essere negativo");
+        }
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    /**
+     * Writes all pending snapshots and stops the writer thread.
+     * To be called when the application exits.
+     */
+    public void shutdown() {
+        Future<?> flush;
+        synchronized (pending) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancelScheduledFlush();
+            flush = executor.submit(this::drainPending);
+            executor.shutdown();
+        }
+        try {
+            await(flush);
+        } catch (IOException e) {
+            System.err.println("Error flushing pending writes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancels the flush scheduled for the current burst, if any.
+     * Must be called while holding the pending lock.
+     */
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Writes an object on the calling thread, used once the writer thread is stopped.
+     * Waits for the final flush first, so an older snapshot never overwrites this one.
+     *
+     * @param target the file to write
+     * @param object the object to serialize
+     * @throws IOException if the write fails
+     */
+    private void writeDirectly(File target, Serializable object) throws IOException {
+        awaitTermination();
+        // il file temporaneo ha un nome fisso: due scritture sullo stesso file non devono sovrapporsi
+        synchronized (directWriteLock) {
+            AtomicFileStore.writeObject(target, object);
+        }
+    }
+
+    /**
+     * Waits until the writer thread has completed the final flush.
+     */
+    private void awaitTermination() {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the snapshots collected during the current burst.
+     * A snapshot whose write fails is queued again, unless a newer one has been
+     * submitted meanwhile, and retried at the next flush.
+     * Runs on the writer thread only.
+     */
+    private void drainPending() {
+        Map<File, Serializable> batch;
+        synchronized (pending) {
+            scheduledFlush = null;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+
+        batch.forEach((file, snapshot) -> {
+            try {
+                AtomicFileStore.writeObject(file, snapshot);
+            } catch (IOException e) {
+                System.err.println("Error saving " + file.getName() + ": " + e.getMessage());
+                retryLater(file, snapshot);
+            }
+        });
+    }
+
+    /**
+     * Puts back a snapshot whose write failed and schedules a new flush.
+     * Runs on the writer thread only.
+     *
+     * @param file the target file
+     * @param snapshot the snapshot that could not be written
+     */
+    private void retryLater(File file, Serializable snapshot) {
+        synchronized (pending) {
+            if (closed) {
+                // è il flush finale: non ci sarà un altro tentativo
+                System.err.println("Pending changes to " + file.getName() + " could not be saved before exiting");
+                return;
+            }
+            // uno snapshot più recente per lo stesso file sostituisce quello fallito
+            pending.putIfAbsent(file, snapshot);
+            if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(this::drainPending, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Waits for a task submitted to the writer thread, unwrapping I/O failures.
+     *
+     * @param result the future of the submitted task
+     * @throws IOException if the task failed or the wait was interrupted
+     */
+    private void await(Future<?> result) throws IOException {
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Scrittura interrotta", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Errore durante la scrittura: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package wordageddon.service;
+
+import wordageddon.model.DocumentTermMatrix;
+import wordageddon.model.Question;
+import wordageddon.model.QuestionBank;
+import wordageddon.model.QuestionStatistics;
+import wordageddon.model.QuestionType;
+import wordageddon.util.AtomicFileStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Singleton service that builds, persists and serves the {@link QuestionBank}.
+ *
+ * The bank is built offline on a background thread: for every subset of up to
+ * {@value #MAX_GAME_DOCUMENTS} documents it generates a pool of distinct, validated
+ * questions of each type. The bank is saved compressed to {@value #BANK_FILE}
+ * together with the fingerprint of the DTM; when the DTM changes the saved bank
+ * is ignored and rebuilt.
+ *
+ * Games draw their questions from the bank in O(1) per question; when the bank
+ * is not ready yet (or the subset is missing) {@link #draw} returns null and the
+ * caller falls back to live generation.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionBankService {
+
+    private static final String BANK_FILE = "data/question_bank.ser";
+
+    /** Number of questions generated for each subset and question type */
+    public static final int POOL_SIZE = 24;
+
+    /** Largest number of documents shown in a game */
+    private static final int MAX_GAME_DOCUMENTS = 3;
+
+    /** Above this number of subsets only the subsets actually played are generated */
+    private static final int MAX_PRECOMPUTED_SUBSETS = 500;
+
+    private static QuestionBankService instance;
+
+    /** Single thread building and saving the bank */
+    private final ExecutorService builder;
+
+    private final Random random = new Random();
+
+    /** Current bank, null until the first build or load completes */
+    private volatile QuestionBank bank;
+
+    /** Last DTM whose fingerprint has been checked against the bank */
+    private volatile DocumentTermMatrix verifiedDtm;
+
+    private QuestionBankService() {
+        this.builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wordageddon-question-bank");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the singleton instance of QuestionBankService.
+     *
+     * @return the QuestionBankService instance
+     */
+    public static synchronized QuestionBankService getInstance() {
+        if (instance == null) {
+            instance = new QuestionBankService();
+        }
+        return instance;
+    }
+
+    /**
+     * Loads or builds in background the bank for the given corpus.
+     * Returns immediately.
+     *
+     * @param dtm the current Document-Term Matrix
+     * @param documents all the documents that can be chosen for a game, in game order
+     */
+    public void prepare(DocumentTermMatrix dtm, List<String> documents) {
+        List<String> allDocuments = new ArrayList<>(documents);
+        builder.submit(() -> {
+            try {
+                QuestionBank current = bankFor(dtm);
+                List<List<String>> subsets = enumerateSubsets(allDocuments);
+                if (subsets.size() > MAX_PRECOMPUTED_SUBSETS) {
+                    // troppe combinazioni: precalcolo solo i singoli documenti
+                    subsets.removeIf(subset -> subset.size() > 1);
+                }
+                fill(current, dtm, subsets);
+            } catch (RuntimeException e) {
+                System.err.println("Error building question bank: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Draws the questions of a game from the bank.
+     *
+     * @param dtm the Document-Term Matrix of the game
+     * @param documents the documents of the game, in game order
+     * @param count the number of questions needed
+     * @return the questions numbered from 1, or null if the bank cannot serve the request
+     */
+    public List<Question> draw(DocumentTermMatrix dtm, List<String> documents, int count) {
+        return draw(dtm, documents, count, null, 0);
+    }
+
+    /**
+     * Draws the questions of a game from the bank, preferring those of the target difficulty.
+     *
+     * @param dtm the Document-Term Matrix of the game
+     * @param documents the documents of the game, in game order
+     * @param count the number of questions needed
+     * @param statistics the difficulty model, or null to draw the types at random
+     * @param targetDifficulty the expected error rate the questions should have
+     * @return the questions numbered from 1, or null if the bank cannot serve the request
+     */
+    public List<Question> draw(DocumentTermMatrix dtm, List<String> documents, int count,
+                               QuestionStatistics statistics, double targetDifficulty) {
+        QuestionBank current = bank;
+        if (current == null || dtm == null) {
+            return null;
+        }
+
+        if (dtm != verifiedDtm) {
+            // la banca è valida solo per la versione della DTM da cui è stata generata
+            if (dtm.getFingerprint() != current.getCorpusVersion()) {
+                return null;
+            }
+            verifiedDtm = dtm;
+        }
+
+        List<Question> questions;
+        synchronized (random) {
+            questions = statistics != null
+                ? current.draw(documents, count, random, statistics, targetDifficulty)
+                : current.draw(documents, count, random);
+        }
+
+        if (questions == null && !current.containsSubset(documents)) {
+            // genero il sottoinsieme mancante per le partite successive
+            List<String> subset = new ArrayList<>(documents);
+            builder.submit(() -> fill(current, dtm, Collections.singletonList(subset)));
+        }
+        return questions;
+    }
+
+    /**
+     * Gets the bank for the given DTM, loading it from disk or creating an empty one
+     * when the current bank belongs to another corpus version.
+     * Runs on the builder thread only.
+     *
+     * @param dtm the current Document-Term Matrix
+     * @return the bank matching the DTM
+     */
+    private QuestionBank bankFor(DocumentTermMatrix dtm) {
+        long version = dtm.getFingerprint();
+        QuestionBank current = bank;
+        if (current == null || current.getCorpusVersion() != version) {
+            current = loadBank();
+            if (current == null || current.getCorpusVersion() != version) {
+                current = new QuestionBank(version);
+            }
+        }
+        bank = current;
+        verifiedDtm = dtm;
+        return current;
+    }
+
+    /**
+     * Generates the missing subsets of the bank and saves it if something changed.
+     * Runs on the builder thread only.
+     *
+     * @param target the bank to fill
+     * @param dtm the Document-Term Matrix the bank belongs to
+     * @param subsets the subsets that must be present
+     */
+    private void fill(QuestionBank target, DocumentTermMatrix dtm, List<List<String>> subsets) {
+        boolean changed = false;
+        for (List<String> subset : subsets) {
+            if (!target.containsSubset(subset)) {
+                target.putPools(subset, generatePools(dtm, subset));
+                changed = true;
+            }
+        }
+        if (changed && target == bank) {
+            saveBank(target);
+        }
+    }
+
+    /**
+     * Generates the pools of distinct questions for a document subset.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param subset the documents of the subset, in game order
+     * @return one pool per question type
+     */
+    private Question[][] generatePools(DocumentTermMatrix dtm, List<String> subset) {
+        QuestionGeneratorService generator = SharedQuestionService.getInstance().createBulkGenerator(dtm, subset);
+        QuestionType[] types = QuestionType.values();
+        Question[][] pools = new Question[types.length][];
+
+        for (QuestionType type : types) {
+            List<Question> pool = new ArrayList<>();
+
+            // i candidati vengono estratti senza ripetizioni: mi fermo quando il tipo è esaurito
+            while (pool.size() < POOL_SIZE && !generator.isExhausted(type)) {
+                Question question = generator.generateQuestion(type, 0);
+                if (question == null) {
+                    break;
+                }
+                pool.add(question);
+            }
+            pools[type.ordinal()] = pool.toArray(new Question[0]);
+        }
+        return pools;
+    }
+
+    /**
+     * Lists the subsets of up to {@value #MAX_GAME_DOCUMENTS} documents, keeping the document order.
+     *
+     * @param documents all the documents
+     * @return the subsets, smallest first
+     */
+    private List<List<String>> enumerateSubsets(List<String> documents) {
+        List<List<String>> subsets = new ArrayList<>();
+        int n = documents.size();
+        for (int i = 0; i < n; i++) {
+            subsets.add(Arrays.asList(documents.get(i)));
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                subsets.add(Arrays.asList(documents.get(i), documents.get(j)));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                for (int k = j + 1; k < n; k++) {
+                    subsets.add(Arrays.asList(documents.get(i), documents.get(j), documents.get(k)));
+                }
+            }
+        }
+        return subsets;
+    }
+
+    /**
+     * Reads the saved bank, if any.
+     *
+     * @return the saved bank, or null if missing or unreadable
+     */
+    private QuestionBank loadBank() {
+        try {
+            byte[] compressed = AtomicFileStore.readBytes(new File(BANK_FILE));
+            try (ObjectInputStream ois = new ObjectInputStream(
+                    new GZIPInputStream(new ByteArrayInputStream(compressed)))) {
+                return (QuestionBank) ois.readObject();
+            }
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Error loading question bank: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Saves the bank compressed with GZIP.
+     *
+     * @param target the bank to save
+     */
+    private void saveBank(QuestionBank target) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(buffer))) {
+                oos.writeObject(target);
+            }
+            AtomicFileStore.writeBytes(new File(BANK_FILE), buffer.toByteArray());
+        } catch (IOException e) {
+            System.err.println("Error saving question bank: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,770 @@
+package wordageddon.service;
+
+import wordageddon.model.CorpusStatistics;
+import wordageddon.model.DocumentTermMatrix;
+import wordageddon.model.PositionalIndex;
+import wordageddon.model.QuestionStatistics;
+import wordageddon.model.QuestionType;
+import wordageddon.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Candidate pools used by {@link QuestionGeneratorService}, built once per document subset.
+ *
+ * Every pool contains only candidates that produce a valid question, so generators
+ * sample them without replacement in O(1) with no retries:
+ * - absolute frequency: every (document, word) pair
+ * - relative frequency: anchor words of documents with at least two distinct frequencies;
+ *   the second word is drawn from a different frequency band of the same document
+ * - document-specific: words appearing in exactly one document of the subset
+ * - exclusion: corpus words missing from a document
+ * - common word: words appearing in every document of the subset
+ * - word rank: words among the top positions of the frequency ranking of a document
+ * - total occurrences: words appearing in more than one document of the subset
+ * - co-occurrence: the top pairs of the co-occurrence matrix of the subset
+ * - next word: words of a document always or mostly followed by the same word,
+ *   when the matrix carries a {@link PositionalIndex}
+ *
+ * The questions on the whole subset are answered through its {@link CorpusStatistics}.
+ *
+ * When a pool is empty the corresponding question type is exhausted for the game.
+ *
+ * The per-document structures live in a {@link Corpus} that can be shared by the
+ * pools of many subsets, and {@link #copy()} gives a session its own sampling
+ * state over the same candidates without rebuilding them.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionCandidatePools {
+
+    /** Minimum number of words a document needs for relative frequency questions */
+    private static final int MIN_WORDS_FOR_COMPARISON = 5;
+
+    /** Highest ranking position asked in word rank questions */
+    private static final int MAX_ASKED_RANK = 10;
+
+    /** Minimum number of positions a document ranking needs for word rank questions */
+    private static final int MIN_RANKING_SIZE = 4;
+
+    /** Number of top pairs used as answers of co-occurrence questions */
+    private static final int MAX_ANSWER_PAIRS = 10;
+
+    /** Number of wrong options of a question */
+    private static final int DISTRACTORS = 3;
+
+    private final Corpus corpus;
+    private final CorpusStatistics statistics;
+    private final Map<QuestionType, Pool> pools = new EnumMap<>(QuestionType.class);
+
+    /** Ids (in {@link #statistics}) of the words missing from at least one document of the subset */
+    private final int[] partialWords;
+
+    /** Distinct totals of the words of the subset, ascending */
+    private final int[] distinctTotals;
+
+    /**
+     * Builds the pools for a document subset.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the subset
+     */
+    public QuestionCandidatePools(DocumentTermMatrix dtm, List<String> documents) {
+        this(new Corpus(dtm), documents);
+    }
+
+    /**
+     * Builds the pools for a document subset, reusing the per-document structures of the corpus.
+     *
+     * @param corpus the shared corpus structures
+     * @param documents the documents of the subset
+     */
+    QuestionCandidatePools(Corpus corpus, List<String> documents) {
+        this.corpus = corpus;
+        this.statistics = corpus.getStatistics(documents);
+        List<Candidate> absoluteCandidates = new ArrayList<>();
+        List<Candidate> relativeCandidates = new ArrayList<>();
+        List<Candidate> exclusiveCandidates = new ArrayList<>();
+        List<Candidate> missingCandidates = new ArrayList<>();
+        List<Candidate> rankCandidates = new ArrayList<>();
+
+        for (String document : documents) {
+            DocumentWords words = corpus.getWords(document);
+            boolean rankable = statistics.getRankCount(document) >= MIN_RANKING_SIZE;
+            for (int i = 0; i < words.size(); i++) {
+                Candidate candidate = new Candidate(document, words.words[i], termId(words.words[i]), words.frequencies[i]);
+                absoluteCandidates.add(candidate);
+                if (words.size() >= MIN_WORDS_FOR_COMPARISON && words.hasDistinctFrequencies()) {
+                    relativeCandidates.add(candidate);
+                }
+                if (documents.size() > 1
+                        && statistics.getDocumentFrequency(statistics.getTermId(words.words[i])) == 1) {
+                    exclusiveCandidates.add(candidate);
+                }
+                if (rankable && statistics.getRank(document, words.frequencies[i]) <= MAX_ASKED_RANK) {
+                    rankCandidates.add(candidate);
+                }
+            }
+            if (words.size() > 0) {
+                String[] vocabulary = corpus.vocabulary;
+                for (int id = 0; id < vocabulary.length; id++) {
+                    if (words.frequencyOf(vocabulary[id]) == 0) {
+                        missingCandidates.add(new Candidate(document, vocabulary[id], id, 0));
+                    }
+                }
+            }
+        }
+
+        // domande sull'insieme dei documenti: hanno senso solo con almeno due documenti
+        List<Candidate> commonCandidates = new ArrayList<>();
+        List<Candidate> totalCandidates = new ArrayList<>();
+        List<Integer> partial = new ArrayList<>();
+        if (documents.size() > 1) {
+            String firstDocument = documents.get(0);
+            for (int id = 0; id < statistics.getTermCount(); id++) {
+                String word = statistics.getTerm(id);
+                int documentFrequency = statistics.getDocumentFrequency(id);
+                if (documentFrequency == documents.size()) {
+                    commonCandidates.add(new Candidate(firstDocument, word, termId(word), statistics.getTotal(id)));
+                } else {
+                    partial.add(id);
+                }
+                if (documentFrequency > 1) {
+                    totalCandidates.add(new Candidate(firstDocument, word, termId(word), statistics.getTotal(id)));
+                }
+            }
+            if (partial.size() < DISTRACTORS) {
+                commonCandidates.clear();
+            }
+        }
+        this.partialWords = partial.stream().mapToInt(Integer::intValue).toArray();
+        this.distinctTotals = statistics.getDistinctTotals();
+
+        // per le coppie il term id del candidato è la posizione della coppia nella classifica
+        List<Candidate> pairCandidates = new ArrayList<>();
+        if (documents.size() > 1) {
+            for (int position = 0; position < Math.min(MAX_ANSWER_PAIRS, statistics.getPairCount()); position++) {
+                if (statistics.getPairCount() - firstLowerPair(position) >= DISTRACTORS) {
+                    pairCandidates.add(new Candidate(documents.get(0), pairLabel(position), position,
+                        statistics.getPairScore(position)));
+                }
+            }
+        }
+
+        // per la parola successiva servono le posizioni; i distrattori non seguono mai la parola
+        List<Candidate> nextWordCandidates = new ArrayList<>();
+        for (String document : documents) {
+            DocumentWords words = corpus.getWords(document);
+            for (String word : corpus.getNextWords(document).keySet()) {
+                nextWordCandidates.add(new Candidate(document, word, termId(word), words.frequencyOf(word)));
+            }
+        }
+
+        pools.put(QuestionType.ABSOLUTE_FREQUENCY, new Pool(absoluteCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.RELATIVE_FREQUENCY, new Pool(relativeCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.DOCUMENT_SPECIFIC, new Pool(exclusiveCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.EXCLUSION, new Pool(missingCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.COMMON_WORD, new Pool(commonCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.WORD_RANK, new Pool(rankCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.TOTAL_OCCURRENCES, new Pool(totalCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.CO_OCCURRENCE, new Pool(pairCandidates.toArray(new Candidate[0])));
+        pools.put(QuestionType.NEXT_WORD, new Pool(nextWordCandidates.toArray(new Candidate[0])));
+    }
+
+    private QuestionCandidatePools(QuestionCandidatePools source) {
+        this.corpus = source.corpus;
+        this.statistics = source.statistics;
+        this.partialWords = source.partialWords;
+        this.distinctTotals = source.distinctTotals;
+        source.pools.forEach((type, pool) -> pools.put(type, new Pool(pool.initial)));
+    }
+
+    /**
+     * Creates pools over the same candidates with their own sampling state.
+     * The copy costs one array copy per pool; the candidates are shared.
+     *
+     * @return a copy with every candidate available
+     */
+    public QuestionCandidatePools copy() {
+        return new QuestionCandidatePools(this);
+    }
+
+    /**
+     * Gets the pool of a question type.
+     *
+     * @param type the question type
+     * @return the pool of candidates for that type
+     */
+    public Pool getPool(QuestionType type) {
+        Pool pool = pools.get(type);
+        if (pool == null) {
+            throw new IllegalArgumentException("Tipo di domanda non supportato: " + type);
+        }
+        return pool;
+    }
+
+    /**
+     * Gets the statistics of the documents of the subset.
+     *
+     * @return the corpus statistics of the subset
+     */
+    public CorpusStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Gets the words missing from at least one document of the subset.
+     *
+     * @return their ids in {@link #getStatistics()}; the array must not be modified
+     */
+    int[] getPartialWords() {
+        return partialWords;
+    }
+
+    /**
+     * Gets the distinct totals of the words of the subset.
+     *
+     * @return the totals in ascending order; the array must not be modified
+     */
+    int[] getDistinctTotals() {
+        return distinctTotals;
+    }
+
+    /**
+     * Gets the first pair, in the ranking of the co-occurrences, scoring less than the given one.
+     *
+     * @param position the position of a pair
+     * @return the position of the first pair with a lower score
+     */
+    int firstLowerPair(int position) {
+        int score = statistics.getPairScore(position);
+        int next = position + 1;
+        while (next < statistics.getPairCount() && statistics.getPairScore(next) == score) {
+            next++;
+        }
+        return next;
+    }
+
+    /**
+     * Gets the text shown for a pair of words.
+     *
+     * @param position the position of the pair in the ranking of the co-occurrences
+     * @return the two words of the pair
+     */
+    String pairLabel(int position) {
+        int[] pair = statistics.getPair(position);
+        return statistics.getTerm(pair[0]) + " - " + statistics.getTerm(pair[1]);
+    }
+
+    /**
+     * Gets the positional postings of a document.
+     *
+     * @param document the document identifier
+     * @return the postings, or null if the matrix has no positional index
+     */
+    PositionalIndex.DocumentPostings getPostings(String document) {
+        PositionalIndex index = corpus.getMatrix().getPositionalIndex();
+        return index != null ? index.getDocument(document) : null;
+    }
+
+    /**
+     * Gets the word that most often comes right after a candidate of the next word questions.
+     *
+     * @param document the document identifier
+     * @param word the word asked about
+     * @return the following word, or null if the word is not a candidate
+     */
+    String getNextWord(String document, String word) {
+        return corpus.getNextWords(document).get(word);
+    }
+
+    /**
+     * Gets the words of a document of the subset, sorted by frequency.
+     *
+     * @param document the document identifier
+     * @return the words of the document
+     */
+    public DocumentWords getWords(String document) {
+        return corpus.getWords(document);
+    }
+
+    /**
+     * Gets the numeric id of a corpus word.
+     *
+     * @param word the word
+     * @return the id, or -1 if the word is not in the corpus
+     */
+    public int termId(String word) {
+        Integer id = corpus.termIds.get(word);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Makes every candidate available again, e.g. for a new game on the same documents.
+     * The pools go back to their initial order, so the same random sequence draws
+     * the same candidates.
+     */
+    public void reset() {
+        pools.values().forEach(Pool::reset);
+    }
+
+    /**
+     * Picks k distinct indices in [0, n) skipping the excluded ones, in O(k^2).
+     *
+     * @param n the size of the range
+     * @param excluded indices that must not be picked
+     * @param k the number of indices to pick
+     * @param random the random source
+     * @return the picked indices (fewer than k if the range is too small)
+     */
+    public static int[] sampleDistinct(int n, int[] excluded, int k, Random random) {
+        int[] taken = Arrays.copyOf(excluded, excluded.length + k);
+        int takenCount = excluded.length;
+        Arrays.sort(taken, 0, takenCount);
+
+        int available = n - takenCount;
+        int[] result = new int[Math.max(0, Math.min(k, available))];
+        for (int p = 0; p < result.length; p++) {
+            // scelgo la r-esima posizione libera saltando quelle già prese (ordinate)
+            int index = random.nextInt(available - p);
+            int insertAt = 0;
+            while (insertAt < takenCount && taken[insertAt] <= index) {
+                index++;
+                insertAt++;
+            }
+            System.arraycopy(taken, insertAt, taken, insertAt + 1, takenCount - insertAt);
+            taken[insertAt] = index;
+            takenCount++;
+            result[p] = index;
+        }
+        return result;
+    }
+
+    /**
+     * Structures derived from a Document-Term Matrix that do not depend on the subset:
+     * the vocabulary with its term ids, the sorted words of each document and the
+     * following words found in its positional index.
+     * Documents are processed on first use; the class is thread-safe.
+     */
+    static final class Corpus {
+
+        private final DocumentTermMatrix dtm;
+
+        /** Corpus words in vocabulary order; the position is the term id */
+        private final String[] vocabulary;
+        private final Map<String, Integer> termIds;
+        private final Map<String, DocumentWords> wordsByDocument = new ConcurrentHashMap<>();
+
+        /** For each document, the answers of the next word questions */
+        private final Map<String, Map<String, String>> nextWordsByDocument = new ConcurrentHashMap<>();
+
+        /** For each document, its part of the corpus-wide statistics */
+        private final Map<String, CorpusStatistics.DocumentStatistics> statisticsByDocument = new ConcurrentHashMap<>();
+
+        Corpus(DocumentTermMatrix dtm) {
+            this.dtm = dtm;
+            Set<String> terms = dtm.getAllTerms();
+            this.vocabulary = terms.toArray(new String[0]);
+            this.termIds = new HashMap<>(vocabulary.length * 2);
+            for (int id = 0; id < vocabulary.length; id++) {
+                termIds.put(vocabulary[id], id);
+            }
+        }
+
+        DocumentTermMatrix getMatrix() {
+            return dtm;
+        }
+
+        DocumentWords getWords(String document) {
+            return wordsByDocument.computeIfAbsent(document,
+                id -> new DocumentWords(dtm.getTermsForDocument(id)));
+        }
+
+        /**
+         * Builds the statistics of a document subset from the cached statistics of its documents.
+         *
+         * @param documents the documents of the subset
+         * @return the statistics of the subset
+         */
+        CorpusStatistics getStatistics(List<String> documents) {
+            return new CorpusStatistics(vocabulary, documents, document -> statisticsByDocument.computeIfAbsent(
+                document, id -> new CorpusStatistics.DocumentStatistics(dtm, id, termIds)));
+        }
+
+        Map<String, String> getNextWords(String document) {
+            return nextWordsByDocument.computeIfAbsent(document, this::findNextWords);
+        }
+
+        /**
+         * Finds the words of a document that have a single most frequent following word,
+         * itself counted in the DTM, and at least {@value #DISTRACTORS} words of the
+         * document that never follow them. Reads the token stream once.
+         *
+         * @param document the document identifier
+         * @return the following word of each valid word
+         */
+        private Map<String, String> findNextWords(String document) {
+            PositionalIndex index = dtm.getPositionalIndex();
+            PositionalIndex.DocumentPostings postings = index != null ? index.getDocument(document) : null;
+            if (postings == null) {
+                return Collections.emptyMap();
+            }
+            DocumentWords words = getWords(document);
+
+            // conto le coppie di token consecutivi, con chiave (parola, successiva)
+            int[] sequence = postings.getTokenSequence();
+            LongIntHashMap bigrams = new LongIntHashMap(sequence.length);
+            for (int p = 0; p + 1 < sequence.length; p++) {
+                bigrams.addTo(((long) sequence[p] << 32) | sequence[p + 1], 1);
+            }
+
+            int terms = postings.getTermCount();
+            int[] best = new int[terms];
+            int[] bestCount = new int[terms];
+            boolean[] tied = new boolean[terms];
+            int[] countedFollowers = new int[terms];
+            bigrams.forEach((key, count) -> {
+                int word = (int) (key >>> 32);
+                int next = (int) key;
+                if (words.indexOf(postings.getTerm(next)) >= 0) {
+                    countedFollowers[word]++;
+                }
+                if (count > bestCount[word]) {
+                    best[word] = next;
+                    bestCount[word] = count;
+                    tied[word] = false;
+                } else if (count == bestCount[word]) {
+                    tied[word] = true;
+                }
+            });
+
+            Map<String, String> nextWords = new HashMap<>();
+            for (int t = 0; t < terms; t++) {
+                String word = postings.getTerm(t);
+                if (bestCount[t] == 0 || tied[t] || best[t] == t || words.indexOf(word) < 0) {
+                    continue;
+                }
+                String next = postings.getTerm(best[t]);
+                // la parola stessa e quelle che la seguono non possono fare da distrattori
+                if (words.indexOf(next) >= 0 && words.size() - countedFollowers[t] - 1 >= DISTRACTORS) {
+                    nextWords.put(word, next);
+                }
+            }
+            return nextWords;
+        }
+    }
+
+    /**
+     * A (document, word) pair with the frequency of the word in the document.
+     */
+    public static class Candidate {
+
+        private final String document;
+        private final String word;
+        private final int termId;
+        private final int frequency;
+
+        private Candidate(String document, String word, int termId, int frequency) {
+            this.document = document;
+            this.word = word;
+            this.termId = termId;
+            this.frequency = frequency;
+        }
+
+        public String getDocument() {
+            return document;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public int getTermId() {
+            return termId;
+        }
+
+        public int getFrequency() {
+            return frequency;
+        }
+
+        public int getBucket() {
+            return QuestionStatistics.bucketOf(frequency);
+        }
+    }
+
+    /**
+     * Candidates sampled without replacement with a partial Fisher-Yates shuffle.
+     * Candidates are split by frequency bucket, so a draw can be restricted to one
+     * bucket; an unrestricted draw is still uniform over all remaining candidates.
+     */
+    public static class Pool {
+
+        private final Candidate[][] initial;
+        private final Candidate[][] candidates;
+        private final int[] remaining;
+        private int totalRemaining;
+
+        private Pool(Candidate[] all) {
+            this(splitByBucket(all));
+        }
+
+        private Pool(Candidate[][] initial) {
+            this.initial = initial;
+            this.candidates = new Candidate[initial.length][];
+            this.remaining = new int[initial.length];
+            for (int b = 0; b < initial.length; b++) {
+                candidates[b] = initial[b].clone();
+            }
+            reset();
+        }
+
+        /**
+         * Draws a candidate that has not been drawn yet.
+         *
+         * @param random the random source
+         * @return the candidate, or null if the pool is exhausted
+         */
+        public Candidate next(Random random) {
+            if (totalRemaining == 0) {
+                return null;
+            }
+            // scelgo il bucket in proporzione ai candidati rimasti
+            int pick = random.nextInt(totalRemaining);
+            int bucket = 0;
+            while (pick >= remaining[bucket]) {
+                pick -= remaining[bucket++];
+            }
+            return take(bucket, pick);
+        }
+
+        /**
+         * Draws a candidate of a frequency bucket that has not been drawn yet.
+         *
+         * @param bucket the frequency bucket
+         * @param random the random source
+         * @return the candidate, or null if the bucket is exhausted
+         */
+        public Candidate next(int bucket, Random random) {
+            if (remaining[bucket] == 0) {
+                return null;
+            }
+            return take(bucket, random.nextInt(remaining[bucket]));
+        }
+
+        public boolean isExhausted() {
+            return totalRemaining == 0;
+        }
+
+        public int remaining() {
+            return totalRemaining;
+        }
+
+        public int remaining(int bucket) {
+            return remaining[bucket];
+        }
+
+        public int size() {
+            int size = 0;
+            for (Candidate[] bucket : initial) {
+                size += bucket.length;
+            }
+            return size;
+        }
+
+        private Candidate take(int bucket, int pick) {
+            Candidate[] bucketCandidates = candidates[bucket];
+            Candidate candidate = bucketCandidates[pick];
+            // sposto il candidato estratto in fondo alla parte ancora disponibile
+            bucketCandidates[pick] = bucketCandidates[--remaining[bucket]];
+            bucketCandidates[remaining[bucket]] = candidate;
+            totalRemaining--;
+            return candidate;
+        }
+
+        private void reset() {
+            totalRemaining = 0;
+            for (int b = 0; b < initial.length; b++) {
+                System.arraycopy(initial[b], 0, candidates[b], 0, initial[b].length);
+                remaining[b] = initial[b].length;
+                totalRemaining += remaining[b];
+            }
+        }
+
+        private static Candidate[][] splitByBucket(Candidate[] all) {
+            int[] counts = new int[QuestionStatistics.BUCKETS];
+            for (Candidate candidate : all) {
+                counts[candidate.getBucket()]++;
+            }
+            Candidate[][] buckets = new Candidate[QuestionStatistics.BUCKETS][];
+            for (int b = 0; b < buckets.length; b++) {
+                buckets[b] = new Candidate[counts[b]];
+                counts[b] = 0;
+            }
+            for (Candidate candidate : all) {
+                buckets[candidate.getBucket()][counts[candidate.getBucket()]++] = candidate;
+            }
+            return buckets;
+        }
+    }
+
+    /**
+     * Words of a document sorted by frequency, with the bounds of each frequency band
+     * and the histogram of the frequencies.
+     */
+    public static class DocumentWords {
+
+        private final String[] words;
+        private final int[] frequencies;
+        private final Map<String, Integer> positions = new HashMap<>();
+
+        /** Distinct frequencies of the document, ascending */
+        private final int[] distinctFrequencies;
+
+        private DocumentWords(Map<String, Integer> terms) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(terms.entrySet());
+            entries.sort(Map.Entry.<String, Integer>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())));
+            this.words = new String[entries.size()];
+            this.frequencies = new int[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                words[i] = entries.get(i).getKey();
+                frequencies[i] = entries.get(i).getValue();
+                positions.put(words[i], i);
+            }
+
+            // le frequenze sono già ordinate: basta una passata per l'istogramma
+            int distinct = 0;
+            for (int i = 0; i < frequencies.length; i++) {
+                if (i == 0 || frequencies[i] != frequencies[i - 1]) {
+                    distinct++;
+                }
+            }
+            this.distinctFrequencies = new int[distinct];
+            distinct = 0;
+            for (int i = 0; i < frequencies.length; i++) {
+                if (i == 0 || frequencies[i] != frequencies[i - 1]) {
+                    distinctFrequencies[distinct++] = frequencies[i];
+                }
+            }
+        }
+
+        public int size() {
+            return words.length;
+        }
+
+        public String getWord(int index) {
+            return words[index];
+        }
+
+        public int getFrequency(int index) {
+            return frequencies[index];
+        }
+
+        /**
+         * Gets the distinct frequencies of the document.
+         *
+         * @return the frequencies in ascending order; the array must not be modified
+         */
+        int[] getDistinctFrequencies() {
+            return distinctFrequencies;
+        }
+
+        /**
+         * Gets the position of a word in the frequency order.
+         *
+         * @param word the word
+         * @return the position, or -1 if the word is not in the document
+         */
+        public int indexOf(String word) {
+            Integer position = positions.get(word);
+            return position != null ? position : -1;
+        }
+
+        /**
+         * Gets the frequency of a word.
+         *
+         * @param word the word
+         * @return the frequency, or 0 if the word is not in the document
+         */
+        public int frequencyOf(String word) {
+            int index = indexOf(word);
+            return index >= 0 ? frequencies[index] : 0;
+        }
+
+        private boolean hasDistinctFrequencies() {
+            return words.length > 1 && frequencies[0] != frequencies[words.length - 1];
+        }
+
+        /**
+         * Gets the first position of the frequency band containing the given position.
+         *
+         * @param index a position in the frequency order
+         * @return the first position with the same frequency
+         */
+        public int bandStart(int index) {
+            int frequency = frequencies[index];
+            int low = 0;
+            int high = index;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (frequencies[mid] < frequency) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Gets the position after the end of the frequency band containing the given position.
+         *
+         * @param index a position in the frequency order
+         * @return the first position with a higher frequency
+         */
+        public int bandEnd(int index) {
+            int frequency = frequencies[index];
+            int low = index;
+            int high = frequencies.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (frequencies[mid] <= frequency) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Draws a word whose frequency differs from the word at the given position, in O(1).
+         *
+         * @param index the position of the reference word
+         * @param random the random source
+         * @return the position of the drawn word, or -1 if all words share the same frequency
+         */
+        public int randomWithDifferentFrequency(int index, Random random) {
+            int start = bandStart(index);
+            int end = bandEnd(index);
+            int outside = words.length - (end - start);
+            if (outside <= 0) {
+                return -1;
+            }
+            int pick = random.nextInt(outside);
+            return pick < start ? pick : pick + (end - start);
+        }
+    }
+}
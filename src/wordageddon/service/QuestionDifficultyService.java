@@ -0,0 +1,111 @@
+package wordageddon.service;
+
+import wordageddon.dao.DAOFactory;
+import wordageddon.dao.QuestionStatsDAO;
+import wordageddon.model.Answer;
+import wordageddon.model.Question;
+import wordageddon.model.QuestionStatistics;
+
+import java.util.List;
+
+/**
+ * Singleton service keeping the difficulty model of the questions up to date.
+ *
+ * The statistics are loaded once from the question_stats table; afterwards every
+ * answered question updates both the in-memory model and its row in the table in
+ * O(1), without rescanning the answers history. The rows touched by a game are
+ * written in a single transaction.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionDifficultyService {
+
+    private static QuestionDifficultyService instance;
+
+    private final QuestionStatsDAO statsDAO;
+
+    /** In-memory statistics, loaded on first use */
+    private volatile QuestionStatistics statistics;
+
+    private QuestionDifficultyService() {
+        this.statsDAO = DAOFactory.getQuestionStatsDAO();
+    }
+
+    /**
+     * Gets the singleton instance of QuestionDifficultyService.
+     *
+     * @return the QuestionDifficultyService instance
+     */
+    public static synchronized QuestionDifficultyService getInstance() {
+        if (instance == null) {
+            instance = new QuestionDifficultyService();
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the difficulty model, loading it from the database on first use.
+     *
+     * @return the statistics of the question templates
+     */
+    public QuestionStatistics getStatistics() {
+        QuestionStatistics current = statistics;
+        if (current == null) {
+            synchronized (this) {
+                current = statistics;
+                if (current == null) {
+                    try {
+                        current = statsDAO.loadStatistics();
+                    } catch (RuntimeException e) {
+                        // senza statistiche si usano le difficoltà predefinite
+                        System.err.println("Error loading question statistics: " + e.getMessage());
+                        current = new QuestionStatistics();
+                    }
+                    statistics = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Adds the answers of a finished game to the statistics.
+     * Answers to questions of unknown type are ignored.
+     *
+     * @param answers the answers given by the player
+     */
+    public void recordAnswers(List<Answer> answers) {
+        QuestionStatistics current = getStatistics();
+        for (Answer answer : answers) {
+            Question question = answer.getQuestion();
+            if (question.getType() != null) {
+                current.record(question.getType(), question.getFrequencyBucket(), answer.isCorrect());
+            }
+        }
+        try {
+            // un'unica transazione per tutte le risposte della partita
+            statsDAO.recordAnswers(answers);
+        } catch (RuntimeException e) {
+            System.err.println("Error saving question statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the target difficulty of the questions for a game difficulty level.
+     *
+     * @param difficulty the difficulty level ("facile", "medio", or "difficile")
+     * @return the expected error rate the questions should have
+     */
+    public double getTargetDifficulty(String difficulty) {
+        switch (difficulty != null ? difficulty.toLowerCase() : "") {
+            case "facile":
+                return 0.35;
+            case "difficile":
+                return 0.65;
+            default:
+                return 0.5;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package wordageddon.service;
 
+import wordageddon.model.CorpusStatistics;
 import wordageddon.model.DocumentTermMatrix;
 import wordageddon.model.Question;
+import wordageddon.model.QuestionStatistics;
+import wordageddon.model.QuestionType;
+import wordageddon.util.LongHashSet;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 /**
  * Service for generating various types of questions about document text analysis.
@@ -14,8 +19,20 @@ import java.util.stream.Collectors;
  * - Relative frequency comparison: comparing frequencies of different words
  * - Document-specific word association: which document contains a specific word
  * - Exclusion questions: which word never appears in a document
+ * - Common word: which word appears in all the documents
+ * - Word rank: position of a word in the frequency ranking of a document
+ * - Total occurrences: how many times a word appears across all the documents
+ * - Co-occurrence: which pair of words appears together most often
+ * - Next word: which word most often comes right after another one in a document
  * 
- * The service also tracks previously asked questions to avoid repetition.
+ * Candidates are taken from {@link QuestionCandidatePools} built once for the
+ * documents of the game and sampled without replacement, so questions are never
+ * repeated and no attempt is wasted. When the pool of a type is empty the type is
+ * reported as exhausted (see {@link #isExhausted(QuestionType)}).
+ * 
+ * When a target difficulty is set (see {@link #setTargetDifficulty}) random questions
+ * are drawn from the template (type, frequency bucket) whose estimated difficulty is
+ * closest to the target.
  *
  * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
  * @version 1.0
@@ -23,29 +40,39 @@ import java.util.stream.Collectors;
  */
 public class QuestionGeneratorService {
     
+    /** Number of pairs after the answer among which the distractors of co-occurrence questions are drawn */
+    private static final int DISTRACTOR_PAIR_WINDOW = 8;
+    
+    /** Batches of at least this many questions are built in parallel */
+    private static final int PARALLEL_BATCH_THRESHOLD = 64;
+    
     /** The Document-Term Matrix containing the analyzed document data */
     private final DocumentTermMatrix dtm;
     
     /** List of document names available for the current game session */
     private final List<String> documents;
     
-    /** Set of keys representing already used absolute frequency questions */
-    private final Set<String> usedFrequencyQuestions = new HashSet<>();
+    /**
+     * Word pairs already asked in relative frequency questions, as packed longs
+     * (see {@link #questionKey(int, int, int)}), so tracking a question allocates nothing.
+     * The other types need no tracking: their pools never return a candidate twice.
+     */
+    private final LongHashSet askedPairs = new LongHashSet();
     
-    /** Set of keys representing already used document comparison questions */
-    private final Set<String> usedComparisonQuestions = new HashSet<>();
+    /** Random number generator for consistent randomization */
+    private final Random random;
     
-    /** Set of keys representing already used document-specific questions */
-    private final Set<String> usedDocumentSpecificQuestions = new HashSet<>();
+    /** Candidate pools for the documents of the game, built on first use */
+    private QuestionCandidatePools pools;
     
-    /** Set of keys representing already used exclusion questions */
-    private final Set<String> usedExclusionQuestions = new HashSet<>();
+    /** Pools shared with other sessions, copied on first use; null to build private pools */
+    private final CompletableFuture<QuestionCandidatePools> sharedPools;
     
-    /** Random number generator for consistent randomization */
-    private final Random random = new Random();
+    /** Difficulty model used to choose the questions, null to choose the types at random */
+    private QuestionStatistics statistics;
     
-    /** Maximum attempts to generate a unique question before giving up */
-    private static final int MAX_ATTEMPTS = 50;
+    /** Difficulty the questions should have, between 0 and 1 */
+    private double targetDifficulty;
     
     /**
      * Constructs a new QuestionGeneratorService with the specified document data.
@@ -54,19 +81,98 @@ public class QuestionGeneratorService {
      * @param documents list of document names that should be used in the game
      */
     public QuestionGeneratorService(DocumentTermMatrix dtm, List<String> documents) {
+        this(dtm, documents, new Random());
+    }
+    
+    /**
+     * Constructs a QuestionGeneratorService whose questions are reproducible:
+     * the same documents and seed always produce the same sequence of questions.
+     *
+     * @param dtm the Document-Term Matrix containing processed document data
+     * @param documents list of document names that should be used in the game
+     * @param seed the seed of the random generator
+     */
+    public QuestionGeneratorService(DocumentTermMatrix dtm, List<String> documents, long seed) {
+        this(dtm, documents, new Random(seed));
+    }
+    
+    /**
+     * Constructs a QuestionGeneratorService over pools prepared by {@link SharedQuestionService}.
+     *
+     * @param dtm the Document-Term Matrix containing processed document data
+     * @param documents list of document names that should be used in the game
+     * @param sharedPools the pools of the documents, possibly still being built
+     * @param random the random generator of the session
+     */
+    QuestionGeneratorService(DocumentTermMatrix dtm, List<String> documents,
+                             CompletableFuture<QuestionCandidatePools> sharedPools, Random random) {
         this.dtm = dtm;
         this.documents = new ArrayList<>(documents);
+        this.sharedPools = sharedPools;
+        this.random = random;
+    }
+    
+    private QuestionGeneratorService(DocumentTermMatrix dtm, List<String> documents, Random random) {
+        this.dtm = dtm;
+        this.documents = new ArrayList<>(documents);
+        this.sharedPools = null;
+        this.random = random;
     }
     
     /**
-     * Resets all tracking sets to allow reusing previously used questions.
+     * Resets the tracking of the asked questions to allow reusing them.
      * Call this when starting a new game session.
      */
     public void resetTracking() {
-        usedFrequencyQuestions.clear();
-        usedComparisonQuestions.clear();
-        usedDocumentSpecificQuestions.clear();
-        usedExclusionQuestions.clear();
+        askedPairs.clear();
+        if (pools != null) {
+            pools.reset();
+        }
+    }
+    
+    /**
+     * Checks whether no more questions of the given type can be generated for this game.
+     *
+     * @param type the question type
+     * @return true if the candidate pool of the type is empty
+     */
+    public boolean isExhausted(QuestionType type) {
+        return getPools().getPool(type).isExhausted();
+    }
+    
+    /**
+     * Gets the number of candidates still available for the given type.
+     *
+     * @param type the question type
+     * @return the remaining candidates
+     */
+    public int getRemaining(QuestionType type) {
+        return getPools().getPool(type).remaining();
+    }
+    
+    /**
+     * Checks whether at least one question type still has candidates.
+     *
+     * @return false if every pool is exhausted
+     */
+    public boolean hasRemainingQuestions() {
+        for (QuestionType type : QuestionType.values()) {
+            if (!isExhausted(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Makes {@link #generateRandomQuestion(int)} choose questions of the given difficulty.
+     *
+     * @param statistics the difficulty model, or null to go back to random types
+     * @param targetDifficulty the expected error rate, between 0 and 1
+     */
+    public void setTargetDifficulty(QuestionStatistics statistics, double targetDifficulty) {
+        this.statistics = statistics;
+        this.targetDifficulty = targetDifficulty;
     }
     
     /**
@@ -77,28 +183,53 @@ public class QuestionGeneratorService {
      * @return the generated Question object, or a fallback question if generation fails
      */
     public Question generateRandomQuestion(int questionNumber) {
-        // Create a list of question generation methods to try in random order
-        List<QuestionGenerator> generators = Arrays.asList(
-            () -> generateAbsoluteFrequencyQuestion(questionNumber),
-            () -> generateRelativeFrequencyQuestion(questionNumber),
-            () -> generateDocumentSpecificQuestion(questionNumber),
-            () -> generateExclusionQuestion(questionNumber)
-        );
-        
-        // Try generators in a random order
-        Collections.shuffle(generators);
-        
-        for (QuestionGenerator generator : generators) {
-            Question question = generator.generate();
+        if (statistics != null) {
+            PlannedQuestion plan = planForDifficulty(targetDifficulty + random.nextGaussian() * QuestionStatistics.TARGET_JITTER);
+            if (plan != null) {
+                return buildQuestion(plan, questionNumber, random);
+            }
+        }
+        
+        // Try the types that still have candidates in a random order
+        List<QuestionType> types = new ArrayList<>(Arrays.asList(QuestionType.values()));
+        types.removeIf(this::isExhausted);
+        Collections.shuffle(types, random);
+        
+        for (QuestionType type : types) {
+            Question question = generateQuestion(type, questionNumber);
             if (question != null) {
                 return question;
             }
         }
         
-        // If all generators fail, return a fallback question
+        // Every pool is exhausted: the fallback question is the only option left
+        System.err.println("Question pools exhausted, using fallback question " + questionNumber);
         return generateFallbackQuestion(questionNumber);
     }
     
+    /**
+     * Generates a question of the given type.
+     *
+     * @param type the type of question to generate
+     * @param questionNumber The sequence number of the question in the current game
+     * @return the generated Question object, or null if generation fails
+     */
+    public Question generateQuestion(QuestionType type, int questionNumber) {
+        switch (type) {
+            case ABSOLUTE_FREQUENCY:
+                return generateAbsoluteFrequencyQuestion(questionNumber);
+            case RELATIVE_FREQUENCY:
+                return generateRelativeFrequencyQuestion(questionNumber);
+            case DOCUMENT_SPECIFIC:
+                return generateDocumentSpecificQuestion(questionNumber);
+            case EXCLUSION:
+                return generateExclusionQuestion(questionNumber);
+            default:
+                PlannedQuestion plan = planQuestion(type, random);
+                return plan != null ? buildQuestion(plan, questionNumber, random) : null;
+        }
+    }
+    
     /**
      * Generates a question about the absolute frequency of a word in a document.
      *
@@ -106,314 +237,487 @@ public class QuestionGeneratorService {
      * @return the generated Question object, or null if generation fails
      */
     public Question generateAbsoluteFrequencyQuestion(int questionNumber) {
-        if (documents.isEmpty()) {
-            return null;
+        PlannedQuestion plan = planQuestion(QuestionType.ABSOLUTE_FREQUENCY, random);
+        return plan != null ? buildQuestion(plan, questionNumber, random) : null;
+    }
+    
+    /**
+     * Generates a question comparing the relative frequencies of two words.
+     *
+     * @param questionNumber The sequence number of the question in the current game
+     * @return the generated Question object, or null if generation fails
+     */
+    public Question generateRelativeFrequencyQuestion(int questionNumber) {
+        PlannedQuestion plan = planQuestion(QuestionType.RELATIVE_FREQUENCY, random);
+        return plan != null ? buildQuestion(plan, questionNumber, random) : null;
+    }
+    
+    /**
+     * Generates a question asking which document contains a specific word.
+     *
+     * @param questionNumber The sequence number of the question in the current game
+     * @return the generated Question object, or null if generation fails
+     */
+    public Question generateDocumentSpecificQuestion(int questionNumber) {
+        PlannedQuestion plan = planQuestion(QuestionType.DOCUMENT_SPECIFIC, random);
+        return plan != null ? buildQuestion(plan, questionNumber, random) : null;
+    }
+    
+    /**
+     * Generates a question asking which word never appears in a specific document.
+     *
+     * @param questionNumber The sequence number of the question in the current game
+     * @return the generated Question object, or null if generation fails
+     */
+    public Question generateExclusionQuestion(int questionNumber) {
+        PlannedQuestion plan = planQuestion(QuestionType.EXCLUSION, random);
+        return plan != null ? buildQuestion(plan, questionNumber, random) : null;
+    }
+    
+    /**
+     * Generates a whole set of questions in one pass over the candidate pools.
+     *
+     * The result depends only on the documents, the seed and the type mix: the same
+     * arguments always produce the same questions, in the same order and with the
+     * same options. Candidates are chosen sequentially (they are drawn without
+     * replacement), then every question is built with its own random stream split
+     * from the seed, so large batches are built in parallel without changing the result.
+     * Tracking is reset before and after the batch, as for a new game.
+     *
+     * @param n the number of questions to generate
+     * @param seed the seed of the batch
+     * @param typeMix relative weight of each question type; null or empty for a uniform mix.
+     *                Types missing from the map are not generated
+     * @return the questions numbered from 1; fallback questions fill the batch when the pools run out
+     */
+    public List<Question> generateBatch(int n, long seed, Map<QuestionType, Double> typeMix) {
+        SplittableRandom root = new SplittableRandom(seed);
+        Random planRandom = new Random(root.nextLong());
+        
+        Map<QuestionType, Double> weights = new EnumMap<>(QuestionType.class);
+        for (QuestionType type : QuestionType.values()) {
+            double weight = typeMix == null || typeMix.isEmpty() ? 1.0 : typeMix.getOrDefault(type, 0.0);
+            if (weight > 0) {
+                weights.put(type, weight);
+            }
         }
         
-        int attempts = 0;
+        // fase sequenziale: scelgo tipi e candidati, che vengono estratti senza ripetizioni
+        resetTracking();
+        PlannedQuestion[] plans = new PlannedQuestion[n];
+        long[] seeds = new long[n];
+        for (int i = 0; i < n; i++) {
+            plans[i] = planWeighted(weights, planRandom);
+            seeds[i] = root.split().nextLong();
+        }
+        resetTracking();
         
-        while (attempts < MAX_ATTEMPTS) {
-            String doc = getRandomDocument();
-            Map<String, Integer> termFreq = dtm.getTermsForDocument(doc);
-            
-            if (termFreq == null || termFreq.isEmpty()) {
-                attempts++;
-                continue;
+        // fase parallela: ogni domanda usa il proprio generatore, quindi l'ordine di esecuzione non conta
+        Question[] questions = new Question[n];
+        IntStream indices = IntStream.range(0, n);
+        if (n >= PARALLEL_BATCH_THRESHOLD) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> {
+            Random questionRandom = new Random(seeds[i]);
+            questions[i] = plans[i] != null
+                ? buildQuestion(plans[i], i + 1, questionRandom)
+                : buildFallbackQuestion(i + 1, questionRandom);
+        });
+        return Arrays.asList(questions);
+    }
+    
+    /**
+     * Chooses the type and the candidate of a batch question, with probability
+     * proportional to the weight of the types that still have candidates.
+     *
+     * @param weights the weight of each allowed type
+     * @param planRandom the random source of the batch
+     * @return the planned question, or null if every allowed type is exhausted
+     */
+    private PlannedQuestion planWeighted(Map<QuestionType, Double> weights, Random planRandom) {
+        Map<QuestionType, Double> available = new EnumMap<>(weights);
+        while (!available.isEmpty()) {
+            available.keySet().removeIf(this::isExhausted);
+            double total = 0;
+            for (double weight : available.values()) {
+                total += weight;
             }
-            
-            List<String> words = new ArrayList<>(termFreq.keySet());
-            if (words.isEmpty()) {
-                attempts++;
-                continue;
+            if (total <= 0) {
+                return null;
             }
             
-            String word = words.get(random.nextInt(words.size()));
-            String questionKey = doc + "|" + word;
-            
-            if (!usedFrequencyQuestions.contains(questionKey) || usedFrequencyQuestions.size() >= documents.size() * 5) {
-                // Allow reuse if we've used a lot of combinations already
-                usedFrequencyQuestions.add(questionKey);
-                
-                int correctFreq = termFreq.get(word);
-                String genericDocName = getGenericDocumentName(doc);
-                
-                String questionText = String.format("Quante volte compare la parola \"%s\" nel %s?", word, genericDocName);
-                
-                Set<Integer> options = new HashSet<>();
-                options.add(correctFreq);
-                
-                // Ensure options are distinct and plausible
-                int optionRange = Math.max(5, correctFreq / 2);
-                while (options.size() < 4) {
-                    int variation = random.nextInt(optionRange) + 1;
-                    int optionValue = random.nextBoolean() ? 
-                        correctFreq + variation : Math.max(0, correctFreq - variation);
-                    
-                    if (optionValue != correctFreq) { 
-                        options.add(optionValue);
-                    } else if (options.size() < 2 && correctFreq == 0) { 
-                        options.add(optionValue + 1);
-                    } else if (options.size() < 2) {
-                        options.add(optionValue + (options.size() % 2 == 0 ? 1 : -1));
-                    }
+            double target = planRandom.nextDouble() * total;
+            QuestionType chosen = null;
+            for (Map.Entry<QuestionType, Double> entry : available.entrySet()) {
+                chosen = entry.getKey();
+                target -= entry.getValue();
+                if (target < 0) {
+                    break;
                 }
-                
-                List<String> optionStrings = new ArrayList<>();
-                List<Integer> optionsList = new ArrayList<>(options);
-                Collections.shuffle(optionsList);
-                
-                int correctIndex = -1;
-                for (int i = 0; i < optionsList.size(); i++) {
-                    optionStrings.add(String.valueOf(optionsList.get(i)));
-                    if (optionsList.get(i) == correctFreq) {
-                        correctIndex = i;
-                    }
-                }
-                
-                if (correctIndex == -1) {
-                    attempts++;
-                    usedFrequencyQuestions.remove(questionKey);
-                    continue;
-                }
-                
-                return new Question(questionNumber, questionText, optionStrings, correctIndex);
             }
             
-            attempts++;
+            PlannedQuestion plan = planQuestion(chosen, planRandom);
+            if (plan != null) {
+                return plan;
+            }
+            available.remove(chosen);
         }
-        
         return null;
     }
     
     /**
-     * Generates a question comparing the relative frequencies of two words.
+     * Chooses the candidate of the template closest to the target difficulty,
+     * moving to the next closest templates when one has no candidates left.
      *
-     * @param questionNumber The sequence number of the question in the current game
-     * @return the generated Question object, or null if generation fails
+     * @param target the target difficulty
+     * @return the planned question, or null if no template has candidates left
      */
-    public Question generateRelativeFrequencyQuestion(int questionNumber) {
-        if (documents.isEmpty()) {
-            return null;
-        }
+    private PlannedQuestion planForDifficulty(double target) {
+        QuestionStatistics.DifficultyIndex index = statistics.getIndex();
+        int lower = index.nearest(target);
+        int upper = lower + 1;
         
-        int attempts = 0;
-        
-        while (attempts < MAX_ATTEMPTS) {
-            String doc = getRandomDocument();
-            Map<String, Integer> termFreq = dtm.getTermsForDocument(doc);
-            
-            if (termFreq == null || termFreq.size() < 5) {
-                attempts++;
-                continue;
-            }
-            
-            // Get all words with frequencies and sort by frequency
-            List<Map.Entry<String, Integer>> wordsByFreq = new ArrayList<>(termFreq.entrySet());
-            Collections.shuffle(wordsByFreq);
-            
-            // Try to find two distinct words with different frequencies
-            if (wordsByFreq.size() < 2) {
-                attempts++;
-                continue;
-            }
-            
-            String word1 = wordsByFreq.get(0).getKey();
-            String word2 = wordsByFreq.get(1).getKey();
-            int freq1 = wordsByFreq.get(0).getValue();
-            int freq2 = wordsByFreq.get(1).getValue();
-            
-            // Skip if frequencies are equal - not interesting for comparison
-            if (freq1 == freq2) {
-                attempts++;
-                continue;
+        // visito i template in ordine di distanza dal target
+        while (lower >= 0 || upper < index.size()) {
+            int position;
+            if (upper >= index.size() || (lower >= 0
+                    && target - index.getDifficulty(lower) <= index.getDifficulty(upper) - target)) {
+                position = lower--;
+            } else {
+                position = upper++;
             }
             
-            String questionKey = doc + "|" + word1 + "|" + word2;
-            String reverseKey = doc + "|" + word2 + "|" + word1;
-            
-            if ((!usedComparisonQuestions.contains(questionKey) && 
-                 !usedComparisonQuestions.contains(reverseKey)) || 
-                 usedComparisonQuestions.size() >= documents.size() * 5) {
-                
-                usedComparisonQuestions.add(questionKey);
-                
-                String genericDocName = getGenericDocumentName(doc);
-                String questionText = String.format("Nel %s, quale parola compare più frequentemente?", genericDocName);
-                
-                List<String> options = Arrays.asList(word1, word2);
-                int correctIndex = freq1 > freq2 ? 0 : 1;
-                
-                // Add two distractors from the same document
-                List<String> distractors = wordsByFreq.stream()
-                    .filter(e -> !e.getKey().equals(word1) && !e.getKey().equals(word2))
-                    .limit(2)
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
-                
-                List<String> allOptions = new ArrayList<>(options);
-                allOptions.addAll(distractors);
-                Collections.shuffle(allOptions);
-                
-                correctIndex = allOptions.indexOf(options.get(correctIndex));
-                
-                return new Question(questionNumber, questionText, allOptions, correctIndex);
+            QuestionType type = index.getType(position);
+            int bucket = index.getBucket(position);
+            if (getPools().getPool(type).remaining(bucket) > 0) {
+                PlannedQuestion plan = planQuestion(type, bucket, random);
+                if (plan != null) {
+                    return plan;
+                }
             }
-            
-            attempts++;
         }
-        
         return null;
     }
     
+    private PlannedQuestion planQuestion(QuestionType type, Random rnd) {
+        return planQuestion(type, -1, rnd);
+    }
+    
     /**
-     * Generates a question asking which document contains a specific word.
+     * Draws the candidate of a question and records it as asked.
      *
-     * @param questionNumber The sequence number of the question in the current game
-     * @return the generated Question object, or null if generation fails
+     * @param type the question type
+     * @param bucket the frequency bucket of the candidate, -1 for any bucket
+     * @param rnd the random source
+     * @return the planned question, or null if the type has no valid candidates left
      */
-    public Question generateDocumentSpecificQuestion(int questionNumber) {
-        if (documents.size() < 2) { // Need at least 2 documents for this type
+    private PlannedQuestion planQuestion(QuestionType type, int bucket, Random rnd) {
+        if (documents.isEmpty() || (type == QuestionType.DOCUMENT_SPECIFIC && documents.size() < 2)) {
             return null;
         }
         
-        int attempts = 0;
+        QuestionCandidatePools.Pool pool = getPools().getPool(type);
+        if (type != QuestionType.RELATIVE_FREQUENCY) {
+            QuestionCandidatePools.Candidate candidate = bucket < 0 ? pool.next(rnd) : pool.next(bucket, rnd);
+            if (candidate == null) {
+                return null;
+            }
+            return new PlannedQuestion(type, candidate, -1);
+        }
         
-        while (attempts < MAX_ATTEMPTS) {
-            // Find a word that appears in one document but not all
-            String targetDoc = getRandomDocument();
-            Map<String, Integer> targetTerms = dtm.getTermsForDocument(targetDoc);
+        // ogni parola fa da riferimento una sola volta; scarto solo le coppie già chieste al contrario
+        QuestionCandidatePools.Candidate anchor;
+        while ((anchor = bucket < 0 ? pool.next(rnd) : pool.next(bucket, rnd)) != null) {
+            QuestionCandidatePools.DocumentWords words = getPools().getWords(anchor.getDocument());
             
-            if (targetTerms == null || targetTerms.isEmpty()) {
-                attempts++;
+            // la seconda parola ha sempre una frequenza diversa dalla prima
+            int otherIndex = words.randomWithDifferentFrequency(words.indexOf(anchor.getWord()), rnd);
+            if (otherIndex < 0) {
                 continue;
             }
             
-            // Filter for words that appear only in some documents
-            List<String> candidates = new ArrayList<>();
-            for (String word : targetTerms.keySet()) {
-                // Check if this word doesn't appear in at least one other document
-                boolean isExclusive = false;
-                for (String otherDoc : documents) {
-                    if (!otherDoc.equals(targetDoc)) {
-                        Map<String, Integer> otherTerms = dtm.getTermsForDocument(otherDoc);
-                        if (otherTerms == null || !otherTerms.containsKey(word)) {
-                            isExclusive = true;
-                            break;
-                        }
-                    }
-                }
-                
-                if (isExclusive) {
-                    candidates.add(word);
-                }
-            }
-            
-            if (candidates.isEmpty()) {
-                attempts++;
+            int docId = documents.indexOf(anchor.getDocument());
+            int termId1 = anchor.getTermId();
+            int termId2 = getPools().termId(words.getWord(otherIndex));
+            if (askedPairs.contains(questionKey(docId, termId2, termId1))) {
                 continue;
             }
-            
-            String word = candidates.get(random.nextInt(candidates.size()));
-            String questionKey = word;
-            
-            if (!usedDocumentSpecificQuestions.contains(questionKey) || 
-                usedDocumentSpecificQuestions.size() >= Math.min(50, documents.size() * 10)) {
-                
-                usedDocumentSpecificQuestions.add(questionKey);
-                
-                String questionText = String.format("In quale documento compare la parola \"%s\"?", word);
-                
-                List<String> docOptions = new ArrayList<>();
-                docOptions.add(getGenericDocumentName(targetDoc));
-                
-                // Add other document names as distractors
-                List<String> otherDocs = new ArrayList<>(documents);
-                otherDocs.remove(targetDoc);
-                Collections.shuffle(otherDocs);
-                
-                for (String doc : otherDocs) {
-                    if (docOptions.size() < 4) {
-                        docOptions.add(getGenericDocumentName(doc));
-                    }
-                }
-                
-                Collections.shuffle(docOptions);
-                int correctIndex = docOptions.indexOf(getGenericDocumentName(targetDoc));
-                
-                return new Question(questionNumber, questionText, docOptions, correctIndex);
-            }
-            
-            attempts++;
+            askedPairs.add(questionKey(docId, termId1, termId2));
+            return new PlannedQuestion(type, anchor, otherIndex);
         }
         
         return null;
     }
     
     /**
-     * Generates a question asking which word never appears in a specific document.
+     * Builds the text and the options of a planned question.
+     * Reads only immutable state, so batches call it from several threads.
      *
+     * @param plan the planned question
      * @param questionNumber The sequence number of the question in the current game
-     * @return the generated Question object, or null if generation fails
+     * @param rnd the random source for the options
+     * @return the generated Question object
      */
-    public Question generateExclusionQuestion(int questionNumber) {
-        if (documents.isEmpty()) {
-            return null;
+    private Question buildQuestion(PlannedQuestion plan, int questionNumber, Random rnd) {
+        switch (plan.type) {
+            case ABSOLUTE_FREQUENCY:
+                return buildAbsoluteFrequencyQuestion(plan.candidate, questionNumber, rnd);
+            case RELATIVE_FREQUENCY:
+                return buildRelativeFrequencyQuestion(plan.candidate, plan.otherIndex, questionNumber, rnd);
+            case DOCUMENT_SPECIFIC:
+                return buildDocumentSpecificQuestion(plan.candidate, questionNumber, rnd);
+            case EXCLUSION:
+                return buildExclusionQuestion(plan.candidate, questionNumber, rnd);
+            case COMMON_WORD:
+                return buildCommonWordQuestion(plan.candidate, questionNumber, rnd);
+            case WORD_RANK:
+                return buildWordRankQuestion(plan.candidate, questionNumber, rnd);
+            case TOTAL_OCCURRENCES:
+                return buildTotalOccurrencesQuestion(plan.candidate, questionNumber, rnd);
+            case CO_OCCURRENCE:
+                return buildCoOccurrenceQuestion(plan.candidate, questionNumber, rnd);
+            case NEXT_WORD:
+                return buildNextWordQuestion(plan.candidate, questionNumber, rnd);
+            default:
+                return null;
         }
+    }
+    
+    private Question buildAbsoluteFrequencyQuestion(QuestionCandidatePools.Candidate candidate,
+                                                    int questionNumber, Random rnd) {
+        String word = candidate.getWord();
+        int correctFreq = candidate.getFrequency();
+        String genericDocName = getGenericDocumentName(candidate.getDocument());
         
-        int attempts = 0;
+        String questionText = String.format("Quante volte compare la parola \"%s\" nel %s?", word, genericDocName);
         
-        while (attempts < MAX_ATTEMPTS) {
-            String doc = getRandomDocument();
-            Map<String, Integer> docTerms = dtm.getTermsForDocument(doc);
-            
-            if (docTerms == null || docTerms.isEmpty()) {
-                attempts++;
-                continue;
+        // distrattori presi dalle frequenze reali del documento vicine a quella corretta
+        List<Integer> distractors = DistractorEngine.frequencyDistractors(
+            getPools().getWords(candidate.getDocument()), correctFreq, 3, rnd);
+        
+        return numericQuestion(questionNumber, questionText, correctFreq, distractors,
+            QuestionType.ABSOLUTE_FREQUENCY, candidate.getBucket(), rnd);
+    }
+    
+    private Question buildRelativeFrequencyQuestion(QuestionCandidatePools.Candidate anchor, int otherIndex,
+                                                    int questionNumber, Random rnd) {
+        String doc = anchor.getDocument();
+        QuestionCandidatePools.DocumentWords words = getPools().getWords(doc);
+        int anchorIndex = words.indexOf(anchor.getWord());
+        
+        String word1 = anchor.getWord();
+        String word2 = words.getWord(otherIndex);
+        int freq1 = anchor.getFrequency();
+        int freq2 = words.getFrequency(otherIndex);
+        
+        String genericDocName = getGenericDocumentName(doc);
+        String questionText = String.format("Nel %s, quale parola compare più frequentemente?", genericDocName);
+        
+        // Add two distractors less frequent than the answer, so that the answer stays unique
+        int answerIndex = freq1 > freq2 ? anchorIndex : otherIndex;
+        int wrongIndex = freq1 > freq2 ? otherIndex : anchorIndex;
+        List<String> allOptions = new ArrayList<>(Arrays.asList(word1, word2));
+        for (int index : DistractorEngine.lessFrequentWords(words, answerIndex, wrongIndex, 2, rnd)) {
+            allOptions.add(words.getWord(index));
+        }
+        Collections.shuffle(allOptions, rnd);
+        
+        int correctIndex = allOptions.indexOf(words.getWord(answerIndex));
+        return new Question(questionNumber, questionText, allOptions, correctIndex,
+            QuestionType.RELATIVE_FREQUENCY, anchor.getBucket());
+    }
+    
+    private Question buildDocumentSpecificQuestion(QuestionCandidatePools.Candidate candidate,
+                                                   int questionNumber, Random rnd) {
+        // le parole del pool compaiono in un solo documento, quindi la risposta è univoca
+        String targetDoc = candidate.getDocument();
+        String questionText = String.format("In quale documento compare la parola \"%s\"?", candidate.getWord());
+        
+        List<String> docOptions = new ArrayList<>();
+        docOptions.add(getGenericDocumentName(targetDoc));
+        
+        // Add other document names as distractors
+        List<String> otherDocs = new ArrayList<>(documents);
+        otherDocs.remove(targetDoc);
+        Collections.shuffle(otherDocs, rnd);
+        
+        for (String doc : otherDocs) {
+            if (docOptions.size() < 4) {
+                docOptions.add(getGenericDocumentName(doc));
             }
-            
-            // Get words from other documents that don't appear in this one
-            Set<String> allWords = dtm.getAllTerms();
-            Set<String> docWords = docTerms.keySet();
-            
-            List<String> missingWords = allWords.stream()
-                .filter(word -> !docWords.contains(word))
-                .collect(Collectors.toList());
-            
-            if (missingWords.isEmpty()) {
-                attempts++;
-                continue;
+        }
+        
+        Collections.shuffle(docOptions, rnd);
+        int correctIndex = docOptions.indexOf(getGenericDocumentName(targetDoc));
+        
+        return new Question(questionNumber, questionText, docOptions, correctIndex,
+            QuestionType.DOCUMENT_SPECIFIC, candidate.getBucket());
+    }
+    
+    private Question buildExclusionQuestion(QuestionCandidatePools.Candidate candidate,
+                                            int questionNumber, Random rnd) {
+        String doc = candidate.getDocument();
+        String correctWord = candidate.getWord();
+        QuestionCandidatePools.DocumentWords docWords = getPools().getWords(doc);
+        
+        String genericDocName = getGenericDocumentName(doc);
+        String questionText = String.format("Quale delle seguenti parole NON compare mai nel %s?", genericDocName);
+        
+        // Get some rare words that do appear in the document as distractors
+        List<String> options = new ArrayList<>();
+        options.add(correctWord);
+        for (int index : DistractorEngine.rareWords(docWords, 3, rnd)) {
+            options.add(docWords.getWord(index));
+        }
+        
+        Collections.shuffle(options, rnd);
+        int correctIndex = options.indexOf(correctWord);
+        
+        return new Question(questionNumber, questionText, options, correctIndex,
+            QuestionType.EXCLUSION, candidate.getBucket());
+    }
+    
+    private Question buildCommonWordQuestion(QuestionCandidatePools.Candidate candidate,
+                                             int questionNumber, Random rnd) {
+        String questionText = "Quale delle seguenti parole compare in tutti i documenti?";
+        
+        // i distrattori mancano da almeno un documento, quindi la risposta è univoca
+        CorpusStatistics statistics = getPools().getStatistics();
+        int[] partialWords = getPools().getPartialWords();
+        List<String> options = new ArrayList<>();
+        options.add(candidate.getWord());
+        for (int index : QuestionCandidatePools.sampleDistinct(partialWords.length, new int[0], 3, rnd)) {
+            options.add(statistics.getTerm(partialWords[index]));
+        }
+        
+        Collections.shuffle(options, rnd);
+        int correctIndex = options.indexOf(candidate.getWord());
+        
+        return new Question(questionNumber, questionText, options, correctIndex,
+            QuestionType.COMMON_WORD, candidate.getBucket());
+    }
+    
+    private Question buildWordRankQuestion(QuestionCandidatePools.Candidate candidate,
+                                           int questionNumber, Random rnd) {
+        CorpusStatistics statistics = getPools().getStatistics();
+        String doc = candidate.getDocument();
+        int rank = statistics.getRank(doc, candidate.getFrequency());
+        
+        String questionText = String.format(
+            "Nel %s, in quale posizione si trova la parola \"%s\" nella classifica delle parole più frequenti?",
+            getGenericDocumentName(doc), candidate.getWord());
+        
+        // le posizioni possibili vanno da 1 al numero di frequenze distinte del documento
+        int[] positions = new int[statistics.getRankCount(doc)];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = i + 1;
+        }
+        List<Integer> distractors = DistractorEngine.nearbyValues(positions, rank, 3, rnd);
+        
+        return numericQuestion(questionNumber, questionText, rank, distractors,
+            QuestionType.WORD_RANK, candidate.getBucket(), rnd);
+    }
+    
+    private Question buildTotalOccurrencesQuestion(QuestionCandidatePools.Candidate candidate,
+                                                   int questionNumber, Random rnd) {
+        int total = candidate.getFrequency();
+        String questionText = String.format(
+            "Quante volte compare in totale la parola \"%s\" considerando tutti i documenti?", candidate.getWord());
+        
+        List<Integer> distractors = DistractorEngine.nearbyValues(getPools().getDistinctTotals(), total, 3, rnd);
+        
+        return numericQuestion(questionNumber, questionText, total, distractors,
+            QuestionType.TOTAL_OCCURRENCES, candidate.getBucket(), rnd);
+    }
+    
+    private Question buildCoOccurrenceQuestion(QuestionCandidatePools.Candidate candidate,
+                                               int questionNumber, Random rnd) {
+        // il term id del candidato è la posizione della coppia: i distrattori hanno punteggio minore
+        QuestionCandidatePools pools = getPools();
+        String questionText = pools.getStatistics().isWindowed()
+            ? "Quale coppia di parole compare più spesso vicina nel testo dei documenti?"
+            : "Quale coppia di parole compare più spesso insieme nei documenti?";
+        int start = pools.firstLowerPair(candidate.getTermId());
+        int window = Math.min(pools.getStatistics().getPairCount() - start, DISTRACTOR_PAIR_WINDOW);
+        
+        List<String> options = new ArrayList<>();
+        options.add(candidate.getWord());
+        for (int index : QuestionCandidatePools.sampleDistinct(window, new int[0], 3, rnd)) {
+            options.add(pools.pairLabel(start + index));
+        }
+        
+        Collections.shuffle(options, rnd);
+        int correctIndex = options.indexOf(candidate.getWord());
+        
+        return new Question(questionNumber, questionText, options, correctIndex,
+            QuestionType.CO_OCCURRENCE, candidate.getBucket());
+    }
+    
+    private Question buildNextWordQuestion(QuestionCandidatePools.Candidate candidate,
+                                           int questionNumber, Random rnd) {
+        String doc = candidate.getDocument();
+        String word = candidate.getWord();
+        QuestionCandidatePools pools = getPools();
+        String correctWord = pools.getNextWord(doc, word);
+        QuestionCandidatePools.DocumentWords docWords = pools.getWords(doc);
+        
+        String questionText = String.format("Nel %s, quale parola compare più spesso subito dopo \"%s\"?",
+            getGenericDocumentName(doc), word);
+        
+        // escludo dai distrattori la parola stessa e tutte quelle che la seguono almeno una volta
+        List<Integer> excluded = new ArrayList<>();
+        excluded.add(docWords.indexOf(word));
+        for (String next : pools.getPostings(doc).getNextWords(word).keySet()) {
+            int index = docWords.indexOf(next);
+            if (index >= 0 && index != excluded.get(0)) {
+                excluded.add(index);
             }
-            
-            String correctWord = missingWords.get(random.nextInt(missingWords.size()));
-            String questionKey = doc + "|" + correctWord;
-            
-            if (!usedExclusionQuestions.contains(questionKey) ||
-                usedExclusionQuestions.size() >= documents.size() * 5) {
-                
-                usedExclusionQuestions.add(questionKey);
-                
-                String genericDocName = getGenericDocumentName(doc);
-                String questionText = String.format("Quale delle seguenti parole NON compare mai nel %s?", genericDocName);
-                
-                // Get some words that do appear in the document as distractors
-                List<String> distractors = new ArrayList<>(docWords);
-                Collections.shuffle(distractors);
-                distractors = distractors.subList(0, Math.min(distractors.size(), 3));
-                
-                List<String> options = new ArrayList<>();
-                options.add(correctWord);
-                options.addAll(distractors);
-                
-                Collections.shuffle(options);
-                int correctIndex = options.indexOf(correctWord);
-                
-                return new Question(questionNumber, questionText, options, correctIndex);
+        }
+        
+        List<String> options = new ArrayList<>();
+        options.add(correctWord);
+        int[] excludedIndices = excluded.stream().mapToInt(Integer::intValue).toArray();
+        for (int index : QuestionCandidatePools.sampleDistinct(docWords.size(), excludedIndices, 3, rnd)) {
+            options.add(docWords.getWord(index));
+        }
+        
+        Collections.shuffle(options, rnd);
+        int correctIndex = options.indexOf(correctWord);
+        
+        return new Question(questionNumber, questionText, options, correctIndex,
+            QuestionType.NEXT_WORD, candidate.getBucket());
+    }
+    
+    /**
+     * Builds a question whose options are numbers, shuffling the correct one among the distractors.
+     *
+     * @param questionNumber The sequence number of the question in the current game
+     * @param questionText the text of the question
+     * @param correct the correct value
+     * @param distractors the wrong values
+     * @param type the question type
+     * @param bucket the frequency bucket
+     * @param rnd the random source
+     * @return the generated Question object
+     */
+    private Question numericQuestion(int questionNumber, String questionText, int correct, List<Integer> distractors,
+                                     QuestionType type, int bucket, Random rnd) {
+        List<Integer> optionsList = new ArrayList<>();
+        optionsList.add(correct);
+        optionsList.addAll(distractors);
+        Collections.shuffle(optionsList, rnd);
+        
+        List<String> optionStrings = new ArrayList<>();
+        int correctIndex = -1;
+        for (int i = 0; i < optionsList.size(); i++) {
+            optionStrings.add(String.valueOf(optionsList.get(i)));
+            if (optionsList.get(i) == correct) {
+                correctIndex = i;
             }
-            
-            attempts++;
         }
         
-        return null;
+        return new Question(questionNumber, questionText, optionStrings, correctIndex, type, bucket);
     }
     
     /**
@@ -423,6 +727,10 @@ public class QuestionGeneratorService {
      * @return a basic fallback Question object
      */
     public Question generateFallbackQuestion(int questionNumber) {
+        return buildFallbackQuestion(questionNumber, random);
+    }
+    
+    private Question buildFallbackQuestion(int questionNumber, Random rnd) {
         String doc = !documents.isEmpty() ? documents.get(0) : "documento generico";
         String genericDocName = getGenericDocumentName(doc);
         
@@ -443,7 +751,7 @@ public class QuestionGeneratorService {
                 String.valueOf(correctFreq + 1),
                 String.valueOf(correctFreq + 2)
             );
-            Collections.shuffle(options);
+            Collections.shuffle(options, rnd);
             
             int correctIndex = options.indexOf(String.valueOf(correctFreq));
             return new Question(questionNumber, questionText, options, correctIndex);
@@ -456,15 +764,51 @@ public class QuestionGeneratorService {
     }
     
     /**
-     * Returns a random document from the available documents list.
+     * Gets the number of questions of a type asked since the last reset.
      *
-     * @return a randomly selected document name
+     * @param type the question type
+     * @return the number of questions asked
      */
-    private String getRandomDocument() {
-        if (documents.isEmpty()) {
-            throw new IllegalStateException("No documents available");
+    public int getUsedCount(QuestionType type) {
+        if (type == QuestionType.RELATIVE_FREQUENCY) {
+            return askedPairs.size();
         }
-        return documents.get(random.nextInt(documents.size()));
+        // gli altri tipi sono estratti senza ripetizione: le domande fatte sono i candidati già estratti
+        if (pools == null) {
+            return 0;
+        }
+        QuestionCandidatePools.Pool pool = pools.getPool(type);
+        return pool.size() - pool.remaining();
+    }
+    
+    /**
+     * Packs a question identity into a single long: 16 bits for the document
+     * position and 24 bits for each term id.
+     *
+     * @param document the position of the document in the game
+     * @param term1 the id of the first term
+     * @param term2 the id of the second term, 0 if the question has only one
+     * @return the packed key
+     */
+    private static long questionKey(int document, int term1, int term2) {
+        return ((long) (document & 0xFFFF) << 48)
+            | ((long) (term1 & 0xFFFFFF) << 24)
+            | (term2 & 0xFFFFFF);
+    }
+    
+    /**
+     * Gets the candidate pools of the game documents, building them on first use
+     * so that the constructor stays cheap when called from the JavaFX thread.
+     *
+     * @return the candidate pools
+     */
+    private QuestionCandidatePools getPools() {
+        if (pools == null) {
+            pools = sharedPools != null
+                ? sharedPools.join().copy()
+                : new QuestionCandidatePools(dtm, documents);
+        }
+        return pools;
     }
     
     /**
@@ -485,10 +829,19 @@ public class QuestionGeneratorService {
     }
     
     /**
-     * Functional interface for question generation strategies.
+     * A question whose candidate has been chosen but whose options are not built yet.
      */
-    @FunctionalInterface
-    private interface QuestionGenerator {
-        Question generate();
+    private static final class PlannedQuestion {
+        
+        private final QuestionType type;
+        private final QuestionCandidatePools.Candidate candidate;
+        /** Position of the second word, for relative frequency questions only */
+        private final int otherIndex;
+        
+        private PlannedQuestion(QuestionType type, QuestionCandidatePools.Candidate candidate, int otherIndex) {
+            this.type = type;
+            this.candidate = candidate;
+            this.otherIndex = otherIndex;
+        }
     }
 }
@@ -0,0 +1,144 @@
+package wordageddon.service;
+
+import wordageddon.model.Question;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Generates the questions of a game in background and hands them over in order.
+ *
+ * Generation starts as soon as the documents of the game are chosen, so it runs
+ * in parallel with the reading phase. Everything that may be slow runs on the
+ * pipeline thread: drawing from the question bank, loading the difficulty
+ * statistics and building the generator. Questions are put in a bounded queue: the
+ * producer stays at most {@value #QUEUE_CAPACITY} questions ahead of the player
+ * and the JavaFX thread only polls the queue, never generating questions itself.
+ *
+ * If the generation stops because of an error, the failure is recorded and
+ * exposed through {@link #getFailure()}, so the caller waiting for the next
+ * question can end the game instead of polling forever.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class QuestionPipeline {
+
+    /** Maximum number of questions generated ahead of the player */
+    private static final int QUEUE_CAPACITY = 3;
+
+    // thread condivisi dalle pipeline di tutte le partite
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "wordageddon-question-pipeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Supplier<List<Question>> bankDraw;
+    private final Supplier<QuestionGeneratorService> generatorFactory;
+    private final int totalQuestions;
+    private final BlockingQueue<Question> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private Future<?> producer;
+
+    /** Error that stopped the generation, null while it runs or once it succeeded */
+    private volatile Throwable failure;
+
+    /**
+     * Constructs a pipeline for a game. Both suppliers are called on the pipeline thread.
+     *
+     * @param bankDraw draws the questions of the game from the bank, returning null if it cannot serve them
+     * @param generatorFactory builds the generator of the game, called only when the bank cannot serve it
+     * @param totalQuestions the number of questions to generate
+     */
+    public QuestionPipeline(Supplier<List<Question>> bankDraw, Supplier<QuestionGeneratorService> generatorFactory,
+                            int totalQuestions) {
+        this.bankDraw = bankDraw;
+        this.generatorFactory = generatorFactory;
+        this.totalQuestions = totalQuestions;
+    }
+
+    /**
+     * Starts generating the questions in background.
+     */
+    public synchronized void start() {
+        if (producer == null) {
+            producer = EXECUTOR.submit(this::produce);
+        }
+    }
+
+    /**
+     * Takes the next question if it is ready, without waiting.
+     *
+     * @return the next question in order, or null if it has not been generated yet
+     */
+    public Question poll() {
+        return queue.poll();
+    }
+
+    /**
+     * Gets the error that stopped the generation.
+     * The questions queued before the failure can still be polled.
+     *
+     * @return the failure, or null if the generation is running or completed
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Stops the generation, e.g. when the player leaves the game.
+     */
+    public synchronized void cancel() {
+        if (producer != null) {
+            producer.cancel(true);
+        }
+        queue.clear();
+    }
+
+    /**
+     * Draws the questions from the bank or generates them in order, waiting when
+     * the queue is full. Runs on the pipeline thread only.
+     */
+    private void produce() {
+        try {
+            // se la banca è pronta per questo corpus le domande vengono estratte senza generarle
+            List<Question> drawn = bankDraw.get();
+            if (drawn != null && drawn.size() == totalQuestions) {
+                for (Question question : drawn) {
+                    queue.put(question);
+                }
+                return;
+            }
+
+            QuestionGeneratorService generator = generatorFactory.get();
+            generator.resetTracking();
+            for (int i = 0; i < totalQuestions && !Thread.currentThread().isInterrupted(); i++) {
+                Question question;
+                try {
+                    question = generator.generateRandomQuestion(i + 1);
+                } catch (RuntimeException e) {
+                    System.err.println("Error generating question " + (i + 1) + ": " + e.getMessage());
+                    question = generator.generateFallbackQuestion(i + 1);
+                }
+                if (question == null) {
+                    throw new IllegalStateException("Nessuna domanda generata per la posizione " + (i + 1));
+                }
+                queue.put(question);
+            }
+        } catch (InterruptedException e) {
+            // la partita è stata annullata
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // qualsiasi errore, anche del generatore di riserva, viene segnalato a chi attende le domande
+            System.err.println("Error generating questions: " + e.getMessage());
+            failure = e;
+        }
+    }
+}
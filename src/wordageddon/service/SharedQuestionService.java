@@ -0,0 +1,183 @@
+package wordageddon.service;
+
+import wordageddon.model.DocumentTermMatrix;
+import wordageddon.model.Question;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Singleton service generating questions for many concurrent game sessions.
+ *
+ * The structures derived from the DTM are built once and shared: the words of each
+ * document and the candidate pools of each document subset. Every session gets its
+ * own {@link QuestionGeneratorService} whose pools are a cheap copy of the shared
+ * ones, so concurrent sessions on the same documents never re-derive the candidates.
+ * Pools and batches are built on a work-stealing pool; all methods are thread-safe.
+ *
+ * The shared structures are keyed on the fingerprint of the DTM, so every
+ * instance with the same content (e.g. the matrices of different controllers)
+ * reuses them. When the content changes (e.g. after the corpus has been
+ * updated) they are discarded and rebuilt for the new matrix.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class SharedQuestionService {
+
+    /** Maximum number of document subsets whose pools are kept in memory */
+    private static final int MAX_CACHED_SUBSETS = 256;
+
+    private static SharedQuestionService instance;
+
+    private final ExecutorService executor = Executors.newWorkStealingPool();
+
+    /** Shared structures of the current DTM */
+    private CorpusCache cache;
+
+    private SharedQuestionService() {
+    }
+
+    /**
+     * Gets the singleton instance of SharedQuestionService.
+     *
+     * @return the SharedQuestionService instance
+     */
+    public static synchronized SharedQuestionService getInstance() {
+        if (instance == null) {
+            instance = new SharedQuestionService();
+        }
+        return instance;
+    }
+
+    /**
+     * Creates the question generator of a session. Returns immediately: the pools
+     * of the documents are built in background, or reused if another session already
+     * requested them.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the session, in game order
+     * @return a generator owned by the calling session
+     */
+    public QuestionGeneratorService createGenerator(DocumentTermMatrix dtm, List<String> documents) {
+        return new QuestionGeneratorService(dtm, documents, poolsFor(dtm, documents), new Random());
+    }
+
+    /**
+     * Creates a reproducible question generator for a session.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the session, in game order
+     * @param seed the seed of the generator
+     * @return a generator owned by the calling session
+     */
+    public QuestionGeneratorService createGenerator(DocumentTermMatrix dtm, List<String> documents, long seed) {
+        return new QuestionGeneratorService(dtm, documents, poolsFor(dtm, documents), new Random(seed));
+    }
+
+    /**
+     * Creates a generator for bulk generation (e.g. the question bank) on the calling
+     * thread. It reuses the per-document structures but its pools are not cached,
+     * so bulk work does not evict the pools of the running sessions.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the subset, in game order
+     * @return a generator owned by the caller
+     */
+    QuestionGeneratorService createBulkGenerator(DocumentTermMatrix dtm, List<String> documents) {
+        QuestionCandidatePools subsetPools = new QuestionCandidatePools(cacheFor(dtm).corpus, documents);
+        return new QuestionGeneratorService(dtm, documents, CompletableFuture.completedFuture(subsetPools), new Random());
+    }
+
+    /**
+     * Generates the questions of a session in background.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the session, in game order
+     * @param count the number of questions
+     * @return the future list of questions numbered from 1
+     */
+    public CompletableFuture<List<Question>> generateAsync(DocumentTermMatrix dtm, List<String> documents, int count) {
+        return generateAsync(dtm, documents, count, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Generates a reproducible set of questions in background
+     * (see {@link QuestionGeneratorService#generateBatch}).
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the session, in game order
+     * @param count the number of questions
+     * @param seed the seed of the batch
+     * @return the future list of questions numbered from 1
+     */
+    public CompletableFuture<List<Question>> generateAsync(DocumentTermMatrix dtm, List<String> documents,
+                                                           int count, long seed) {
+        QuestionGeneratorService generator = createGenerator(dtm, documents);
+        return CompletableFuture.supplyAsync(() -> generator.generateBatch(count, seed, null), executor);
+    }
+
+    /**
+     * Gets the shared pools of a document subset, starting their construction if needed.
+     *
+     * @param dtm the Document-Term Matrix
+     * @param documents the documents of the subset, in game order
+     * @return the future pools, shared by all the sessions on the same subset
+     */
+    private CompletableFuture<QuestionCandidatePools> poolsFor(DocumentTermMatrix dtm, List<String> documents) {
+        CorpusCache current = cacheFor(dtm);
+        if (current.pools.size() >= MAX_CACHED_SUBSETS) {
+            current.pools.clear();
+        }
+        List<String> subset = new ArrayList<>(documents);
+        // computeIfAbsent garantisce che ogni sottoinsieme venga costruito una sola volta
+        return current.pools.computeIfAbsent(String.join("\n", subset),
+            key -> CompletableFuture.supplyAsync(() -> new QuestionCandidatePools(current.corpus, subset), executor));
+    }
+
+    /**
+     * Gets the shared structures of a DTM, discarding those of the previous content.
+     *
+     * @param dtm the Document-Term Matrix
+     * @return the shared structures of the matrix, or of an equal one
+     */
+    private synchronized CorpusCache cacheFor(DocumentTermMatrix dtm) {
+        if (cache != null && cache.corpus.getMatrix() == dtm) {
+            return cache;
+        }
+        // istanze diverse con lo stesso contenuto condividono le strutture già costruite
+        long fingerprint = dtm.getFingerprint();
+        if (cache == null || cache.fingerprint != fingerprint) {
+            cache = new CorpusCache(new QuestionCandidatePools.Corpus(dtm), fingerprint);
+        }
+        return cache;
+    }
+
+    /**
+     * Per-document structures of a DTM together with the pools built from them,
+     * so that pools of an old matrix can never be served for a new one.
+     */
+    private static final class CorpusCache {
+
+        private final QuestionCandidatePools.Corpus corpus;
+
+        /** Fingerprint of the matrix the structures were built from */
+        private final long fingerprint;
+
+        /** Candidate pools keyed by subset */
+        private final Map<String, CompletableFuture<QuestionCandidatePools>> pools = new ConcurrentHashMap<>();
+
+        private CorpusCache(QuestionCandidatePools.Corpus corpus, long fingerprint) {
+            this.corpus = corpus;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package wordageddon.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Utility class for crash-safe file persistence.
+ *
+ * Every write goes to a temporary file in the same directory, is forced to disk
+ * and then atomically renamed over the target, so a crash mid-write never leaves
+ * a truncated file behind. A footer with the payload length and a CRC32 checksum
+ * is appended to the payload and verified on every read.
+ *
+ * Files written before the footer was introduced are still readable: when the
+ * footer magic is missing the whole file is treated as payload.
+ *
+ * The previous generation of a file is kept as {@code <name>.bak}: before the
+ * rename a valid target is rotated to the backup, while a target that fails
+ * verification is moved aside as {@code <name>.corrupt-<timestamp>} and never
+ * overwritten. {@link #readObjectOrBackup(File)} falls back to the backup when
+ * the current generation is missing or damaged.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class AtomicFileStore {
+
+    // magic number che identifica il footer ("WDGNCRC1")
+    private static final long FOOTER_MAGIC = 0x5744474E43524331L;
+    // lunghezza del footer: lunghezza payload + crc32 + magic
+    private static final int FOOTER_LENGTH = 3 * Long.BYTES;
+    // suffisso dei file temporanei usati durante la scrittura
+    private static final String TEMP_SUFFIX = ".tmp";
+    // suffisso della generazione precedente del file
+    private static final String BACKUP_SUFFIX = ".bak";
+    // suffisso dei file danneggiati messi da parte
+    private static final String CORRUPT_SUFFIX = ".corrupt-";
+
+    /**
+     * Writes the given bytes to the target file atomically, appending the checksum footer.
+     * An existing target is rotated to the backup file if it is valid, or moved aside
+     * if it fails verification.
+     *
+     * @param target the file to write
+     * @param payload the bytes to store
+     * @throws IOException if the file cannot be written or renamed
+     */
+    public static void writeBytes(File target, byte[] payload) throws IOException {
+        File absoluteTarget = target.getAbsoluteFile();
+        File directory = absoluteTarget.getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File tempFile = new File(directory, absoluteTarget.getName() + TEMP_SUFFIX);
+
+        // calcolo il checksum del payload da scrivere nel footer
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_LENGTH);
+        footer.putLong(payload.length);
+        footer.putLong(crc.getValue());
+        footer.putLong(FOOTER_MAGIC);
+
+        // scrivo su file temporaneo e forzo il flush su disco prima del rename
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            fos.write(payload);
+            fos.write(footer.array());
+            fos.getChannel().force(true);
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if (absoluteTarget.exists()) {
+            if (isIntact(absoluteTarget)) {
+                // conservo la generazione precedente, ancora valida, come backup
+                move(absoluteTarget, backupFile(absoluteTarget));
+            } else {
+                // un file che non supera la verifica non viene mai sovrascritto
+                File damaged = moveAside(absoluteTarget);
+                System.err.println("File corrotto " + absoluteTarget.getPath() + " spostato in " + damaged.getName());
+            }
+        }
+
+        move(tempFile, absoluteTarget);
+        syncDirectory(directory);
+    }
+
+    /**
+     * Reads a file written by {@link #writeBytes(File, byte[])} and verifies its checksum.
+     * Files without footer (legacy format) are returned as they are.
+     *
+     * @param source the file to read
+     * @return the payload stored in the file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws IOException if the file cannot be read or the checksum does not match
+     */
+    public static byte[] readBytes(File source) throws IOException {
+        if (!source.exists()) {
+            throw new FileNotFoundException("File non trovato: " + source.getPath());
+        }
+
+        byte[] content = Files.readAllBytes(source.toPath());
+        if (content.length < FOOTER_LENGTH) {
+            return content;
+        }
+
+        ByteBuffer footer = ByteBuffer.wrap(content, content.length - FOOTER_LENGTH, FOOTER_LENGTH);
+        long payloadLength = footer.getLong();
+        long expectedCrc = footer.getLong();
+        long magic = footer.getLong();
+
+        // nessun footer: file scritto con il vecchio formato
+        if (magic != FOOTER_MAGIC) {
+            return content;
+        }
+
+        if (payloadLength != content.length - FOOTER_LENGTH) {
+            throw new IOException("Lunghezza del file non valida: " + source.getPath());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, (int) payloadLength);
+        if (crc.getValue() != expectedCrc) {
+            throw new IOException("Checksum non valido, file corrotto: " + source.getPath());
+        }
+
+        return Arrays.copyOf(content, (int) payloadLength);
+    }
+
+    /**
+     * Reads and deserializes an object, recovering from the backup generation if needed.
+     *
+     * If the file is missing (e.g. a crash between the two renames of a write) the
+     * backup is read instead. If the file fails verification or cannot be deserialized,
+     * it is moved aside so that later writes cannot overwrite it, and the backup is read.
+     *
+     * @param source the file to read
+     * @return the deserialized object, from the file or from its backup
+     * @throws FileNotFoundException if neither the file nor its backup exist
+     * @throws IOException if the file is damaged and no valid backup is available
+     * @throws ClassNotFoundException if the class of the serialized object cannot be found
+     */
+    public static Object readObjectOrBackup(File source) throws IOException, ClassNotFoundException {
+        File absoluteSource = source.getAbsoluteFile();
+        File backup = backupFile(absoluteSource);
+        try {
+            return readObject(absoluteSource);
+        } catch (FileNotFoundException e) {
+            if (!backup.exists()) {
+                throw e;
+            }
+            System.err.println("File " + absoluteSource.getName() + " mancante, uso il backup " + backup.getName());
+            return readObject(backup);
+        } catch (IOException | ClassNotFoundException e) {
+            // metto da parte il file danneggiato prima che la prossima scrittura lo sostituisca
+            File damaged = moveAside(absoluteSource);
+            System.err.println("File corrotto " + absoluteSource.getPath() + " spostato in "
+                    + damaged.getName() + ": " + e.getMessage());
+            if (!backup.exists()) {
+                throw e;
+            }
+            System.err.println("Ripristino dell'ultima versione valida da " + backup.getName());
+            return readObject(backup);
+        }
+    }
+
+    /**
+     * Gets the file holding the previous generation of the given file.
+     *
+     * @param file the file written through this class
+     * @return the backup file, which may not exist
+     */
+    public static File backupFile(File file) {
+        return new File(file.getAbsoluteFile().getParentFile(), file.getName() + BACKUP_SUFFIX);
+    }
+
+    /**
+     * Serializes an object and writes it atomically to the target file.
+     *
+     * @param target the file to write
+     * @param object the object to serialize
+     * @throws IOException if serialization or writing fails
+     */
+    public static void writeObject(File target, Object object) throws IOException {
+        writeBytes(target, serialize(object));
+    }
+
+    /**
+     * Reads and deserializes an object from a file, verifying its checksum.
+     *
+     * @param source the file to read
+     * @return the deserialized object
+     * @throws IOException if the file cannot be read or is corrupted
+     * @throws ClassNotFoundException if the class of the serialized object cannot be found
+     */
+    public static Object readObject(File source) throws IOException, ClassNotFoundException {
+        byte[] payload = readBytes(source);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return ois.readObject();
+        }
+    }
+
+    /**
+     * Serializes an object into a byte array.
+     *
+     * @param object the object to serialize
+     * @return the serialized bytes
+     * @throws IOException if serialization fails
+     */
+    public static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(buffer)) {
+            oos.writeObject(object);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Checks whether a file can be read and passes the checksum verification.
+     *
+     * @param file the file to check
+     * @return true if the file is valid
+     */
+    private static boolean isIntact(File file) {
+        try {
+            readBytes(file);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Moves a damaged file to a name that is never written again.
+     *
+     * @param file the damaged file
+     * @return the new location of the file
+     * @throws IOException if the file cannot be renamed
+     */
+    private static File moveAside(File file) throws IOException {
+        File damaged = new File(file.getParentFile(), file.getName() + CORRUPT_SUFFIX + System.currentTimeMillis());
+        move(file, damaged);
+        return damaged;
+    }
+
+    /**
+     * Renames a file, atomically when the filesystem allows it.
+     *
+     * @param source the file to rename
+     * @param destination the new name, replaced if it exists
+     * @throws IOException if the rename fails
+     */
+    private static void move(File source, File destination) throws IOException {
+        try {
+            Files.move(source.toPath(), destination.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // alcuni filesystem non supportano il rename atomico, ripiego su un rename semplice
+            Files.move(source.toPath(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the directory entry of a renamed file to disk.
+     * Not every platform allows opening a directory, so failures are ignored.
+     *
+     * @param directory the directory to sync
+     */
+    private static void syncDirectory(File directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // su windows non è possibile aprire una directory, il rename resta comunque atomico
+        }
+    }
+}
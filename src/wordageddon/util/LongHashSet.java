@@ -0,0 +1,142 @@
+package wordageddon.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash set of primitive long values.
+ *
+ * Uses open addressing with linear probing over a single long array, so adding
+ * or looking up a key never allocates objects (no boxing, no entry nodes).
+ * The value 0 is stored in a separate flag because it marks empty slots.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class LongHashSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    // fattore di carico massimo prima di raddoppiare la tabella
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+    private int resizeThreshold;
+
+    /**
+     * Constructs an empty set with the default capacity.
+     */
+    public LongHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty set able to hold the given number of keys without resizing.
+     *
+     * @param expectedSize the expected number of keys
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Adds a key to the set.
+     *
+     * @param key the key to add
+     * @return true if the key was not already present
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = key;
+        if (++size > resizeThreshold) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a key is in the set.
+     *
+     * @param key the key to look up
+     * @return true if the key is present
+     */
+    public boolean contains(long key) {
+        if (key == 0) {
+            return containsZero;
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all keys, keeping the allocated table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        containsZero = false;
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long key : old) {
+            if (key != 0) {
+                int slot = mix(key) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = key;
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of the key so that packed keys differing only in the
+     * high bits do not collide on the same slots.
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
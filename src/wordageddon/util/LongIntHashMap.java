@@ -0,0 +1,230 @@
+package wordageddon.util;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Hash map from primitive long keys to int values.
+ *
+ * Uses the same layout as {@link LongHashSet}: open addressing with linear probing
+ * over parallel arrays, so counting a key never allocates objects. Meant for
+ * sparse counters indexed by packed ids (e.g. pairs of term ids).
+ * Missing keys have value 0.
+ *
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class LongIntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    // fattore di carico massimo prima di raddoppiare la tabella
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private boolean containsZero;
+    private int zeroValue;
+    private int resizeThreshold;
+
+    /**
+     * Callback receiving the entries of the map.
+     */
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    private interface EntryFilter {
+        boolean keep(long key, int value);
+    }
+
+    /**
+     * Constructs an empty map with the default capacity.
+     */
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty map able to hold the given number of keys without resizing.
+     *
+     * @param expectedSize the expected number of keys
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Adds a delta to the value of a key, inserting the key if missing.
+     *
+     * @param key the key
+     * @param delta the amount to add
+     * @return the new value
+     */
+    public int addTo(long key, int delta) {
+        if (key == 0) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue += delta;
+            return zeroValue;
+        }
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key the key to look up
+     * @return the value, or 0 if the key is missing
+     */
+    public int get(long key) {
+        if (key == 0) {
+            return containsZero ? zeroValue : 0;
+        }
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visits all the entries, in no particular order.
+     *
+     * @param consumer the callback receiving each entry
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (containsZero) {
+            consumer.accept(0, zeroValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Removes the entries whose value is lower than a threshold, shrinking the table.
+     *
+     * @param threshold the minimum value to keep
+     */
+    public void pruneBelow(int threshold) {
+        retain((key, value) -> value >= threshold);
+    }
+
+    /**
+     * Removes the entries whose key does not satisfy a condition, shrinking the table.
+     *
+     * @param condition the condition the kept keys satisfy
+     */
+    public void retainKeys(LongPredicate condition) {
+        retain((key, value) -> condition.test(key));
+    }
+
+    /**
+     * Rebuilds the table with the entries accepted by the filter only.
+     */
+    private void retain(EntryFilter filter) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        if (containsZero && !filter.keep(0, zeroValue)) {
+            containsZero = false;
+            zeroValue = 0;
+        }
+
+        int kept = containsZero ? 1 : 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0 && filter.keep(oldKeys[slot], oldValues[slot])) {
+                kept++;
+            }
+        }
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (kept / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+        size = containsZero ? 1 : 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            // il filtro viene valutato una seconda volta, deve essere senza effetti collaterali
+            if (oldKeys[slot] != 0 && filter.keep(oldKeys[slot], oldValues[slot])) {
+                insertNew(oldKeys[slot], oldValues[slot]);
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Removes all entries, keeping the allocated table.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        containsZero = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                insertNew(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void insertNew(long key, int value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Spreads the bits of the key, see {@link LongHashSet}.
+     */
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
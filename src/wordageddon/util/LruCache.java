@@ -0,0 +1,243 @@
+package wordageddon.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small thread-safe cache with a maximum size and a time to live.
+ *
+ * Entries are kept in access order and the least recently used one is evicted when the
+ * cache is full; an entry older than the time to live is treated as missing, so values
+ * changed outside the application are eventually read again. Null values are never
+ * cached. The cache counts hits, misses and evictions, see {@link #getStatistics()}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author Gregorio Barberio, Francesco Peluso, Davide Quaranta, Ciro Ronca
+ * @version 1.0
+ * @since 2025
+ */
+public class LruCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, CachedValue<V>> entries;
+
+    /** Incremented by every invalidation, so that a value loaded meanwhile is not stored */
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * A cached value with its loading time.
+     */
+    private static final class CachedValue<V> {
+
+        private final V value;
+        private final long loadedAt;
+
+        private CachedValue(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Usage counters of a cache at a given moment.
+     */
+    public static class Statistics {
+
+        private final String name;
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+
+        private Statistics(LruCache<?, ?> cache, int size) {
+            this.name = cache.name;
+            this.size = size;
+            this.maxSize = cache.maxSize;
+            this.hits = cache.hits.get();
+            this.misses = cache.misses.get();
+            this.evictions = cache.evictions.get();
+            this.invalidations = cache.invalidations.get();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        /**
+         * Gets the fraction of the requests served by the cache.
+         *
+         * @return the hit rate, between 0 and 1
+         */
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("cache %s: %d/%d voci, %d hit, %d miss (%.1f%%), %d rimosse, %d invalidate",
+                name, size, maxSize, hits, misses, getHitRate() * 100, evictions, invalidations);
+        }
+    }
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param name the name shown in the statistics
+     * @param maxSize the maximum number of entries
+     * @param ttlMillis how long an entry stays valid, in milliseconds
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public LruCache(String name, int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("La dimensione della cache deve essere positiva: " + maxSize);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a value, loading it on a miss.
+     *
+     * The loader runs outside the lock, so two threads missing the same key at the
+     * same time may both load it. A value whose loading overlapped an invalidation
+     * is returned but not cached, since it may have been read before the change.
+     *
+     * @param key the key
+     * @param loader computes the value of a missing key; may return null, which is not cached
+     * @return the cached or loaded value
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = generation;
+            CachedValue<V> entry = entries.get(key);
+            if (entry != null) {
+                if (now - entry.loadedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return entry.value;
+                }
+                // scaduta: la rileggo
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new CachedValue<>(value, now));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets a value only if it is cached and still valid, without counting the request.
+     *
+     * @param key the key
+     * @return the value, or null if missing
+     */
+    public synchronized V peek(K key) {
+        CachedValue<V> entry = entries.get(key);
+        return entry != null && System.nanoTime() - entry.loadedAt < ttlNanos ? entry.value : null;
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param key the key
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the entries whose value matches a condition.
+     *
+     * @param condition the condition on the cached values
+     */
+    public synchronized void invalidateIf(Predicate<? super V> condition) {
+        generation++;
+        Iterator<CachedValue<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (condition.test(iterator.next().value)) {
+                iterator.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the usage counters of the cache.
+     *
+     * @return a snapshot of the statistics
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(this, entries.size());
+    }
+}